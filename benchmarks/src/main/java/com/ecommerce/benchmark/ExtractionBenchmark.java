@@ -0,0 +1,86 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.service.FetchedPage;
+import com.ecommerce.service.PageResult;
+import com.ecommerce.service.extractor.SiteExtractor;
+import com.ecommerce.service.extractor.SiteExtractorRegistry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-site extraction loop over an already parsed page, the full parse + extract path and
+ * streaming extraction straight from the body bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"amazon", "ebay", "meesho", "walmart", "generic"})
+    public String site;
+
+    private AnnotationConfigApplicationContext context;
+    private SiteExtractor extractor;
+    private String html;
+    private String baseUri;
+    private Document doc;
+    private FetchedPage fetched;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = Fixtures.extractorContext();
+        html = Fixtures.page(site);
+        baseUri = Fixtures.baseUri(site);
+        doc = Jsoup.parse(html, baseUri);
+        fetched = FetchedPage.of(baseUri, "UTF-8", html.getBytes(StandardCharsets.UTF_8));
+        extractor = context.getBean(SiteExtractorRegistry.class).resolve(site + ".com");
+
+        int products = extractor.extract(1, doc).getProducts().size();
+        if (products == 0) {
+            throw new IllegalStateException("Fixture page for " + site + " yields no products");
+        }
+        if (extractor.extract(1, fetched).getProducts().size() != products) {
+            throw new IllegalStateException("Streaming extraction disagrees with the full document for " + site);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResult extract() throws IOException {
+        return extractor.extract(1, doc);
+    }
+
+    @Benchmark
+    public PageResult parseAndExtract() throws IOException {
+        return extractor.extract(1, Jsoup.parse(html, baseUri));
+    }
+
+    @Benchmark
+    public PageResult streamExtract() throws IOException {
+        return extractor.extract(1, fetched);
+    }
+}
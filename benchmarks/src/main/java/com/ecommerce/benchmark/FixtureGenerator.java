@@ -0,0 +1,247 @@
+package com.ecommerce.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes the synthetic result pages in the root module's {@code src/test/resources/fixtures},
+ * where the tests and {@code StubShopServer} read them as well. They are not
+ * saved from the live sites: each reproduces its site's card markup, which is what the
+ * selectors in {@code site-rules.yml} read, inside a page padded the way result pages are,
+ * with a large inline stylesheet, a JSON state blob before and after the results, category
+ * links and a footer. Every site has a fixed seed, so rerunning this rewrites the same files.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.ecommerce.benchmark.FixtureGenerator ../src/test/resources/fixtures
+ * </pre>
+ */
+public final class FixtureGenerator {
+
+    private static final String[] WORDS = {
+            "15.6", "16Gb", "4K", "512Gb", "Backlit", "Bluetooth", "Cancelling", "Case", "Chair", "Charger",
+            "Charging", "Cover", "Ergonomic", "Fast", "Fitness", "Gaming", "Hdr", "Headphones", "Inch",
+            "Keyboard", "Laptop", "Max", "Mechanical", "Monitor", "Noise", "Office", "Portable", "Pro", "Ram",
+            "Slim", "Smart", "Ssd", "Stainless", "Steel", "Tracker", "Ultra", "Usb-C", "Watch", "Wireless"
+    };
+
+    private static final String[] CONDITIONS = {"Brand New", "Open Box", "Pre-Owned", "Refurbished"};
+
+    private final Random random;
+    private final StringBuilder html = new StringBuilder(256 * 1024);
+
+    private FixtureGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "../src/test/resources/fixtures");
+        Files.createDirectories(dir);
+        write(dir, "amazon", new FixtureGenerator(1).amazon());
+        write(dir, "ebay", new FixtureGenerator(2).ebay());
+        write(dir, "meesho", new FixtureGenerator(3).meesho());
+        write(dir, "walmart", new FixtureGenerator(4).walmart());
+        write(dir, "generic", new FixtureGenerator(5).generic());
+    }
+
+    private static void write(Path dir, String site, String page) throws IOException {
+        Path file = dir.resolve(site + ".html");
+        Files.write(file, page.getBytes(StandardCharsets.UTF_8));
+        System.out.println(file + ": " + page.length() + " chars");
+    }
+
+    private String amazon() {
+        head("Amazon.com : laptop", 360);
+        html.append("<div class=\"s-main-slot s-result-list s-search-results sg-row\">");
+        for (int i = 0; i < 48; i++) {
+            String asin = String.format(Locale.ROOT, "B%09d", i);
+            String url = "/dp/" + asin + "/ref=sr_1_" + i;
+            long cents = cents(5_00, 2_500_00);
+            html.append("<div data-asin=\"").append(asin).append("\" data-index=\"").append(i)
+                    .append("\" data-component-type=\"s-search-result\" class=\"sg-col-4-of-24 s-result-item s-asin sg-col s-widget-spacing-small\">")
+                    .append("<div class=\"sg-col-inner\"><div class=\"s-widget-container s-spacing-small\"><div class=\"puis-card-container\"><div class=\"a-section a-spacing-base\">")
+                    .append("<span data-component-type=\"s-product-image\"><a class=\"a-link-normal s-no-outline\" href=\"").append(url)
+                    .append("\"><div class=\"a-section aok-relative s-image-square-aspect\"><img class=\"s-image\" src=\"https://m.media-amazon.com/images/I/")
+                    .append(digits(8)).append("._AC_UY218_.jpg\" alt=\"").append(words(8)).append("\"></div></a></span>");
+            if (random.nextInt(7) == 0) {
+                html.append("<span class=\"s-label-popover-default\">Sponsored</span>");
+            }
+            html.append("<div class=\"a-section a-spacing-small puis-padding-left-small\"><div class=\"a-section a-spacing-none a-spacing-top-small s-title-instructions-style\">")
+                    .append("<h2 class=\"a-size-mini a-spacing-none a-color-base s-line-clamp-4\"><a class=\"a-link-normal s-underline-text s-underline-link-text s-link-style a-text-normal\" href=\"")
+                    .append(url).append("\"><span class=\"a-size-base-plus a-color-base a-text-normal\">").append(words(14)).append("</span></a></h2></div>")
+                    .append("<div class=\"a-section a-spacing-none a-spacing-top-micro\"><div class=\"a-row a-size-small\"><span aria-label=\"").append(rating())
+                    .append(" out of 5 stars\"><i class=\"a-icon a-icon-star-small a-star-small-4-5\"><span class=\"a-icon-alt\">").append(rating())
+                    .append(" out of 5 stars</span></i></span><span aria-label=\"").append(random.nextInt(40_000))
+                    .append("\"><span class=\"a-size-base s-underline-text\">").append(String.format(Locale.US, "%,d", random.nextInt(40_000)))
+                    .append("</span></span></div></div>")
+                    .append("<div class=\"a-row a-size-base a-color-secondary\"><span>").append(words(5)).append("</span></div>")
+                    .append("<div class=\"a-section a-spacing-none a-spacing-top-small s-price-instructions-style\"><div class=\"a-row a-size-base a-color-base\">")
+                    .append("<a class=\"a-link-normal s-no-hover s-underline-text\" href=\"/dp/").append(asin)
+                    .append("\"><span class=\"a-price\" data-a-size=\"xl\" data-a-color=\"base\"><span class=\"a-offscreen\">$").append(money(cents, true))
+                    .append("</span><span aria-hidden=\"true\"><span class=\"a-price-symbol\">$</span><span class=\"a-price-whole\">")
+                    .append(String.format(Locale.US, "%,d", cents / 100)).append("<span class=\"a-price-decimal\">.</span></span><span class=\"a-price-fraction\">")
+                    .append(String.format(Locale.ROOT, "%02d", cents % 100)).append("</span></span></span></a></div></div>")
+                    .append("</div></div></div></div></div></div>");
+        }
+        html.append("</div>");
+        return tail(240);
+    }
+
+    private String ebay() {
+        head("laptop | eBay", 300);
+        html.append("<div id=\"srp-river-results\"><ul class=\"srp-results srp-list clearfix\">")
+                // eBay's first result is a placeholder without a real listing behind it
+                .append("<li class=\"s-item s-item--watch-at-corner\"><div class=\"s-item__wrapper clearfix\"><div class=\"s-item__info clearfix\">")
+                .append("<div class=\"s-item__title\"><span role=\"heading\">Shop on eBay</span></div><span class=\"s-item__price\">$20.00</span></div></div></li>");
+        for (int i = 0; i < 60; i++) {
+            long cents = cents(5_00, 2_500_00);
+            String price = "$" + money(cents, true);
+            if (random.nextInt(8) == 0) {
+                price += " to $" + money(cents + cents(1_00, cents / 2 + 2_00), true);
+            }
+            html.append("<li class=\"s-item s-item__pl-on-bottom\" data-viewport='{\"trackableId\":\"").append(digits(12))
+                    .append("\"}' id=\"item").append(i).append("\"><div class=\"s-item__wrapper clearfix\"><div class=\"s-item__image-section\"><div class=\"s-item__image\">")
+                    .append("<a tabindex=\"-1\" href=\"https://www.ebay.com/itm/").append(digits(12))
+                    .append("\"><div class=\"s-item__image-wrapper image-treatment\"><img class=\"s-item__image-img\" alt=\"").append(words(8))
+                    .append("\" src=\"https://i.ebayimg.com/thumbs/images/g/").append(digits(7)).append("/s-l225.jpg\" loading=\"eager\"></div></a></div></div>")
+                    .append("<div class=\"s-item__info clearfix\"><a class=\"s-item__link\" href=\"https://www.ebay.com/itm/").append(digits(12))
+                    .append("\"><div class=\"s-item__title\"><span role=\"heading\" aria-level=\"3\">").append(words(12)).append("</span></div></a>")
+                    .append("<div class=\"s-item__subtitle\"><span class=\"SECONDARY_INFO\">").append(CONDITIONS[random.nextInt(CONDITIONS.length)])
+                    .append("</span></div><div class=\"s-item__reviews\"><div class=\"x-star-rating\"><span class=\"clipped\">").append(rating())
+                    .append(" out of 5 stars.</span></div></div><div class=\"s-item__details clearfix\">")
+                    .append("<div class=\"s-item__detail s-item__detail--primary\"><span class=\"s-item__price\">").append(price).append("</span></div>")
+                    .append("<div class=\"s-item__detail s-item__detail--primary\"><span class=\"s-item__shipping s-item__logisticsCost\">+$")
+                    .append(money(cents(2_00, 15_00), true)).append(" shipping</span></div>")
+                    .append("<div class=\"s-item__detail s-item__detail--primary\"><span class=\"s-item__location s-item__itemLocation\">from United States</span></div>")
+                    .append("</div></div></div></li>");
+        }
+        html.append("</ul></div>");
+        return tail(180);
+    }
+
+    private String meesho() {
+        head("Meesho", 180);
+        html.append("<div class=\"ProductList__GridRow-sc-8lnc8o-1\">");
+        for (int i = 0; i < 40; i++) {
+            html.append("<div class=\"ProductList__GridCol-sc-8lnc8o-0 cokuZA\"><a href=\"/p/").append(100_000 + random.nextInt(900_000))
+                    .append("\"><div class=\"sc-dkrFOg ProductCard__BaseCard-sc-camkhj-0 dHZbNg\"><div class=\"ProductCard__ImgWrapper-sc-camkhj-1\"><picture>")
+                    .append("<img src=\"https://images.meesho.com/images/products/").append(i).append('/').append(i).append("_400.webp\" alt=\"").append(words(8))
+                    .append("\"></picture></div><div class=\"NewProductCardstyled__ProductCardDetail-sc-6y2tys-2\">")
+                    .append("<p class=\"Text__StyledText-sc-oo0kvp-0 cPgaBh NewProductCardstyled__StyledDesktopProductTitle-sc-6y2tys-5\">").append(words(10)).append("</p>")
+                    .append("<div class=\"NewProductCardstyled__PriceRow-sc-6y2tys-7\"><h5 class=\"Text__StyledText-sc-oo0kvp-0 dLSsNI\">&#8377;").append(100 + random.nextInt(2_900))
+                    .append("</h5><p class=\"Text__StyledText-sc-oo0kvp-0 gVUROx\">onwards</p></div>")
+                    .append("<span class=\"Text__StyledText-sc-oo0kvp-0 bMvEge\">Free Delivery</span>")
+                    .append("<div class=\"NewProductCardstyled__RatingSection-sc-6y2tys-9\"><span class=\"Text__StyledText-sc-oo0kvp-0 laVOtN\">").append(rating())
+                    .append("</span><span class=\"Text__StyledText-sc-oo0kvp-0 dfqNdl\">").append(random.nextInt(20_000)).append(" Reviews</span></div>")
+                    .append("</div></div></a></div>");
+        }
+        html.append("</div>");
+        return tail(120);
+    }
+
+    private String walmart() {
+        head("Walmart.com", 180);
+        html.append("<section><div class=\"flex flex-wrap w-100 flex-grow-0 flex-shrink-0 ph2 pr0-xl pl4-xl mt0-xl\">");
+        for (int i = 0; i < 40; i++) {
+            String price = "$" + money(cents(5_00, 2_500_00), true);
+            html.append("<div data-item-id=\"").append(100_000_000 + random.nextInt(900_000_000))
+                    .append("\" class=\"mb0 ph1 pa0-xl bb b--near-white w-25\"><div class=\"h-100 pb1-xl pr4-xl pv1 ph1\"><div class=\"sans-serif mid-gray relative flex flex-column w-100\">")
+                    .append("<a class=\"absolute w-100 h-100 z-1 hide-sibling-opacity\" href=\"/ip/").append(i).append("\"><span class=\"w_iUH7\">").append(words(10)).append("</span></a>")
+                    .append("<div class=\"relative\"><img class=\"absolute top-0 left-0\" loading=\"lazy\" src=\"https://i5.walmartimages.com/asr/").append(i).append(".jpeg\" alt=\"\"></div>")
+                    .append("<div class=\"flex flex-wrap justify-start items-center lh-title mb1\"><div class=\"price-main mr1 mr2-xl b black lh-copy f5 f4-l\">")
+                    .append("<span class=\"w_iUH7\">current price ").append(price).append("</span>").append(price).append("</div></div>")
+                    .append("<span class=\"normal dark-gray mb0 mt1 lh-title f6 f5-l lh-copy\">").append(words(10)).append("</span>")
+                    .append("</div></div></div>");
+        }
+        html.append("</div></section>");
+        return tail(120);
+    }
+
+    private String generic() {
+        head("Shop", 60);
+        html.append("<main class=\"grid\">");
+        for (int i = 0; i < 30; i++) {
+            html.append("<div class=\"product\"><a href=\"/products/").append(i).append("\"><img src=\"/img/").append(i).append(".jpg\" alt=\"\"></a>")
+                    .append("<h2 class=\"title\">").append(words(8)).append("</h2><p>").append(words(20)).append("</p>")
+                    .append("<span class=\"price\">$").append(money(cents(5_00, 2_500_00), false)).append("</span></div>");
+        }
+        html.append("</main>");
+        return tail(30);
+    }
+
+    /** Everything before the results: a stylesheet, a state blob and the category links. */
+    private void head(String title, int state) {
+        html.append("<!doctype html><html lang=\"en\"><head><meta charset=\"utf-8\"><title>").append(title).append("</title><style>");
+        for (int i = 0; i < 200; i++) {
+            html.append(".x{color:#333;margin:0}");
+        }
+        html.append("</style>");
+        state(state);
+        html.append("</head><body><header><nav>");
+        for (int i = 0; i < 40; i++) {
+            html.append("<a href=\"/c/").append(i).append("\">").append(words(2)).append("</a>");
+        }
+        html.append("</nav></header>");
+    }
+
+    /** Everything after the results: a footer and a second state blob. */
+    private String tail(int state) {
+        html.append("<footer>");
+        for (int i = 0; i < 30; i++) {
+            html.append("<p>").append(words(12)).append("</p>");
+        }
+        html.append("</footer>");
+        state(state);
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    private void state(int entries) {
+        html.append("<script type=\"text/javascript\">window.__STATE__=[");
+        for (int i = 0; i < entries; i++) {
+            html.append(i == 0 ? "" : ", ").append("{\"id\": ").append(i).append(", \"k\": \"").append(words(3))
+                    .append("\", \"v\": ").append(random.nextDouble()).append(", \"tags\": [");
+            for (int tag = 0; tag < 5; tag++) {
+                html.append(tag == 0 ? "\"" : ", \"").append(word()).append('"');
+            }
+            html.append("]}");
+        }
+        html.append("];</script>");
+    }
+
+    private String words(int count) {
+        StringBuilder words = new StringBuilder(word());
+        for (int i = 1; i < count; i++) {
+            words.append(' ').append(word());
+        }
+        return words.toString();
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private String digits(int count) {
+        StringBuilder digits = new StringBuilder().append(1 + random.nextInt(9));
+        for (int i = 1; i < count; i++) {
+            digits.append(random.nextInt(10));
+        }
+        return digits.toString();
+    }
+
+    private String rating() {
+        return String.format(Locale.ROOT, "%d.%d", 3 + random.nextInt(2), random.nextInt(10));
+    }
+
+    private long cents(long min, long max) {
+        return min + (long) (random.nextDouble() * (max - min));
+    }
+
+    private static String money(long cents, boolean grouped) {
+        return String.format(Locale.US, grouped ? "%,d.%02d" : "%d.%02d", cents / 100, cents % 100);
+    }
+}
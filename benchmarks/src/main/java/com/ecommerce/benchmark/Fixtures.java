@@ -0,0 +1,33 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.service.extractor.SiteExtractorRegistry;
+import com.ecommerce.stub.StubShopServer;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The synthetic result pages written by {@link FixtureGenerator} and the extractors that read
+ * them, loaded without the web application. The pages ship in the root module's test jar.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static String page(String site) {
+        return StubShopServer.page(site);
+    }
+
+    static String baseUri(String site) {
+        return "generic".equals(site) ? "https://shop.example.com/search?q=laptop" : "https://www." + site + ".com/search?q=laptop";
+    }
+
+    /** Just enough of the application context to build the extractors and their selector rules. */
+    static AnnotationConfigApplicationContext extractorContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(ScraperProperties.class);
+        context.scan(SiteExtractorRegistry.class.getPackageName());
+        context.refresh();
+        return context;
+    }
+}
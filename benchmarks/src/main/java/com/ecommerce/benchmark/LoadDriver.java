@@ -0,0 +1,239 @@
+package com.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load on {@code POST /api/scraper/scrape}: a fixed number of clients each send
+ * the next listing URL as soon as their previous scrape returns. Every URL carries a unique
+ * query, so no scrape is answered from the page cache. The application's heap and live
+ * threads are sampled from its actuator once a second.
+ */
+final class LoadDriver {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String target;
+    private final int concurrency;
+    private final Duration duration;
+    private final List<String> sites;
+    private final HttpClient client;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong ok = new AtomicLong();
+    private final AtomicLong empty = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong products = new AtomicLong();
+    private volatile double maxHeapMb;
+    private volatile double maxThreads;
+
+    /**
+     * @param target base URL of the scraper, e.g. {@code http://127.0.0.1:8082}
+     */
+    LoadDriver(String target, int concurrency, Duration duration, List<String> sites) {
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.sites = sites;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    Report run() throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<long[]>> latencies = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            latencies.add(clients.submit(() -> client(deadline)));
+        }
+
+        List<long[]> perClient = new ArrayList<>(concurrency);
+        for (Future<long[]> future : latencies) {
+            try {
+                perClient.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load client failed", e.getCause());
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+        sampler.shutdownNow();
+        sample();
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Report(all, elapsed, ok.get(), empty.get(), failed.get(), products.get(), maxHeapMb, maxThreads);
+    }
+
+    /**
+     * One client's loop until the deadline.
+     *
+     * @return the latency of every request it made, in nanoseconds
+     */
+    private long[] client(long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            long n = sequence.getAndIncrement();
+            String listing = listingUrl(sites.get((int) (n % sites.size())), n);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/api/scraper/scrape"))
+                    .timeout(Duration.ofMinutes(5))
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString(listing))
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<String> response = null;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                failed.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+            if (response != null) {
+                record(response);
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private void record(HttpResponse<String> response) {
+        int size;
+        try {
+            // The endpoint answers a failed scrape with an empty list, so count those apart
+            size = response.statusCode() == 200 ? JSON.readTree(response.body()).size() : -1;
+        } catch (IOException e) {
+            size = -1;
+        }
+        if (size < 0) {
+            failed.incrementAndGet();
+            return;
+        }
+        if (size == 0) {
+            empty.incrementAndGet();
+        } else {
+            ok.incrementAndGet();
+            products.addAndGet(size);
+        }
+    }
+
+    private void sample() {
+        try {
+            maxHeapMb = Math.max(maxHeapMb, metric("jvm.memory.used?tag=area:heap") / (1024 * 1024));
+            maxThreads = Math.max(maxThreads, metric("jvm.threads.live"));
+        } catch (IOException e) {
+            // The actuator may not be up yet or may be swamped; the next sample will tell
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double metric(String name) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/actuator/metrics/" + name))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Actuator answered " + response.statusCode() + " for " + name);
+        }
+        for (JsonNode measurement : JSON.readTree(response.body()).path("measurements")) {
+            if ("VALUE".equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    /** A search URL on the real site, unique per request so no two scrapes share a cache entry. */
+    static String listingUrl(String site, long n) {
+        switch (site) {
+            case "amazon":
+                return "https://www.amazon.com/s?k=laptop-" + n;
+            case "ebay":
+                return "https://www.ebay.com/sch/i.html?_nkw=laptop-" + n;
+            case "walmart":
+                return "https://www.walmart.com/search?q=laptop-" + n;
+            case "meesho":
+                return "https://www.meesho.com/search?q=laptop-" + n;
+            default:
+                return "https://shop.example.com/search?q=laptop-" + n;
+        }
+    }
+
+    /** The real host each site's listings are on, as keyed in {@code scraper.fetch.base-urls}. */
+    static String host(String site) {
+        return "generic".equals(site) ? "shop.example.com" : site + ".com";
+    }
+
+    static final class Report {
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final long ok;
+        private final long empty;
+        private final long failed;
+        private final long products;
+        private final double maxHeapMb;
+        private final double maxThreads;
+
+        private Report(long[] latencies, long elapsedNanos, long ok, long empty, long failed, long products,
+                       double maxHeapMb, double maxThreads) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+            this.ok = ok;
+            this.empty = empty;
+            this.failed = failed;
+            this.products = products;
+            this.maxHeapMb = maxHeapMb;
+            this.maxThreads = maxThreads;
+        }
+
+        private double percentileMs(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(rank, latencies.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(Locale.ROOT,
+                    "requests     %d in %.1f s (%d with products, %d empty, %d failed)%n"
+                            + "throughput   %.1f scrapes/s, %.0f products/s%n"
+                            + "latency      p50 %.0f ms, p90 %.0f ms, p99 %.0f ms, max %.0f ms%n"
+                            + "scraper      peak heap %.0f MB, peak live threads %.0f",
+                    latencies.length, seconds, ok, empty, failed,
+                    latencies.length / seconds, products / seconds,
+                    percentileMs(0.5), percentileMs(0.9), percentileMs(0.99), percentileMs(1.0),
+                    maxHeapMb, maxThreads);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.WebScraperApplication;
+import com.ecommerce.stub.StubShopServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Offline load test of the whole scrape pipeline. Starts {@link StubShopServer}, then the
+ * scraper in this JVM with every supported site's {@code scraper.fetch.base-urls} pointing
+ * at the stub, and drives it with {@link LoadDriver}. No request leaves the machine.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.ecommerce.benchmark.LoadTest \
+ *     --duration=30s --concurrency=16 --sites=amazon,ebay \
+ *     --latency=50ms --jitter=50ms --pages=5 --forbidden=0.01 --throttle=0.02 --captcha=0.01 --stub-rps=0
+ * </pre>
+ *
+ * With {@code --target=http://host:port} the scraper is not started and the driver loads
+ * that instance instead, which must already have its base URLs pointed at the stub; the
+ * stub's port is printed at startup and fixed with {@code --stub-port}. Options not
+ * listed above ({@code --scraper.*}, {@code --server.*}, ...) are passed to the scraper.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> scraperArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            String name = arg.substring(2, equals < 0 ? arg.length() : equals);
+            if (name.contains(".")) {
+                scraperArgs.add(arg);
+            } else {
+                options.put(name, equals < 0 ? "true" : arg.substring(equals + 1));
+            }
+        }
+
+        StubShopServer.Options stub = new StubShopServer.Options();
+        stub.latency = duration(options.getOrDefault("latency", "50ms"));
+        stub.jitter = duration(options.getOrDefault("jitter", "50ms"));
+        stub.pages = Integer.parseInt(options.getOrDefault("pages", "5"));
+        stub.forbiddenRate = Double.parseDouble(options.getOrDefault("forbidden", "0"));
+        stub.throttleRate = Double.parseDouble(options.getOrDefault("throttle", "0"));
+        stub.captchaRate = Double.parseDouble(options.getOrDefault("captcha", "0"));
+        stub.maxRequestsPerSecond = Double.parseDouble(options.getOrDefault("stub-rps", "0"));
+        stub.threads = Integer.parseInt(options.getOrDefault("stub-threads", "200"));
+        stub.port = Integer.parseInt(options.getOrDefault("stub-port", "0"));
+
+        List<String> sites = Arrays.asList(options.getOrDefault("sites", String.join(",", StubShopServer.SITES)).split(","));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration duration = duration(options.getOrDefault("duration", "30s"));
+
+        try (StubShopServer server = new StubShopServer(stub)) {
+            System.out.printf("Stub shop on port %d%n", server.port());
+            String target = options.get("target");
+            ConfigurableApplicationContext scraper = null;
+            if (target == null) {
+                scraper = startScraper(server, options.getOrDefault("rate", "1000"), scraperArgs);
+                target = "http://127.0.0.1:" + ((WebServerApplicationContext) scraper).getWebServer().getPort();
+            }
+            try {
+                System.out.printf("Driving %s with %d clients for %s over %s%n", target, concurrency, duration, sites);
+                LoadDriver.Report report = new LoadDriver(target, concurrency, duration, sites).run();
+                System.out.println(report);
+                System.out.println("stub         " + server.counts());
+            } finally {
+                if (scraper != null) {
+                    scraper.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param rate requests per second allowed per host; high by default, so the stub's
+     *             latency and faults shape the results rather than the politeness limits
+     */
+    private static ConfigurableApplicationContext startScraper(StubShopServer server, String rate, List<String> extra) {
+        String burst = String.valueOf(Math.max(1, (int) Math.ceil(Double.parseDouble(rate))));
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("scraper.cache.enabled", "false");
+        properties.put("scraper.crawl.enabled", "false");
+        properties.put("scraper.fetch.politeness.requests-per-second", rate);
+        properties.put("scraper.fetch.politeness.burst", burst);
+        properties.put("logging.level.root", "WARN");
+        for (String site : StubShopServer.SITES) {
+            String host = LoadDriver.host(site);
+            properties.put("scraper.fetch.base-urls[" + host + "]", server.baseUrl(site));
+            // application.properties slows some hosts down; the stub should not be
+            properties.put("scraper.fetch.hosts[" + host + "].requests-per-second", rate);
+            properties.put("scraper.fetch.hosts[" + host + "].burst", burst);
+        }
+        // A repeated command-line option would bind as a list, so options given to the load test replace these
+        for (String arg : extra) {
+            int equals = arg.indexOf('=');
+            properties.put(arg.substring(2, equals < 0 ? arg.length() : equals), equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return SpringApplication.run(WebScraperApplication.class, args);
+    }
+
+    /** {@code 250ms}, {@code 30s} or {@code 2m}. */
+    private static Duration duration(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+}
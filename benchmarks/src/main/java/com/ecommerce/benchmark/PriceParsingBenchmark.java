@@ -0,0 +1,70 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.service.extractor.Prices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price text as it appears on the supported sites, parsed once per product.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceParsingBenchmark {
+
+    private static final String[] PRICES = {
+            "$1,299.99",
+            "$12.99 to $15.99",
+            "current price $24.97$24.97",
+            "₹299",
+            "$849.00",
+            "EUR 1.299,00",
+            "Free",
+            "$5.49"
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void parse(Blackhole blackhole) {
+        for (String price : PRICES) {
+            blackhole.consume(Prices.parse(price));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void parseHundredths(Blackhole blackhole) {
+        for (String price : PRICES) {
+            blackhole.consume(Prices.parseHundredths(price));
+        }
+    }
+
+    /** The regex + BigDecimal cleanup every extractor used before Prices existed, kept as a baseline. */
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void legacyRegex(Blackhole blackhole) {
+        for (String price : PRICES) {
+            String priceText = price.replaceAll("[^0-9.]", "");
+            try {
+                blackhole.consume(priceText.isEmpty() ? null : new BigDecimal(priceText));
+            } catch (NumberFormatException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+}
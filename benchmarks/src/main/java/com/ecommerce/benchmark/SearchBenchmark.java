@@ -0,0 +1,103 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product search over an index filled with synthetic products from four sites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SearchBenchmark {
+
+    private static final String[] WEBSITES = {"Amazon", "eBay", "Walmart", "Meesho"};
+    private static final String[] BRANDS = {"Lenovo", "Dell", "HP", "Asus", "Acer", "Apple", "Samsung", "MSI"};
+    private static final String[] KINDS = {"Laptop", "Gaming Laptop", "Monitor", "Keyboard", "Mouse", "Headset", "Tablet", "Phone"};
+    private static final String[] TRAITS = {"15.6 inch", "16GB RAM", "512GB SSD", "RGB", "Wireless", "Refurbished", "4K", "Bluetooth"};
+
+    @Param({"500000"})
+    public int products;
+
+    private AnnotationConfigApplicationContext context;
+    private ProductIndex index;
+    private final PageRequest firstPage = PageRequest.of(0, 50);
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.register(ScraperProperties.class, ProductIndex.class);
+        context.refresh();
+        index = context.getBean(ProductIndex.class);
+
+        Random random = new Random(42);
+        List<Product> page = new ArrayList<>(60);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setWebsite(WEBSITES[random.nextInt(WEBSITES.length)]);
+            product.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + KINDS[random.nextInt(KINDS.length)]
+                    + " " + TRAITS[random.nextInt(TRAITS.length)] + " model " + i);
+            product.setDescription(TRAITS[random.nextInt(TRAITS.length)]);
+            product.setPrice(BigDecimal.valueOf(500 + random.nextInt(250_000), 2));
+            product.setProductUrl("https://shop.example.com/p/" + i);
+            page.add(product);
+            // Fed page by page, as scrapes deliver them
+            if (page.size() == 60) {
+                index.addAll(page);
+                page = new ArrayList<>(60);
+            }
+        }
+        index.addAll(page);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> keyword() {
+        return index.search("gaming laptop", null, null, null, ProductIndex.SortBy.NEWEST, firstPage);
+    }
+
+    @Benchmark
+    public Page<Product> keywordPriceRangeByPrice() {
+        return index.search("laptop", BigDecimal.valueOf(300), BigDecimal.valueOf(900), "ebay",
+                ProductIndex.SortBy.PRICE_ASC, firstPage);
+    }
+
+    @Benchmark
+    public Page<Product> prefixByName() {
+        return index.search("len", null, null, null, ProductIndex.SortBy.NAME, firstPage);
+    }
+
+    @Benchmark
+    public Page<Product> everythingByPriceDesc() {
+        return index.search(null, null, null, null, ProductIndex.SortBy.PRICE_DESC, firstPage);
+    }
+}
@@ -239,28 +239,11 @@ function App() {
     }
   };
 
-  const handleExportCSV = () => {
-    if (products.length === 0) return;
-
-    const csvContent = [
-      ['Name', 'Price', 'Description', 'Website'],
-      ...products.map(product => [
-        product.name || '',
-        formatPrice(product.price).replace('$', '') || '',
-        product.description || '',
-        product.website || ''
-      ])
-    ].map(row => row.map(cell => `"${cell}"`).join(',')).join('\n');
-
-    const blob = new Blob([csvContent], { type: 'text/csv;charset=utf-8;' });
-    const link = document.createElement('a');
-    const url = URL.createObjectURL(blob);
-    link.setAttribute('href', url);
-    link.setAttribute('download', 'scraped_products.csv');
-    document.body.appendChild(link);
-    link.click();
-    document.body.removeChild(link);
-    toast.success('CSV file downloaded successfully!');
+  // The backend writes the CSV (quoting and escaping included) from every indexed product of the site
+  const exportUrl = () => {
+    const website = products.length > 0 ? products[0].website : null;
+    const query = website ? `&website=${encodeURIComponent(website)}` : '';
+    return `http://localhost:8082/api/products/export?format=csv${query}`;
   };
 
   // Pagination
@@ -390,7 +373,8 @@ function App() {
                       </span>
                       <Button 
                         variant="success" 
-                        onClick={handleExportCSV}
+                        href={exportUrl()}
+                        download
                         className="export-button"
                         size="sm"
                       >
@@ -15,7 +15,6 @@ import {
 } from '@coreui/react'
 import CIcon from '@coreui/icons-react'
 import { cilCloudDownload, cilMagnifyingGlass } from '@coreui/icons'
-import axios from 'axios'
 import {
   Chart as ChartJS,
   CategoryScale,
@@ -39,6 +38,7 @@ ChartJS.register(
 const ScraperDashboard = () => {
   const [url, setUrl] = useState('')
   const [products, setProducts] = useState([])
+  const [priceStats, setPriceStats] = useState(null)
   const [loading, setLoading] = useState(false)
   const [error, setError] = useState(null)
   const [page, setPage] = useState(1)
@@ -49,108 +49,86 @@ const ScraperDashboard = () => {
     return `$${parseFloat(price).toFixed(2)}`
   }
 
-  // Calculate price ranges for the chart
+  // Price ranges for the chart, bucketed by the backend
   const priceData = useMemo(() => {
-    if (!products.length) return null
-    
-    const ranges = {
-      '0-100': 0,
-      '101-300': 0,
-      '301-500': 0,
-      '501-1000': 0,
-      '1001+': 0
-    }
+    if (!priceStats || !priceStats.count) return null
 
-    products.forEach(product => {
-      const price = parseFloat(product.price || 0)
-      if (price <= 100) ranges['0-100']++
-      else if (price <= 300) ranges['101-300']++
-      else if (price <= 500) ranges['301-500']++
-      else if (price <= 1000) ranges['501-1000']++
-      else ranges['1001+']++
-    })
+    const label = ({ from, to }) => {
+      if (from === null) return `0-${Number(to)}`
+      if (to === null) return `${Number(from)}+`
+      return `${Number(from)}-${Number(to)}`
+    }
 
     return {
-      labels: Object.keys(ranges),
+      labels: priceStats.histogram.map(label),
       datasets: [
         {
           label: 'Number of Products',
-          data: Object.values(ranges),
+          data: priceStats.histogram.map((bucket) => bucket.count),
           backgroundColor: 'rgba(51, 153, 255, 0.5)',
           borderColor: 'rgba(51, 153, 255, 1)',
           borderWidth: 1,
         },
       ],
     }
-  }, [products])
+  }, [priceStats])
 
-  // Calculate statistics
+  // Statistics are computed by the backend as each page is extracted
   const stats = useMemo(() => {
-    if (!products.length) return null
-    
-    const prices = products.map(p => parseFloat(p.price || 0)).filter(p => !isNaN(p))
-    const avg = prices.reduce((a, b) => a + b, 0) / prices.length
-    const min = Math.min(...prices)
-    const max = Math.max(...prices)
-    
+    if (!priceStats || !products.length) return null
+
     return {
       total: products.length,
-      avgPrice: formatPrice(avg),
-      minPrice: formatPrice(min),
-      maxPrice: formatPrice(max)
+      avgPrice: formatPrice(priceStats.mean),
+      minPrice: formatPrice(priceStats.min),
+      maxPrice: formatPrice(priceStats.max)
     }
-  }, [products])
+  }, [priceStats, products.length])
+
+  const handleScrape = () => {
+    setLoading(true)
+    setError(null)
+    setProducts([])
+    setPriceStats(null)
+    setPage(1) // Reset to first page when new data arrives
+
+    // Products arrive page by page as the backend extracts them
+    const source = new EventSource(
+      `http://localhost:8082/api/scraper/scrape/stream?url=${encodeURIComponent(url)}`
+    )
+
+    source.addEventListener('page', (event) => {
+      const { products: pageProducts, stats: pageStats } = JSON.parse(event.data)
+      setProducts((current) => current.concat(pageProducts))
+      setPriceStats(pageStats)
+    })
 
-  const handleScrape = async () => {
-    try {
-      setLoading(true)
-      setError(null)
-      const response = await axios.post('http://localhost:8082/api/scraper/scrape', url, {
-        headers: {
-          'Content-Type': 'text/plain'
-        }
-      })
-      
-      if (Array.isArray(response.data)) {
-        setProducts(response.data)
-        setPage(1) // Reset to first page when new data arrives
-        if (response.data.length === 0) {
-          setError('No products found on the specified website. Try a different URL or search term.')
-        }
-      } else {
-        setProducts([])
-        setError('Invalid response from server. Please try again.')
+    source.addEventListener('complete', (event) => {
+      const { productCount, stats: finalStats } = JSON.parse(event.data)
+      setPriceStats(finalStats)
+      if (productCount === 0) {
+        setError('No products found on the specified website. Try a different URL or search term.')
       }
-    } catch (err) {
-      setProducts([])
-      setError(err.response?.data || 'Failed to scrape the website. Please check the URL and try again.')
-      console.error(err)
-    } finally {
+      source.close()
       setLoading(false)
-    }
-  }
-
-  const handleExportCSV = () => {
-    if (products.length === 0) return
+    })
 
-    const csvContent = [
-      ['Name', 'Price', 'Description', 'Website'],
-      ...products.map(product => [
-        product.name || '',
-        formatPrice(product.price).replace('$', '') || '',
-        product.description || '',
-        product.website || ''
-      ])
-    ].map(row => row.map(cell => `"${cell}"`).join(',')).join('\n')
+    source.addEventListener('error', (event) => {
+      // Named error events carry the backend's message; connection errors have no data
+      const message = event.data
+        ? JSON.parse(event.data).message
+        : 'Failed to scrape the website. Please check the URL and try again.'
+      setError(message)
+      source.close()
+      setLoading(false)
+    })
+  }
 
-    const blob = new Blob([csvContent], { type: 'text/csv;charset=utf-8;' })
-    const link = document.createElement('a')
-    const url = URL.createObjectURL(blob)
-    link.setAttribute('href', url)
-    link.setAttribute('download', 'scraped_products.csv')
-    document.body.appendChild(link)
-    link.click()
-    document.body.removeChild(link)
+  // The backend writes the CSV (quoting and escaping included) from every indexed product of the site
+  const exportUrl = () => {
+    const website = products.length > 0 ? products[0].website : null
+    const query = website ? `&website=${encodeURIComponent(website)}` : ''
+    return `http://localhost:8082/api/products/export?format=csv${query}`
   }
 
   // Pagination
@@ -196,7 +174,7 @@ const ScraperDashboard = () => {
                 Scrape
               </CButton>
               {products.length > 0 && (
-                <CButton color="secondary" onClick={handleExportCSV}>
+                <CButton color="secondary" href={exportUrl()} download>
                   <CIcon icon={cilCloudDownload} className="me-2" />
                   Export CSV
                 </CButton>
@@ -0,0 +1,35 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class FetchClientConfig {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService httpClientExecutor() {
+        return Executors.newCachedThreadPool(ScraperExecutorConfig.namedThreads("http-client"));
+    }
+
+    /**
+     * One client for every scrape, so connections stay open across the pages of a walk.
+     * HTTP/2 is negotiated via ALPN and falls back to pooled keep-alive HTTP/1.1.
+     */
+    @Bean
+    public HttpClient fetchHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(properties.getFetch().getConnectTimeout())
+                .executor(httpClientExecutor())
+                .build();
+    }
+}
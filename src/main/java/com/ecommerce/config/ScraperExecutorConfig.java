@@ -0,0 +1,120 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableScheduling
+public class ScraperExecutorConfig {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService fetchExecutor() {
+        ScraperProperties.Fetch fetch = properties.getFetch();
+        return new ThreadPoolExecutor(
+                fetch.getThreads(), fetch.getThreads(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fetch.getQueueCapacity()),
+                namedThreads("page-fetch"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Parses and extracts fetched pages, apart from the fetch threads so network waits and
+     * CPU work overlap. Sized to the cores: more threads would only contend for them.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool extractionPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ForkJoinPool(properties.getExtraction().effectiveThreads(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("page-extract-" + counter.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService scrapeJobExecutor() {
+        ScraperProperties.Jobs jobs = properties.getJobs();
+        return new ThreadPoolExecutor(
+                jobs.getWorkers(), jobs.getWorkers(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()),
+                namedThreads("scrape-job"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchScrapeExecutor() {
+        ScraperProperties.Batch batch = properties.getBatch();
+        return new ThreadPoolExecutor(
+                batch.getConcurrency(), batch.getConcurrency(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batch.getQueueCapacity()),
+                namedThreads("batch-scrape"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService crawlExecutor() {
+        ScraperProperties.Crawl crawl = properties.getCrawl();
+        // Never queues: the crawl scheduler only submits when a worker is free
+        return new ThreadPoolExecutor(
+                crawl.getWorkers(), crawl.getWorkers(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(crawl.getWorkers()),
+                namedThreads("crawl"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService clusterExecutor() {
+        ScraperProperties.Cluster cluster = properties.getCluster();
+        // Never queues: the cluster worker only leases as many tasks as it has free workers
+        return new ThreadPoolExecutor(
+                cluster.getWorkers(), cluster.getWorkers(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cluster.getWorkers()),
+                namedThreads("cluster"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Closes response bodies still downloading when their fetch deadline passes. */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService fetchDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, namedThreads("fetch-deadline"));
+        // Nearly every fetch beats its deadline; don't keep the cancelled ones queued until they expire
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService politenessScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(namedThreads("politeness"));
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
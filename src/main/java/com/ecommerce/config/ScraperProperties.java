@@ -0,0 +1,220 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.crawl.CrawlDefinition;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "scraper")
+public class ScraperProperties {
+
+    private Fetch fetch = new Fetch();
+    private Jobs jobs = new Jobs();
+    private Batch batch = new Batch();
+    private Persistence persistence = new Persistence();
+    private Cache cache = new Cache();
+    private Index index = new Index();
+    private Stats stats = new Stats();
+    private Crawl crawl = new Crawl();
+    private Export export = new Export();
+    private Selectors selectors = new Selectors();
+    private Extraction extraction = new Extraction();
+    private Cluster cluster = new Cluster();
+
+    @Data
+    public static class Fetch {
+        // Upper bound on concurrent page fetches across all scrapes
+        private int threads = 16;
+        private int queueCapacity = 256;
+        private int maxPages = 20;
+        // Pages of a listing requested ahead of the one being delivered; each holds a rate limit slot
+        private int pagesAhead = 4;
+        private int maxProducts = 1000;
+        private Politeness politeness = new Politeness();
+        // Per-host overrides, e.g. scraper.fetch.hosts[amazon.com].requests-per-second=0.5
+        private Map<String, Politeness> hosts = new HashMap<>();
+        private Adaptive adaptive = new Adaptive();
+        private Breaker breaker = new Breaker();
+
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        // Deadline for headers and body together, overridable per host, e.g. scraper.fetch.timeouts[amazon.com]=20s
+        private Duration timeout = Duration.ofSeconds(30);
+        private Map<String, Duration> timeouts = new HashMap<>();
+        // Sends a host's requests elsewhere, e.g. scraper.fetch.base-urls[amazon.com]=http://127.0.0.1:9090/amazon
+        // for offline runs against a stub server; product URLs and rate limits still use the real host
+        private Map<String, String> baseUrls = new HashMap<>();
+
+        public Politeness politenessFor(String host) {
+            return hosts.getOrDefault(host, politeness);
+        }
+
+        public Duration timeoutFor(String host) {
+            return timeouts.getOrDefault(host, timeout);
+        }
+    }
+
+    @Data
+    public static class Jobs {
+        private int workers = 4;
+        private int queueCapacity = 64;
+        // How long a finished job's results stay available for polling
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Batch {
+        private int maxUrls = 200;
+        // Scrapes running at once across all batches
+        private int concurrency = 16;
+        // Scrapes of one host running at once within a batch
+        private int perHost = 4;
+        private int queueCapacity = 256;
+    }
+
+    @Data
+    public static class Persistence {
+        private boolean enabled = false;
+        // Keep in step with spring.jpa.properties.hibernate.jdbc.batch_size
+        private int batchSize = 500;
+        // Measured in pages, not products
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // Pages younger than this are served without any network I/O
+        private Duration ttl = Duration.ofMinutes(10);
+        // Bound on compressed bytes held
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Index {
+        private boolean enabled = true;
+        // Oldest products are dropped beyond this
+        private int maxProducts = 500_000;
+        // Keep name, description and URL text in direct buffers; bounded by -XX:MaxDirectMemorySize
+        private boolean offHeap = false;
+    }
+
+    @Data
+    public static class Stats {
+        // Inclusive upper bounds of the price histogram buckets; one more bucket takes the rest
+        private List<BigDecimal> buckets = new ArrayList<>(Arrays.asList(
+                BigDecimal.valueOf(100), BigDecimal.valueOf(300), BigDecimal.valueOf(500), BigDecimal.valueOf(1000)));
+        private List<Double> quantiles = new ArrayList<>(Arrays.asList(0.5, 0.9, 0.99));
+        // Quantile estimates are within this fraction of a true value
+        private double relativeAccuracy = 0.01;
+    }
+
+    @Data
+    public static class Crawl {
+        private boolean enabled = true;
+        // Pages crawled at once across all definitions
+        private int workers = 4;
+        // Pages of one host crawled at once
+        private int perHost = 1;
+        // Progress is written here after every page so a restart resumes mid-crawl
+        private String checkpoint = "data/crawl-checkpoint.json";
+        // Attempts at one page before the run gives up and keeps what it has
+        private int maxAttempts = 3;
+        // Wait before the first retry, doubled for each further one
+        private Duration retryBackoff = Duration.ofSeconds(30);
+        private List<CrawlDefinition> definitions = new ArrayList<>();
+    }
+
+    /** Distributed mode: scrape tasks shared by every node through the database. */
+    @Data
+    public static class Cluster {
+        private boolean enabled = false;
+        // Names this node's leases; host name and process id when unset
+        private String nodeId;
+        // Task pages this node scrapes at once
+        private int workers = 4;
+        // A lease not renewed within this is taken over by another node
+        private Duration leaseDuration = Duration.ofSeconds(60);
+        // Leases taken on one page before its task fails
+        private int maxAttempts = 3;
+        // Wait before the first retry, doubled for each further one
+        private Duration retryBackoff = Duration.ofSeconds(30);
+        // Space requests to each host across all nodes rather than per node
+        private boolean sharedRateLimits = true;
+    }
+
+    @Data
+    public static class Export {
+        // Bytes buffered between the writer and the response; an export's memory is bounded by this
+        private int bufferSize = 64 * 1024;
+        // Products read from the index, database or job per step
+        private int chunkSize = 1000;
+        private Parquet parquet = new Parquet();
+    }
+
+    @Data
+    public static class Parquet {
+        // Uncompressed column bytes held before a row group is written out
+        private int rowGroupBytes = 8 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Selectors {
+        // Use a file: location to edit selectors on a running instance
+        private String location = "classpath:site-rules.yml";
+    }
+
+    @Data
+    public static class Extraction {
+        // Pull product cards out of the markup while parsing instead of building the whole document
+        private boolean streaming = true;
+        // Extraction pool size; 0 for one thread per core
+        private int threads = 0;
+        // Fetched pages waiting for or in extraction; fetch threads block while it is full
+        private int queueCapacity = 64;
+        // Cards per parallel task on large pages; 0 extracts every card on the thread parsing the page
+        private int chunkSize = 32;
+
+        public int effectiveThreads() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    @Data
+    public static class Politeness {
+        // Starting rate and the ceiling adaptive control climbs back to
+        private double requestsPerSecond = 2.0;
+        private int burst = 20;
+    }
+
+    /** AIMD control of each host's request rate. */
+    @Data
+    public static class Adaptive {
+        // Added to the rate after every page that was not blocked
+        private double increasePerSuccess = 0.05;
+        // Rate multiplier on a 403/429/503 or CAPTCHA
+        private double decreaseFactor = 0.5;
+        private double minRequestsPerSecond = 0.05;
+    }
+
+    /** Per-host circuit breaker that fails fast while a host keeps blocking us. */
+    @Data
+    public static class Breaker {
+        // Consecutive blocked responses that open the circuit
+        private int failureThreshold = 3;
+        // First open period, doubled each time a half-open probe is blocked again
+        private Duration openDuration = Duration.ofMinutes(1);
+        private Duration maxOpenDuration = Duration.ofMinutes(30);
+        // A probe that has not reported back by then no longer holds the half-open slot
+        private Duration probeTimeout = Duration.ofMinutes(1);
+    }
+}
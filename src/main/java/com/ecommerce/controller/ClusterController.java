@@ -0,0 +1,58 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.ErrorResponse;
+import com.ecommerce.service.cluster.ClusterWorker;
+import com.ecommerce.service.cluster.ScrapeTaskQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Date;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+@CrossOrigin(origins = "http://localhost:3001")
+public class ClusterController {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ScrapeTaskQueue scrapeTaskQueue;
+
+    @Autowired
+    private ClusterWorker clusterWorker;
+
+    /**
+     * Queues a listing for the cluster; any node may scrape any of its pages. Products go to
+     * the shared database, so nodes should run with {@code scraper.persistence.enabled=true}.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestBody String url) throws UnsupportedEncodingException {
+        if (!properties.getCluster().isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(new Date(), "Cluster mode is off (scraper.cluster.enabled)", "uri=/api/cluster/jobs"));
+        }
+        url = ScraperController.normalizeUrl(url);
+        if (url.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(new Date(), "Empty URL provided", "uri=/api/cluster/jobs"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("jobId", scrapeTaskQueue.submit(url)));
+    }
+
+    /** The job's pages so far, readable from any node. */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return ResponseEntity.of(scrapeTaskQueue.job(id));
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return clusterWorker.getStatus();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.exception.ErrorResponse;
+import com.ecommerce.service.crawl.CrawlDefinition;
+import com.ecommerce.service.crawl.CrawlScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Date;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/crawler")
+@CrossOrigin(origins = "http://localhost:3001")
+public class CrawlerController {
+
+    @Autowired
+    private CrawlScheduler crawlScheduler;
+
+    @GetMapping("/definitions")
+    public Map<String, Map<String, Object>> getDefinitions() {
+        return crawlScheduler.getStatus();
+    }
+
+    /**
+     * Adds a recurring crawl; it runs for the first time on the next scheduler tick.
+     */
+    @PostMapping("/definitions")
+    public ResponseEntity<?> addDefinition(@RequestBody CrawlDefinition definition) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(crawlScheduler.add(definition));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(new Date(), e.getMessage(), "uri=/api/crawler/definitions"));
+        }
+    }
+
+    @DeleteMapping("/definitions/{name}")
+    public ResponseEntity<Void> removeDefinition(@PathVariable String name) {
+        return crawlScheduler.remove(name) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/definitions/{name}/run")
+    public ResponseEntity<Void> runDefinition(@PathVariable String name) {
+        return crawlScheduler.runNow(name) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.exception.ErrorResponse;
+import com.ecommerce.model.PriceHistory;
+import com.ecommerce.service.PriceMonitorService;
+import com.ecommerce.service.PriceStats;
+import com.ecommerce.service.PriceStatsService;
+import com.ecommerce.service.ProductBrowseService;
+import com.ecommerce.service.ProductIndex;
+import com.ecommerce.service.export.ExportFormat;
+import com.ecommerce.service.export.ProductExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "http://localhost:3001")
+public class ProductController {
+
+    @Autowired
+    private ProductIndex productIndex;
+
+    @Autowired
+    private PriceStatsService priceStatsService;
+
+    @Autowired
+    private PriceMonitorService priceMonitorService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductBrowseService productBrowseService;
+
+    /**
+     * One page of persisted products by keyset pagination: pass the previous page's
+     * {@code next} as {@code after} to continue. Every page costs the same however deep it is.
+     *
+     * @param sort {@code oldest} (default), {@code newest}, {@code price_asc} or {@code price_desc}
+     * @param since only products scraped at or after this ISO-8601 instant
+     */
+    @GetMapping
+    public ResponseEntity<?> browse(@RequestParam(required = false) String website,
+                                    @RequestParam(required = false) String brand,
+                                    @RequestParam(required = false) String category,
+                                    @RequestParam(required = false) BigDecimal minPrice,
+                                    @RequestParam(required = false) BigDecimal maxPrice,
+                                    @RequestParam(required = false) Instant since,
+                                    @RequestParam(defaultValue = "oldest") String sort,
+                                    @RequestParam(required = false) String after,
+                                    @RequestParam(defaultValue = "50") int size) {
+        ProductBrowseService.Order order;
+        try {
+            order = ProductBrowseService.Order.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(new Date(),
+                    "Unknown sort '" + sort + "', expected oldest, newest, price_asc or price_desc", "uri=/api/products"));
+        }
+
+        ProductBrowseService.Filter filter = new ProductBrowseService.Filter()
+                .website(website)
+                .brand(brand)
+                .category(category)
+                .price(minPrice, maxPrice)
+                .scrapedSince(since);
+        return ResponseEntity.ok(productBrowseService.browse(filter, order, after, Math.min(Math.max(size, 1), 500)));
+    }
+
+    /**
+     * Searches every product scraped since startup and returns one page of matches.
+     *
+     * @param sort {@code newest} (default), {@code price_asc}, {@code price_desc} or {@code name}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+                                    @RequestParam(required = false) BigDecimal minPrice,
+                                    @RequestParam(required = false) BigDecimal maxPrice,
+                                    @RequestParam(required = false) String website,
+                                    @RequestParam(defaultValue = "newest") String sort,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "50") int size) {
+        ProductIndex.SortBy sortBy;
+        try {
+            sortBy = ProductIndex.SortBy.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(new Date(),
+                    "Unknown sort '" + sort + "', expected newest, price_asc, price_desc or name", "uri=/api/products/search"));
+        }
+
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500));
+        return ResponseEntity.ok(productIndex.search(q, minPrice, maxPrice, website, sortBy, pageable));
+    }
+
+    /**
+     * Size of the search index and an estimate of the memory its columns take.
+     */
+    @GetMapping("/index/stats")
+    public Map<String, Long> indexStats() {
+        return productIndex.getStats();
+    }
+
+    /**
+     * Price statistics of every product scraped since startup, keyed by website.
+     */
+    @GetMapping("/stats")
+    public Map<String, PriceStats.Snapshot> stats() {
+        return priceStatsService.allWebsites();
+    }
+
+    @GetMapping("/stats/{website}")
+    public ResponseEntity<PriceStats.Snapshot> websiteStats(@PathVariable String website) {
+        return ResponseEntity.of(priceStatsService.forWebsite(website));
+    }
+
+    /**
+     * Every change monitoring runs recorded for one product, oldest first.
+     *
+     * @param key the product's {@code productKey}
+     */
+    @GetMapping("/history")
+    public List<PriceHistory> history(@RequestParam String key) {
+        return priceMonitorService.history(key);
+    }
+
+    /**
+     * Streams every product as a file download, written while it is read so any number of
+     * products can be exported. An unknown format or source is rejected with 400.
+     *
+     * @param format {@code csv} (default), {@code csv.gz} or {@code parquet}
+     * @param source {@code index} (default) for the search index, {@code db} for persisted products
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "index") String source,
+                                                        @RequestParam(required = false) String website) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        StreamingResponseBody body;
+        switch (source.trim().toLowerCase(Locale.ROOT)) {
+            case "index":
+                body = out -> productExportService.exportIndex(website, exportFormat, out);
+                break;
+            case "db":
+                body = out -> productExportService.exportDatabase(website, exportFormat, out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown export source '" + source + "', expected index or db");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+}
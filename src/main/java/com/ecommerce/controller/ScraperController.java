@@ -1,17 +1,47 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.ErrorResponse;
 import com.ecommerce.model.Product;
+import com.ecommerce.service.BatchResult;
+import com.ecommerce.service.BatchScrapeService;
+import com.ecommerce.service.HostRateLimiter;
+import com.ecommerce.service.PageCache;
+import com.ecommerce.service.PriceStats;
+import com.ecommerce.service.PriceMonitorService;
+import com.ecommerce.service.PriceStatsService;
+import com.ecommerce.service.ScrapeJob;
+import com.ecommerce.service.ScrapeJobService;
 import com.ecommerce.service.WebScraperService;
+import com.ecommerce.service.export.ExportFormat;
+import com.ecommerce.service.export.ProductExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/scraper")
@@ -20,15 +50,40 @@ public class ScraperController {
 
     private static final Logger logger = LoggerFactory.getLogger(ScraperController.class);
 
+    private static final long STREAM_TIMEOUT_MS = 10 * 60 * 1000L;
+    private static final long BATCH_TIMEOUT_MS = 30 * 60 * 1000L;
+
     @Autowired
     private WebScraperService webScraperService;
 
+    @Autowired
+    private ScrapeJobService scrapeJobService;
+
+    @Autowired
+    private BatchScrapeService batchScrapeService;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private PriceStatsService priceStatsService;
+
+    @Autowired
+    private PriceMonitorService priceMonitorService;
+
+    @Autowired
+    private HostRateLimiter rateLimiter;
+
+    @Autowired
+    private ProductExportService productExportService;
+
     @PostMapping("/scrape")
     public ResponseEntity<?> scrapeWebsite(@RequestBody String url) {
         try {
-            // Remove quotes and decode URL
-            url = url.replace("\"", "").trim();
-            url = URLDecoder.decode(url, StandardCharsets.UTF_8.toString());
+            url = normalizeUrl(url);
             
             logger.info("Received scraping request for URL: {}", url);
             
@@ -37,11 +92,6 @@ public class ScraperController {
                 return ResponseEntity.ok(Collections.emptyList());
             }
             
-            // Only add https:// if the URL doesn't already have a protocol
-            if (!url.startsWith("http://") && !url.startsWith("https://")) {
-                url = "https://" + url;
-            }
-            
             List<Product> products = webScraperService.scrapeWebsite(url);
             
             if (products.isEmpty()) {
@@ -60,4 +110,263 @@ public class ScraperController {
             return ResponseEntity.ok(Collections.emptyList());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Server-Sent Events variant of {@link #scrapeWebsite}: emits a {@code page} event with each
+     * page's products and the running price statistics as soon as it is extracted, then
+     * {@code complete} or {@code error}.
+     */
+    @GetMapping(path = "/scrape/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamScrape(@RequestParam String url) throws UnsupportedEncodingException {
+        String target = normalizeUrl(url);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        if (target.isEmpty()) {
+            finishStream(emitter, "Empty URL provided");
+            return emitter;
+        }
+
+        logger.info("Received streaming scrape request for URL: {}", target);
+        PriceStats stats = priceStatsService.newStats();
+        try {
+            scrapeJobService.scrapeAsync(target, (page, products) -> {
+                stats.addAll(products);
+                try {
+                    emitter.send(SseEmitter.event().name("page").data(Map.of(
+                            "page", page, "products", products, "stats", stats.snapshot())));
+                } catch (IOException e) {
+                    // Client went away - abort the scrape rather than fetch pages nobody will read
+                    throw new UncheckedIOException(e);
+                }
+            }).whenComplete((count, error) -> {
+                if (error == null) {
+                    try {
+                        emitter.send(SseEmitter.event().name("complete").data(Map.of(
+                                "productCount", count, "stats", stats.snapshot())));
+                        emitter.complete();
+                    } catch (IOException | IllegalStateException e) {
+                        emitter.completeWithError(e);
+                    }
+                } else {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    logger.error("Streaming scrape of {} failed: {}", target, cause.getMessage());
+                    finishStream(emitter, String.valueOf(cause.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Scrape queue is full, rejecting stream for URL: {}", target);
+            finishStream(emitter, "Too many scrapes in progress, try again later");
+        }
+        return emitter;
+    }
+
+    /**
+     * Scrapes a JSON array of URLs concurrently and returns one result per URL, in input order.
+     * A URL that fails carries its error; the others are unaffected.
+     */
+    @PostMapping("/batch")
+    public DeferredResult<ResponseEntity<?>> scrapeBatch(@RequestBody List<String> urls) throws UnsupportedEncodingException {
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(BATCH_TIMEOUT_MS);
+        List<String> targets = normalizeBatch(urls);
+        if (targets == null) {
+            response.setResult(invalidBatch(urls, "uri=/api/scraper/batch"));
+            return response;
+        }
+
+        BatchResult[] results = new BatchResult[targets.size()];
+        batchScrapeService.scrape(targets, result -> results[result.getIndex()] = result)
+                .whenComplete((done, error) -> {
+                    if (error == null) {
+                        response.setResult(ResponseEntity.ok(Arrays.asList(results)));
+                    } else {
+                        response.setErrorResult(error);
+                    }
+                });
+        return response;
+    }
+
+    /**
+     * Server-Sent Events variant of {@link #scrapeBatch}: a {@code result} event per URL as soon
+     * as it finishes, then {@code complete} with the completed and failed counts.
+     */
+    @PostMapping(path = "/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBatch(@RequestBody List<String> urls) throws UnsupportedEncodingException {
+        SseEmitter emitter = new SseEmitter(BATCH_TIMEOUT_MS);
+        List<String> targets = normalizeBatch(urls);
+        if (targets == null) {
+            finishStream(emitter, invalidBatchMessage(urls));
+            return emitter;
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        batchScrapeService.scrape(targets, result -> {
+            if (result.getStatus() == ScrapeJob.Status.FAILED) {
+                failed.incrementAndGet();
+            }
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result));
+            } catch (IOException e) {
+                // Client went away - stop starting further URLs
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((done, error) -> {
+            if (error == null) {
+                try {
+                    emitter.send(SseEmitter.event().name("complete").data(Map.of(
+                            "completed", targets.size() - failed.get(), "failed", failed.get())));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            } else {
+                logger.warn("Batch stream aborted: {}", error.getMessage());
+                emitter.completeWithError(error);
+            }
+        });
+        return emitter;
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestBody String url) throws UnsupportedEncodingException {
+        url = normalizeUrl(url);
+        if (url.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(new Date(), "Empty URL provided", "uri=/api/scraper/jobs"));
+        }
+
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(scrapeJobService.submit(url));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Scrape queue is full, rejecting job for URL: {}", url);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .body(new ErrorResponse(new Date(), "Too many scrapes in progress, try again later", "uri=/api/scraper/jobs"));
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ScrapeJob> getJob(@PathVariable String id) {
+        return ResponseEntity.of(scrapeJobService.find(id));
+    }
+
+    @GetMapping("/jobs/{id}/products")
+    public ResponseEntity<?> getJobProducts(@PathVariable String id,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "50") int size) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500));
+        return ResponseEntity.of(scrapeJobService.find(id).map(job -> {
+            List<Product> content = job.getProducts((int) pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(content, pageable, job.getProductCount());
+        }));
+    }
+
+    /**
+     * Streams the job's products as a file download. A running job is followed until it
+     * finishes, so the export can start as soon as the job is submitted.
+     *
+     * @param format {@code csv} (default), {@code csv.gz} or {@code parquet}
+     */
+    @GetMapping("/jobs/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportJob(@PathVariable String id,
+                                                           @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        ScrapeJob job = scrapeJobService.find(id).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> productExportService.exportJob(job, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"job-" + job.getId() + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Re-scrapes a listing and returns only what changed since its previous monitoring run:
+     * added products, price changes and the keys of removed products.
+     */
+    @PostMapping("/monitor")
+    public DeferredResult<ResponseEntity<?>> monitor(@RequestBody String url) throws UnsupportedEncodingException {
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(STREAM_TIMEOUT_MS);
+        String target = normalizeUrl(url);
+        if (target.isEmpty()) {
+            response.setResult(ResponseEntity.badRequest()
+                    .body(new ErrorResponse(new Date(), "Empty URL provided", "uri=/api/scraper/monitor")));
+            return response;
+        }
+
+        logger.info("Received monitoring request for URL: {}", target);
+        try {
+            // The walk runs on the scrape job pool rather than holding a servlet thread
+            priceMonitorService.monitorAsync(target).whenComplete((result, error) -> {
+                if (error == null) {
+                    response.setResult(ResponseEntity.ok(result));
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    response.setErrorResult(cause instanceof UncheckedIOException ? cause.getCause() : cause);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Scrape queue is full, rejecting monitoring request for URL: {}", target);
+            response.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .body(new ErrorResponse(new Date(), "Too many scrapes in progress, try again later", "uri=/api/scraper/monitor")));
+        }
+        return response;
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Long> getCacheStats() {
+        return pageCache.getStats();
+    }
+
+    @GetMapping("/hosts")
+    public Map<String, Map<String, Object>> getHostStats() {
+        return rateLimiter.getStats();
+    }
+
+    /**
+     * @return the normalized URLs, or null when the batch is empty or over {@code scraper.batch.max-urls}
+     */
+    private List<String> normalizeBatch(List<String> urls) throws UnsupportedEncodingException {
+        if (urls == null || urls.isEmpty() || urls.size() > properties.getBatch().getMaxUrls()) {
+            return null;
+        }
+        List<String> targets = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            targets.add(url == null ? "" : normalizeUrl(url));
+        }
+        return targets;
+    }
+
+    private ResponseEntity<?> invalidBatch(List<String> urls, String path) {
+        return ResponseEntity.badRequest().body(new ErrorResponse(new Date(), invalidBatchMessage(urls), path));
+    }
+
+    private String invalidBatchMessage(List<String> urls) {
+        return urls == null || urls.isEmpty()
+                ? "No URLs provided"
+                : "A batch may contain at most " + properties.getBatch().getMaxUrls() + " URLs";
+    }
+
+    private void finishStream(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("message", message)));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    static String normalizeUrl(String url) throws UnsupportedEncodingException {
+        // Remove quotes and decode URL
+        url = url.replace("\"", "").trim();
+        url = URLDecoder.decode(url, StandardCharsets.UTF_8.toString());
+
+        // Only add https:// if the URL doesn't already have a protocol
+        if (!url.isEmpty() && !url.startsWith("http://") && !url.startsWith("https://")) {
+            url = "https://" + url;
+        }
+        return url;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.exception;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * A host's circuit breaker is open after repeated blocks, so the request was refused without
+ * being sent.
+ */
+public class CircuitOpenException extends IOException {
+
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String host, Duration retryAfter) {
+        super(host + " is blocking automated access, not retrying for another " + retryAfter.toSeconds() + "s");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.exception;
+
+import org.jsoup.HttpStatusException;
+
+import java.time.Duration;
+
+/**
+ * Non-2xx response to a page fetch, with the server's Retry-After hint when it sent one.
+ */
+public class FetchStatusException extends HttpStatusException {
+
+    private final Duration retryAfter;
+    private final boolean shared;
+
+    public FetchStatusException(int statusCode, String url, Duration retryAfter) {
+        this(statusCode, url, retryAfter, false);
+    }
+
+    private FetchStatusException(int statusCode, String url, Duration retryAfter, boolean shared) {
+        super("HTTP error fetching URL", statusCode, url);
+        this.retryAfter = retryAfter;
+        this.shared = shared;
+    }
+
+    /** The same response, for a caller that waited on another caller's request for the URL. */
+    public FetchStatusException shared() {
+        return new FetchStatusException(getStatusCode(), getUrl(), retryAfter, true);
+    }
+
+    /** True when another caller sent the request and has already reported the response. */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /** 403, 429 and 503 are how sites push back on scrapers. */
+    public boolean isThrottling() {
+        int status = getStatusCode();
+        return status == 403 || status == 429 || status == 503;
+    }
+
+    /** @return the Retry-After delay, or null when the response had none */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
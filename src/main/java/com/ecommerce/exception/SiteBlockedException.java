@@ -0,0 +1,13 @@
+package com.ecommerce.exception;
+
+import java.io.IOException;
+
+/**
+ * The site served a CAPTCHA or block page instead of results.
+ */
+public class SiteBlockedException extends IOException {
+
+    public SiteBlockedException(String message) {
+        super(message);
+    }
+}
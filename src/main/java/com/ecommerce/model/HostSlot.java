@@ -0,0 +1,44 @@
+package com.ecommerce.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import javax.persistence.*;
+
+/**
+ * Cluster-wide request schedule of one host: the theoretical arrival time of the generic
+ * cell rate algorithm, i.e. when the host would next be free at its rate with no burst.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "host_slots")
+public class HostSlot implements Persistable<String> {
+
+    @Id
+    @Column(length = 255)
+    private String host;
+
+    // Microseconds since the epoch
+    private long theoreticalArrival;
+
+    public HostSlot(String host, long theoreticalArrival) {
+        this.host = host;
+        this.theoreticalArrival = theoreticalArrival;
+    }
+
+    @Override
+    public String getId() {
+        return host;
+    }
+
+    /**
+     * Always inserted, never merged: a node saving a row another node has just created must
+     * fail rather than overwrite its schedule. Later changes go through
+     * {@code HostSlotRepository.advance}.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.model;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One change seen by a monitoring run. Only deltas are stored; a product's current price is
+ * its latest row, and its name and URL live on {@link Product} under the same product key.
+ */
+@Data
+@Entity
+@Table(name = "price_history", indexes = {
+        @Index(columnList = "productKey"),
+        @Index(columnList = "monitorUrl")
+})
+public class PriceHistory {
+
+    public enum Change { ADDED, REMOVED, PRICE_CHANGED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_history_seq")
+    @SequenceGenerator(name = "price_history_seq", sequenceName = "price_history_seq", allocationSize = 500)
+    private Long id;
+
+    @Column(length = 96, nullable = false)
+    private String productKey;
+
+    // The listing URL whose monitoring run saw the change
+    @Column(length = 2048, nullable = false)
+    private String monitorUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", length = 16, nullable = false)
+    private Change change;
+
+    // Null for removals and for products listed without a price
+    private BigDecimal price;
+
+    private Instant observedAt;
+}
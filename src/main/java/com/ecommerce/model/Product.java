@@ -3,15 +3,32 @@ package com.ecommerce.model;
 import lombok.Data;
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Data
 @Entity
-@Table(name = "products")
+// Each filter column is indexed together with the id, so a filtered keyset page is one range scan
+@Table(name = "products", indexes = {
+        @Index(name = "uk_products_product_key", columnList = "productKey", unique = true),
+        @Index(name = "idx_products_website", columnList = "website, id"),
+        @Index(name = "idx_products_brand", columnList = "brand, id"),
+        @Index(name = "idx_products_category", columnList = "category, id"),
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        // A site's products by price, the dashboard's price sort
+        @Index(name = "idx_products_website_price", columnList = "website, price, id"),
+        @Index(name = "idx_products_scraped_at", columnList = "scrapedAt, id")
+})
 public class Product {
+    // Sequence ids (pooled optimizer) keep JDBC insert batching on; IDENTITY would disable it
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 500)
     private Long id;
 
+    // Stable across scrapes, see ProductKeys; a product scraped again updates its row
+    @Column(length = 96)
+    private String productKey;
+
     private String name;
     private String description;
     private BigDecimal price;
@@ -22,4 +39,14 @@ public class Product {
     private String brand;
     private Double rating;
     private Integer reviewCount;
-} 
\ No newline at end of file
+
+    // When the page was delivered; set on persist for products that never went through a scrape
+    private Instant scrapedAt;
+
+    @PrePersist
+    void onPersist() {
+        if (scrapedAt == null) {
+            scrapedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.model;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One result page of a cluster job, waiting in or leased from the shared task queue. A node
+ * owns a task while its lease lasts and renews the lease while it works; a task whose lease
+ * ran out is free for any node to take over.
+ */
+@Data
+@Entity
+@Table(name = "scrape_tasks", indexes = {
+        @Index(columnList = "status"),
+        @Index(columnList = "jobId")
+})
+public class ScrapeTask {
+
+    public enum Status { QUEUED, LEASED, DONE, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scrape_task_seq")
+    @SequenceGenerator(name = "scrape_task_seq", sequenceName = "scrape_task_seq", allocationSize = 50)
+    private Long id;
+
+    // Shared by every page of one listing
+    @Column(length = 36, nullable = false)
+    private String jobId;
+
+    // The listing's first page, from which later page URLs are built
+    @Column(length = 2048, nullable = false)
+    private String url;
+
+    private int page;
+
+    @Column(length = 2048, nullable = false)
+    private String pageUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    // Node holding the lease, and until when
+    @Column(length = 128)
+    private String owner;
+
+    private Instant leaseUntil;
+
+    // Not leased before this; set for retries
+    private Instant notBefore;
+
+    // Leases taken so far, including the current one
+    private int attempts;
+
+    private int productCount;
+
+    @Column(length = 1024)
+    private String error;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.HostSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HostSlotRepository extends JpaRepository<HostSlot, String> {
+
+    // Compare-and-set: 0 rows when another node moved the schedule since it was read
+    @Modifying
+    @Query("update HostSlot s set s.theoreticalArrival = :next where s.host = :host and s.theoreticalArrival = :expected")
+    int advance(@Param("host") String host, @Param("expected") long expected, @Param("next") long next);
+}
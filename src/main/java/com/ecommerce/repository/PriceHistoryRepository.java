@@ -0,0 +1,13 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.PriceHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
+    List<PriceHistory> findByMonitorUrlOrderByIdAsc(String monitorUrl);
+    List<PriceHistory> findByProductKeyOrderByIdAsc(String productKey);
+}
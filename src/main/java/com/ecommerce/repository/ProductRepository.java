@@ -2,13 +2,23 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByWebsite(String website);
-    List<Product> findByCategory(String category);
-    List<Product> findByBrand(String brand);
-} 
\ No newline at end of file
+    // Rows are read as the stream is consumed rather than loaded into a list; call inside a
+    // read-only transaction, close the stream, and detach rows once used. The website filter is
+    // an exact match so it runs on the (website, id) index; paged reads go through ProductBrowseService
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Product> streamAllByOrderByIdAsc();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Product> streamByWebsiteOrderByIdAsc(String website);
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ScrapeTask;
+import com.ecommerce.model.ScrapeTask.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared task queue. Every state change is a conditional update, so nodes racing for the same
+ * task need no locks: the one whose update matched a row owns it. Updates that finish a task
+ * also match on the owner and the lease, so a node that lost its lease cannot overwrite the
+ * node that took the task over.
+ */
+@Repository
+public interface ScrapeTaskRepository extends JpaRepository<ScrapeTask, Long> {
+
+    List<ScrapeTask> findByJobIdOrderByPageAsc(String jobId);
+
+    long countByStatus(Status status);
+
+    // Due queued tasks and expired leases with attempts left, oldest first
+    @Query("select t from ScrapeTask t where (t.status = :queued and t.notBefore <= :now)"
+            + " or (t.status = :leased and t.leaseUntil < :now and t.attempts < :maxAttempts) order by t.id")
+    List<ScrapeTask> findClaimable(@Param("queued") Status queued, @Param("leased") Status leased,
+                                   @Param("now") Instant now, @Param("maxAttempts") int maxAttempts, Pageable limit);
+
+    @Modifying
+    @Query("update ScrapeTask t set t.status = :leased, t.owner = :owner, t.leaseUntil = :until,"
+            + " t.attempts = t.attempts + 1, t.updatedAt = :now where t.id = :id"
+            + " and ((t.status = :queued and t.notBefore <= :now)"
+            + " or (t.status = :leased and t.leaseUntil < :now and t.attempts < :maxAttempts))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("until") Instant until,
+              @Param("now") Instant now, @Param("maxAttempts") int maxAttempts,
+              @Param("queued") Status queued, @Param("leased") Status leased);
+
+    @Modifying
+    @Query("update ScrapeTask t set t.leaseUntil = :until where t.id in :ids and t.owner = :owner and t.status = :leased")
+    int renew(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+              @Param("until") Instant until, @Param("leased") Status leased);
+
+    @Modifying
+    @Query("update ScrapeTask t set t.status = :status, t.productCount = :productCount, t.error = :error,"
+            + " t.updatedAt = :now where t.id = :id and t.owner = :owner and t.status = :leased")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") Status status,
+               @Param("productCount") int productCount, @Param("error") String error,
+               @Param("now") Instant now, @Param("leased") Status leased);
+
+    @Modifying
+    @Query("update ScrapeTask t set t.status = :queued, t.owner = null, t.leaseUntil = null, t.notBefore = :notBefore,"
+            + " t.error = :error, t.updatedAt = :now where t.id = :id and t.owner = :owner and t.status = :leased")
+    int requeue(@Param("id") Long id, @Param("owner") String owner, @Param("notBefore") Instant notBefore,
+                @Param("error") String error, @Param("now") Instant now,
+                @Param("queued") Status queued, @Param("leased") Status leased);
+
+    // Expired leases with no attempts left, e.g. a page that took down every node that tried it
+    @Modifying
+    @Query("update ScrapeTask t set t.status = :failed, t.error = :error, t.updatedAt = :now"
+            + " where t.status = :leased and t.leaseUntil < :now and t.attempts >= :maxAttempts")
+    int failExpired(@Param("now") Instant now, @Param("maxAttempts") int maxAttempts, @Param("error") String error,
+                    @Param("failed") Status failed, @Param("leased") Status leased);
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one URL in a batch scrape. A failed URL carries its error instead of products,
+ * so one bad URL never hides the results of the others.
+ */
+public final class BatchResult {
+
+    private final int index;
+    private final String url;
+    private final ScrapeJob.Status status;
+    private final int productCount;
+    private final List<Product> products;
+    private final String error;
+
+    private BatchResult(int index, String url, ScrapeJob.Status status, List<Product> products, String error) {
+        this.index = index;
+        this.url = url;
+        this.status = status;
+        this.productCount = products.size();
+        this.products = products;
+        this.error = error;
+    }
+
+    static BatchResult completed(int index, String url, List<Product> products) {
+        return new BatchResult(index, url, ScrapeJob.Status.COMPLETED, products, null);
+    }
+
+    static BatchResult failed(int index, String url, String error) {
+        return new BatchResult(index, url, ScrapeJob.Status.FAILED, Collections.emptyList(), error);
+    }
+
+    /** Position of the URL in the submitted batch. */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public ScrapeJob.Status getStatus() {
+        return status;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
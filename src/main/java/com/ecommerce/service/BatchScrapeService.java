@@ -0,0 +1,112 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Scrapes many URLs at once. URLs are grouped by host and each host gets up to
+ * {@code scraper.batch.per-host} lanes that work through its URLs one after another, so
+ * hosts proceed side by side and a batch takes about as long as its slowest host. All
+ * batches share the {@code batchScrapeExecutor}, whose size is the global concurrency limit.
+ */
+@Service
+public class BatchScrapeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchScrapeService.class);
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    @Qualifier("batchScrapeExecutor")
+    private ExecutorService batchScrapeExecutor;
+
+    /**
+     * Runs the batch and hands each URL's result to the consumer as soon as that URL finishes.
+     * Results arrive in completion order, {@link BatchResult#getIndex()} gives the input position.
+     * If the consumer throws, no further URLs are started and the returned future fails with that error.
+     */
+    public CompletableFuture<Void> scrape(List<String> urls, Consumer<BatchResult> onResult) {
+        Map<String, Queue<Integer>> byHost = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            byHost.computeIfAbsent(WebScraperService.extractDomain(urls.get(i)), host -> new ConcurrentLinkedQueue<>()).add(i);
+        }
+        logger.info("Starting batch of {} URLs across {} hosts", urls.size(), byHost.size());
+
+        AtomicReference<RuntimeException> aborted = new AtomicReference<>();
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (Queue<Integer> pending : byHost.values()) {
+            int laneCount = Math.min(properties.getBatch().getPerHost(), pending.size());
+            for (int lane = 0; lane < laneCount; lane++) {
+                lanes.add(runLane(urls, pending, onResult, aborted));
+            }
+        }
+
+        return CompletableFuture.allOf(lanes.toArray(new CompletableFuture[0])).thenRun(() -> {
+            if (aborted.get() != null) {
+                throw aborted.get();
+            }
+        });
+    }
+
+    /** Scrapes the host's pending URLs one at a time until none are left or the batch is aborted. */
+    private CompletableFuture<Void> runLane(List<String> urls, Queue<Integer> pending,
+                                            Consumer<BatchResult> onResult, AtomicReference<RuntimeException> aborted) {
+        Integer index = pending.poll();
+        if (index == null || aborted.get() != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String url = urls.get(index);
+        CompletableFuture<BatchResult> scrape;
+        try {
+            scrape = CompletableFuture.supplyAsync(() -> scrapeOne(index, url), batchScrapeExecutor);
+        } catch (RejectedExecutionException e) {
+            scrape = CompletableFuture.completedFuture(
+                    BatchResult.failed(index, url, "Too many scrapes in progress, try again later"));
+        }
+
+        return scrape.thenCompose(result -> {
+            try {
+                onResult.accept(result);
+            } catch (RuntimeException e) {
+                aborted.compareAndSet(null, e);
+            }
+            return runLane(urls, pending, onResult, aborted);
+        });
+    }
+
+    private BatchResult scrapeOne(int index, String url) {
+        if (url.isEmpty()) {
+            return BatchResult.failed(index, url, "Empty URL provided");
+        }
+        try {
+            List<Product> products = new ArrayList<>();
+            webScraperService.scrapeWebsite(url, (page, pageProducts) -> products.addAll(pageProducts));
+            return BatchResult.completed(index, url, products);
+        } catch (Exception e) {
+            logger.warn("Batch scrape of {} failed: {}", url, e.getMessage());
+            return BatchResult.failed(index, url, String.valueOf(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * CPU stage of a scrape. Fetch threads only wait on the network and hand each body here, to
+ * be parsed and extracted on the core-sized extraction pool; a slow parse never holds a
+ * fetch thread, and concurrent scrapes share every core instead of one thread each.
+ * <p>
+ * At most {@code scraper.extraction.queue-capacity} pages wait for or are in extraction.
+ * Past that, the thread handing a page over blocks until one finishes, so fetching slows
+ * to the pace extraction keeps up with rather than piling bodies up in memory.
+ */
+@Component
+public class ExtractionStage {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    @Qualifier("extractionPool")
+    private ForkJoinPool extractionPool;
+
+    @Autowired
+    private ScrapeMetrics metrics;
+
+    private int limit;
+    private Semaphore capacity;
+
+    @PostConstruct
+    void init() {
+        limit = Math.max(1, properties.getExtraction().getQueueCapacity());
+        capacity = new Semaphore(limit);
+        metrics.extractionQueue(this);
+    }
+
+    /**
+     * Queues the page for extraction, blocking while the stage is full.
+     *
+     * @return completes with the extractor's result, or exceptionally with what it threw
+     * @throws InterruptedIOException when interrupted while waiting for room
+     */
+    public CompletableFuture<PageResult> submit(int page, FetchedPage fetched,
+                                                PaginatedFetcher.PageExtractor extractor) throws InterruptedIOException {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to extract page " + page);
+        }
+
+        CompletableFuture<PageResult> result = new CompletableFuture<>();
+        try {
+            extractionPool.execute(() -> {
+                try {
+                    result.complete(extractor.extract(page, fetched));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            capacity.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /** Extracts the page on the extraction pool and waits for it, rethrowing what the extractor threw. */
+    public PageResult extract(int page, FetchedPage fetched, PaginatedFetcher.PageExtractor extractor) throws IOException {
+        CompletableFuture<PageResult> result = submit(page, fetched, extractor);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted extracting page " + page);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** Pages waiting for or in extraction. */
+    public int queued() {
+        return limit - capacity.availablePermits();
+    }
+}
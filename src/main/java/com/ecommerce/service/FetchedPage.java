@@ -0,0 +1,99 @@
+package com.ecommerce.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Body of a fetched page, held as bytes (gzip-compressed when it came from the cache).
+ * Immutable and safe to share; callers either {@link #parse()} it into a full document or
+ * {@link #openReader()} it to stream the markup without building the whole tree.
+ */
+public final class FetchedPage {
+
+    private final String url;
+    private final String charset;
+    private final byte[] body;
+    private final boolean compressed;
+    // False for copies served from the cache or shared with a concurrent fetch of the same URL
+    private final boolean fromNetwork;
+
+    private FetchedPage(String url, String charset, byte[] body, boolean compressed, boolean fromNetwork) {
+        this.url = url;
+        this.charset = charset;
+        this.body = body;
+        this.compressed = compressed;
+        this.fromNetwork = fromNetwork;
+    }
+
+    public static FetchedPage of(String url, String charset, byte[] body) {
+        return new FetchedPage(url, charset, body, false, true);
+    }
+
+    static FetchedPage compressed(String url, String charset, byte[] gzipped) {
+        return new FetchedPage(url, charset, gzipped, true, true);
+    }
+
+    /** The same body, handed to a caller whose request was not the one that fetched it. */
+    FetchedPage reused() {
+        return fromNetwork ? new FetchedPage(url, charset, body, compressed, false) : this;
+    }
+
+    /**
+     * True when this caller's own request brought the page back, so how the host answered
+     * may be reported to its rate controller; false for cached and shared copies.
+     */
+    public boolean isFromNetwork() {
+        return fromNetwork;
+    }
+
+    boolean sameBody(FetchedPage other) {
+        return body == other.body;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /** Bytes held for this page, compressed size for cached pages. */
+    public int getStoredLength() {
+        return body.length;
+    }
+
+    public InputStream openStream() throws IOException {
+        InputStream in = new ByteArrayInputStream(body);
+        return compressed ? new GZIPInputStream(in) : in;
+    }
+
+    /** Decodes the body with the response charset, falling back to UTF-8 when it is missing or unknown. */
+    public Reader openReader() throws IOException {
+        return new InputStreamReader(openStream(), charset());
+    }
+
+    public Document parse() throws IOException {
+        try (InputStream in = openStream()) {
+            return Jsoup.parse(in, charset, url);
+        }
+    }
+
+    private Charset charset() {
+        if (charset == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(charset);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
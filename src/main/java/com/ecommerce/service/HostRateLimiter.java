@@ -0,0 +1,281 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.CircuitOpenException;
+import com.ecommerce.service.cluster.ClusterRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-host request control shared by every scrape in the JVM. Each host has a token bucket
+ * whose rate adapts AIMD-style: it creeps up after unblocked pages and is cut on a 403, 429,
+ * 503 or CAPTCHA, with Retry-After honoured. Repeated blocks open a circuit breaker that
+ * refuses requests outright until a single half-open probe gets through again. Callers
+ * reserve a slot and are told how long to defer the request instead of sleeping on a worker
+ * thread, then report how the page went.
+ * <p>
+ * In cluster mode each reservation is also spaced against every other node's requests to the
+ * host through {@link ClusterRateLimiter}, at this node's current rate for it.
+ */
+@Component
+public class HostRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostRateLimiter.class);
+
+    private final ConcurrentMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ClusterRateLimiter clusterRateLimiter;
+
+    /**
+     * Reserves one request against the host.
+     *
+     * @return nanoseconds the caller must wait before issuing the request, 0 if it may go now
+     * @throws CircuitOpenException while the host's circuit is open, or half-open with a probe in flight
+     */
+    public long reserve(String host) throws CircuitOpenException {
+        HostState state = state(host);
+        long delay = state.reserve(System.nanoTime());
+        ScraperProperties.Cluster cluster = properties.getCluster();
+        if (cluster.isEnabled() && cluster.isSharedRateLimits()) {
+            try {
+                delay = Math.max(delay, clusterRateLimiter.reserve(host, state.rate(), state.capacity));
+            } catch (RuntimeException e) {
+                logger.warn("Shared rate limit for {} unavailable, spacing by this node alone: {}", host, e.getMessage());
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * Hands back a reservation whose request was never sent, e.g. for a page past the end of
+     * a listing, so the debt it took on does not hold up later requests to the host.
+     */
+    public void release(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            return;
+        }
+        state.release(System.nanoTime());
+        ScraperProperties.Cluster cluster = properties.getCluster();
+        if (cluster.isEnabled() && cluster.isSharedRateLimits()) {
+            try {
+                clusterRateLimiter.release(host, state.rate());
+            } catch (RuntimeException e) {
+                logger.debug("Could not release shared request slot for {}: {}", host, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fails fast when the circuit opened after this request was reserved, e.g. for pages
+     * scheduled before the host started blocking.
+     */
+    public void checkOpen(String host) throws CircuitOpenException {
+        HostState state = hosts.get(host);
+        if (state != null) {
+            state.checkOpen(System.nanoTime());
+        }
+    }
+
+    /**
+     * True while the host's circuit is half-open, when the one request let through is the
+     * probe and must reach the host rather than be answered from the cache.
+     */
+    public boolean isHalfOpen(String host) {
+        HostState state = hosts.get(host);
+        return state != null && state.isHalfOpen(System.nanoTime());
+    }
+
+    /** The page came back and was not a block page. */
+    public void onSuccess(String host) {
+        state(host).onSuccess(System.nanoTime());
+    }
+
+    /**
+     * The host pushed back with a 403/429/503 or a CAPTCHA page.
+     *
+     * @param retryAfter the server's Retry-After, or null
+     */
+    public void onBlocked(String host, Duration retryAfter) {
+        state(host).onBlocked(System.nanoTime(), retryAfter);
+    }
+
+    /** The request failed for a reason that says nothing about blocking (timeout, 404, ...). */
+    public void onError(String host) {
+        state(host).releaseProbe();
+    }
+
+    /** Current rate and circuit state of every host seen so far. */
+    public Map<String, Map<String, Object>> getStats() {
+        long now = System.nanoTime();
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        hosts.forEach((host, state) -> stats.put(host, state.describe(now)));
+        return stats;
+    }
+
+    private HostState state(String host) {
+        return hosts.computeIfAbsent(host, this::newState);
+    }
+
+    private HostState newState(String host) {
+        ScraperProperties.Fetch fetch = properties.getFetch();
+        return new HostState(host, fetch.politenessFor(host), fetch.getAdaptive(), fetch.getBreaker());
+    }
+
+    enum Circuit { CLOSED, OPEN, HALF_OPEN }
+
+    static final class HostState {
+        private final String host;
+        private final double maxRate;
+        private final double capacity;
+        private final ScraperProperties.Adaptive adaptive;
+        private final ScraperProperties.Breaker breaker;
+
+        private double rate;
+        private double tokens;
+        private long lastRefill;
+
+        private int consecutiveBlocks;
+        private int timesOpened;
+        // Zero while closed; once this has passed the circuit is half-open
+        private long openUntil;
+        private boolean probing;
+        private long probeStarted;
+
+        HostState(String host, ScraperProperties.Politeness politeness,
+                  ScraperProperties.Adaptive adaptive, ScraperProperties.Breaker breaker) {
+            this.host = host;
+            this.maxRate = politeness.getRequestsPerSecond();
+            this.capacity = Math.max(1, politeness.getBurst());
+            this.adaptive = adaptive;
+            this.breaker = breaker;
+            this.rate = maxRate;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long reserve(long now) throws CircuitOpenException {
+            checkOpen(now);
+            if (openUntil != 0) {
+                if (probing && now - probeStarted < breaker.getProbeTimeout().toNanos()) {
+                    throw new CircuitOpenException(host, breaker.getProbeTimeout().minusNanos(now - probeStarted));
+                }
+                // Half-open: this caller is the probe and goes straight away
+                probing = true;
+                probeStarted = now;
+                return 0;
+            }
+
+            refill(now);
+            tokens -= 1;
+            // A negative balance is debt that later callers queue behind
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano());
+        }
+
+        synchronized void release(long now) {
+            if (openUntil != 0) {
+                // The reservation may have been the half-open probe; let the next caller probe
+                probing = false;
+                return;
+            }
+            refill(now);
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized void checkOpen(long now) throws CircuitOpenException {
+            if (openUntil > now) {
+                throw new CircuitOpenException(host, Duration.ofNanos(openUntil - now));
+            }
+        }
+
+        synchronized void onSuccess(long now) {
+            if (openUntil > now) {
+                // A request that was already in flight when the circuit opened
+                return;
+            }
+            if (openUntil != 0) {
+                logger.info("Circuit for {} closed, probe succeeded", host);
+                openUntil = 0;
+                probing = false;
+                timesOpened = 0;
+            }
+            consecutiveBlocks = 0;
+            refill(now);
+            rate = Math.min(maxRate, rate + adaptive.getIncreasePerSuccess());
+        }
+
+        synchronized void onBlocked(long now, Duration retryAfter) {
+            refill(now);
+            rate = Math.max(adaptive.getMinRequestsPerSecond(), rate * adaptive.getDecreaseFactor());
+            if (retryAfter != null) {
+                // Push the bucket into enough debt that nothing goes before Retry-After
+                tokens = Math.min(tokens, 0) - retryAfter.toNanos() * tokensPerNano();
+            }
+            if (openUntil > now) {
+                return;
+            }
+
+            consecutiveBlocks++;
+            boolean probeFailed = openUntil != 0 && probing;
+            if (probeFailed || consecutiveBlocks >= breaker.getFailureThreshold()) {
+                long backoff = breaker.getOpenDuration().toNanos() << Math.min(timesOpened, 20);
+                long duration = Math.min(backoff, breaker.getMaxOpenDuration().toNanos());
+                if (retryAfter != null) {
+                    duration = Math.max(duration, retryAfter.toNanos());
+                }
+                timesOpened++;
+                openUntil = now + duration;
+                probing = false;
+                logger.warn("Circuit for {} opened for {}s after {} blocked responses (rate now {}/s)",
+                        host, Duration.ofNanos(duration).toSeconds(), consecutiveBlocks, String.format("%.2f", rate));
+            } else {
+                logger.info("{} pushed back, request rate cut to {}/s", host, String.format("%.2f", rate));
+            }
+        }
+
+        synchronized boolean isHalfOpen(long now) {
+            return openUntil != 0 && openUntil <= now;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        synchronized void releaseProbe() {
+            probing = false;
+        }
+
+        synchronized Map<String, Object> describe(long now) {
+            Circuit circuit = openUntil == 0 ? Circuit.CLOSED : openUntil > now ? Circuit.OPEN : Circuit.HALF_OPEN;
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("circuit", circuit);
+            description.put("requestsPerSecond", Math.round(rate * 100) / 100d);
+            description.put("consecutiveBlocks", consecutiveBlocks);
+            if (circuit == Circuit.OPEN) {
+                description.put("retryAfterSeconds", Duration.ofNanos(openUntil - now).toSeconds());
+            }
+            return description;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano());
+            lastRefill = now;
+        }
+
+        private double tokensPerNano() {
+            return rate / 1_000_000_000d;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import org.brotli.dec.BrotliInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetches pages through the shared {@code fetchHttpClient}. Bodies are decoded according to
+ * their Content-Encoding (gzip, deflate or brotli) into a per-thread buffer that is reused
+ * from one page to the next, so a response has to be consumed before the same thread fetches
+ * again.
+ *
+ * <p>Hosts listed in {@code scraper.fetch.base-urls} are fetched from their override instead,
+ * while the response still reports the real URL, so relative links, pagination and product
+ * URLs resolve exactly as they would against the live site.
+ */
+@Component
+public class HttpFetcher {
+
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([^\";\\s]+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ORIGIN = Pattern.compile("^https?://[^/?#]+", Pattern.CASE_INSENSITIVE);
+
+    private static final ThreadLocal<BodyBuffer> BUFFERS = ThreadLocal.withInitial(BodyBuffer::new);
+
+    @Autowired
+    @Qualifier("fetchHttpClient")
+    private HttpClient client;
+
+    @Autowired
+    private ScrapeMetrics metrics;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    @Qualifier("fetchDeadlineScheduler")
+    private ScheduledExecutorService deadlineScheduler;
+
+    /**
+     * @param site    metrics tag for the site being scraped
+     * @param timeout deadline for the whole response, headers and body
+     * @throws HttpTimeoutException when the response is not complete in time
+     */
+    public Response get(String site, String url, Map<String, String> headers, Duration timeout) throws IOException {
+        String origin = null;
+        String baseUrl = null;
+        String target = url;
+        Map<String, String> baseUrls = properties.getFetch().getBaseUrls();
+        if (!baseUrls.isEmpty()) {
+            Matcher matcher = ORIGIN.matcher(url);
+            baseUrl = matcher.find() ? baseUrls.get(WebScraperService.extractDomain(url).toLowerCase(Locale.ROOT)) : null;
+            if (baseUrl != null) {
+                origin = matcher.group();
+                baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+                target = baseUrl + url.substring(matcher.end());
+            }
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(toUri(target)).timeout(timeout).GET();
+        headers.forEach(request::header);
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        }
+
+        long headersAt = System.nanoTime();
+        BodyBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        // The request timeout only covers the headers; a server dripping the body out a few bytes
+        // at a time would otherwise hold this thread indefinitely, so close the body at the deadline
+        InputStream raw = response.body();
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> deadline = deadlineScheduler.schedule(() -> {
+            expired.set(true);
+            closeQuietly(raw);
+        }, Math.max(0, start + timeout.toNanos() - headersAt), TimeUnit.NANOSECONDS);
+        try (InputStream body = decode(response)) {
+            body.transferTo(buffer);
+        } catch (IOException e) {
+            if (expired.get()) {
+                throw timedOut(url, timeout);
+            }
+            throw e;
+        } finally {
+            deadline.cancel(false);
+        }
+        if (expired.get()) {
+            // Closing can also end the stream early without an error
+            throw timedOut(url, timeout);
+        }
+        metrics.recordFetch(site, response.statusCode(), headersAt - start, System.nanoTime() - headersAt, buffer.size());
+        return new Response(response, buffer, origin, baseUrl);
+    }
+
+    private static HttpTimeoutException timedOut(String url, Duration timeout) {
+        return new HttpTimeoutException("Response from " + url + " not complete within " + timeout.toSeconds() + "s");
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // The reading thread sees the stream fail or end either way
+        }
+    }
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "identity":
+            case "":
+                return body;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body);
+            case "deflate":
+                return new InflaterInputStream(body);
+            case "br":
+                return new BrotliInputStream(body);
+            default:
+                body.close();
+                throw new IOException("Unsupported Content-Encoding " + encoding + " from " + response.uri());
+        }
+    }
+
+    /** Accepts URLs as users type them, percent-encoding spaces and other characters URIs forbid. */
+    private static URI toUri(String url) throws MalformedURLException {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            URL parsed = new URL(url);
+            try {
+                return new URI(parsed.getProtocol(), parsed.getUserInfo(), parsed.getHost(), parsed.getPort(),
+                        parsed.getPath(), parsed.getQuery(), parsed.getRef());
+            } catch (URISyntaxException invalid) {
+                throw new MalformedURLException("Invalid URL " + url + ": " + invalid.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A decoded response whose body lives in the calling thread's buffer.
+     */
+    public static final class Response {
+        private final HttpResponse<InputStream> response;
+        private final BodyBuffer body;
+        // Real origin and its base URL override, both null when the host is fetched directly
+        private final String origin;
+        private final String baseUrl;
+
+        private Response(HttpResponse<InputStream> response, BodyBuffer body, String origin, String baseUrl) {
+            this.response = response;
+            this.body = body;
+            this.origin = origin;
+            this.baseUrl = baseUrl;
+        }
+
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        /** Final URL after redirects, mapped back to the real host when it was fetched from an override. */
+        public String url() {
+            String url = response.uri().toString();
+            return baseUrl != null && url.startsWith(baseUrl) ? origin + url.substring(baseUrl.length()) : url;
+        }
+
+        public String header(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        /** Charset from the Content-Type header, or null to let the parser detect it. */
+        public String charset() {
+            String contentType = header("Content-Type");
+            if (contentType == null) {
+                return null;
+            }
+            Matcher matcher = CHARSET.matcher(contentType);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        /** Retry-After as either delay-seconds or an HTTP date, null when absent or unparseable. */
+        public Duration retryAfter() {
+            String value = header("Retry-After");
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+            } catch (NumberFormatException e) {
+                try {
+                    Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration delay = Duration.between(Instant.now(), at);
+                    return delay.isNegative() ? Duration.ZERO : delay;
+                } catch (DateTimeParseException invalid) {
+                    return null;
+                }
+            }
+        }
+
+        public int bodyLength() {
+            return body.size();
+        }
+
+        public void writeBody(OutputStream out) throws IOException {
+            body.writeTo(out);
+        }
+
+        public byte[] bodyAsBytes() {
+            return body.toByteArray();
+        }
+    }
+
+    private static final class BodyBuffer extends ByteArrayOutputStream {
+        // A single multi-megabyte page should not pin its buffer for the life of the thread
+        private static final int RETAINED_CAPACITY = 4 * 1024 * 1024;
+
+        private BodyBuffer() {
+            super(256 * 1024);
+        }
+
+        @Override
+        public synchronized void reset() {
+            if (buf.length > RETAINED_CAPACITY) {
+                buf = new byte[RETAINED_CAPACITY];
+            }
+            super.reset();
+        }
+    }
+}
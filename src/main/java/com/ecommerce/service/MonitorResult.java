@@ -0,0 +1,99 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * What changed on a listing since its previous monitoring run. Unchanged products are only
+ * counted, so the payload stays small when little moved.
+ */
+public final class MonitorResult {
+
+    private final String url;
+    private final int pagesExtracted;
+    private final int pagesUnchanged;
+    private final int productCount;
+    private final List<Product> added;
+    private final List<PriceChange> priceChanged;
+    private final List<String> removed;
+
+    MonitorResult(String url, int pagesExtracted, int pagesUnchanged, int productCount,
+                  List<Product> added, List<PriceChange> priceChanged, List<String> removed) {
+        this.url = url;
+        this.pagesExtracted = pagesExtracted;
+        this.pagesUnchanged = pagesUnchanged;
+        this.productCount = productCount;
+        this.added = added;
+        this.priceChanged = priceChanged;
+        this.removed = removed;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getPagesExtracted() {
+        return pagesExtracted;
+    }
+
+    /** Pages whose fingerprint matched the previous run and were not parsed again. */
+    public int getPagesUnchanged() {
+        return pagesUnchanged;
+    }
+
+    /** Products currently listed, changed or not. */
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public List<Product> getAdded() {
+        return added;
+    }
+
+    public List<PriceChange> getPriceChanged() {
+        return priceChanged;
+    }
+
+    /** Product keys no longer listed. */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public static final class PriceChange {
+        private final String productKey;
+        private final String name;
+        private final String productUrl;
+        private final BigDecimal previousPrice;
+        private final BigDecimal price;
+
+        PriceChange(Product product, BigDecimal previousPrice) {
+            this.productKey = product.getProductKey();
+            this.name = product.getName();
+            this.productUrl = product.getProductUrl();
+            this.previousPrice = previousPrice;
+            this.price = product.getPrice();
+        }
+
+        public String getProductKey() {
+            return productKey;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getProductUrl() {
+            return productUrl;
+        }
+
+        public BigDecimal getPreviousPrice() {
+            return previousPrice;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+    }
+}
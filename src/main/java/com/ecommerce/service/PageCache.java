@@ -0,0 +1,308 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.FetchStatusException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fetch-layer cache for result pages. Bodies are kept gzip-compressed in a byte-bounded LRU,
+ * served without network I/O while fresh and revalidated with ETag/Last-Modified after
+ * the TTL. Concurrent fetches of the same URL share one request. Callers get the stored
+ * {@link FetchedPage} and parse or stream it themselves, since jsoup trees are not safe to
+ * share across threads.
+ */
+@Component
+public class PageCache {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private HttpFetcher httpFetcher;
+
+    @Autowired
+    private ScrapeMetrics metrics;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private long storedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        metrics.pageCache(this);
+    }
+
+    /**
+     * Fetches the URL through the cache.
+     *
+     * @param site metrics tag for the site being scraped
+     * @throws FetchStatusException for non-2xx responses, which are never cached
+     */
+    public FetchedPage fetch(String site, String url, Map<String, String> headers, Duration timeout) throws IOException {
+        return fetch(site, url, headers, timeout, false);
+    }
+
+    /**
+     * @param probe send the request even if the page is cached or already being fetched, as a
+     *              circuit breaker's half-open probe must reach the host; the response is
+     *              still cached
+     */
+    public FetchedPage fetch(String site, String url, Map<String, String> headers, Duration timeout,
+                             boolean probe) throws IOException {
+        ScraperProperties.Cache config = properties.getCache();
+        if (!config.isEnabled()) {
+            return load(site, url, headers, timeout, null).page;
+        }
+
+        String key = normalize(new URL(url));
+        if (probe) {
+            Entry entry = load(site, url, headers, timeout, null);
+            put(key, entry);
+            return entry.page;
+        }
+        Entry cached = get(key);
+        if (cached != null && cached.isFresh(config.getTtl())) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(cached.rawLength);
+            return cached.page.reused();
+        }
+
+        CompletableFuture<Entry> flight = new CompletableFuture<>();
+        CompletableFuture<Entry> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader).page.reused();
+        }
+
+        try {
+            Entry entry = load(site, url, headers, timeout, cached);
+            if (entry != cached) {
+                put(key, entry);
+            }
+            flight.complete(entry);
+            return entry.page;
+        } catch (IOException | RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * The URL's cached page if it is still fresh, counted as a hit. Callers check this before
+     * reserving a rate limit slot, so a repeat scrape within the TTL neither waits nor sends a
+     * request; null means the page has to be fetched or revalidated through {@link #fetch}.
+     */
+    public FetchedPage fresh(String url) {
+        ScraperProperties.Cache config = properties.getCache();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Entry cached;
+        try {
+            cached = get(normalize(new URL(url)));
+        } catch (MalformedURLException e) {
+            return null;
+        }
+        if (cached == null || !cached.isFresh(config.getTtl())) {
+            return null;
+        }
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(cached.rawLength);
+        return cached.page.reused();
+    }
+
+    /**
+     * Drops the entry holding this page, e.g. once extraction found it to be a CAPTCHA or block
+     * page, so the next scrape asks the host again instead of replaying the block.
+     */
+    public void evict(FetchedPage page) {
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.page.sameBody(page)) {
+                    storedBytes -= entry.page.getStoredLength();
+                    iterator.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        long requests = hits.get() + misses.get() + revalidations.get() + coalesced.get();
+        synchronized (entries) {
+            return Map.of(
+                    "entries", (long) entries.size(),
+                    "storedBytes", storedBytes,
+                    "hits", hits.get(),
+                    "misses", misses.get(),
+                    "revalidations", revalidations.get(),
+                    "coalesced", coalesced.get(),
+                    "bytesSaved", bytesSaved.get(),
+                    "hitRatePercent", requests == 0 ? 0 : (hits.get() + revalidations.get() + coalesced.get()) * 100 / requests);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /** Compressed bytes currently held, which the LRU keeps under {@code scraper.cache.max-bytes}. */
+    public long getStoredBytes() {
+        synchronized (entries) {
+            return storedBytes;
+        }
+    }
+
+    private Entry load(String site, String url, Map<String, String> headers, Duration timeout, Entry cached) throws IOException {
+        if (cached != null) {
+            headers = new HashMap<>(headers);
+            if (cached.etag != null) {
+                headers.put("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                headers.put("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        HttpFetcher.Response response = httpFetcher.get(site, url, headers, timeout);
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            revalidations.incrementAndGet();
+            bytesSaved.addAndGet(cached.rawLength);
+            cached.storedAt = System.nanoTime();
+            return cached;
+        }
+        if (status < 200 || status >= 300) {
+            throw new FetchStatusException(status, response.url(), response.retryAfter());
+        }
+
+        misses.incrementAndGet();
+        // The decoded body sits in the fetch thread's reusable buffer, so copy (or compress) it out now
+        FetchedPage page = properties.getCache().isEnabled()
+                ? FetchedPage.compressed(response.url(), response.charset(), compress(response))
+                : FetchedPage.of(response.url(), response.charset(), response.bodyAsBytes());
+        return new Entry(page, response.bodyLength(), response.header("ETag"), response.header("Last-Modified"));
+    }
+
+    private Entry get(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        long maxBytes = properties.getCache().getMaxBytes();
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            storedBytes += entry.page.getStoredLength() - (previous == null ? 0 : previous.page.getStoredLength());
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (storedBytes > maxBytes && eldest.hasNext()) {
+                storedBytes -= eldest.next().page.getStoredLength();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> leader) throws IOException {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FetchStatusException) {
+                throw ((FetchStatusException) e.getCause()).shared();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] compress(HttpFetcher.Response response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(response.bodyLength() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            response.writeBody(gzip);
+        }
+        return out.toByteArray();
+    }
+
+    /** Lower-cases scheme and host, drops the default port and fragment and sorts query parameters. */
+    static String normalize(URL url) {
+        StringBuilder key = new StringBuilder(url.getProtocol().toLowerCase())
+                .append("://").append(url.getHost().toLowerCase());
+        if (url.getPort() != -1 && url.getPort() != url.getDefaultPort()) {
+            key.append(':').append(url.getPort());
+        }
+        key.append(url.getPath().isEmpty() ? "/" : url.getPath());
+        if (url.getQuery() != null && !url.getQuery().isEmpty()) {
+            String[] params = url.getQuery().split("&");
+            Arrays.sort(params);
+            key.append('?').append(String.join("&", params));
+        }
+        return key.toString();
+    }
+
+    private static final class Entry {
+        private final FetchedPage page;
+        private final int rawLength;
+        private final String etag;
+        private final String lastModified;
+        private volatile long storedAt = System.nanoTime();
+
+        private Entry(FetchedPage page, int rawLength, String etag, String lastModified) {
+            this.page = page;
+            this.rawLength = rawLength;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        boolean isFresh(Duration ttl) {
+            return System.nanoTime() - storedAt < ttl.toNanos();
+        }
+    }
+}
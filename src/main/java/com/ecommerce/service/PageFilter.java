@@ -0,0 +1,31 @@
+package com.ecommerce.service;
+
+import java.io.IOException;
+
+/**
+ * Consulted with each fetched page before it is extracted, so a caller that has seen the
+ * page before can skip the parse. Pages are fetched ahead of the walk, so a page passed to the
+ * filter is not necessarily delivered; {@link #finished} says which were.
+ */
+@FunctionalInterface
+public interface PageFilter {
+
+    PageFilter NONE = (page, fetched) -> -1;
+
+    /**
+     * @return the number of products the page held when it was last extracted if it has not
+     *         changed since, or -1 to extract it
+     */
+    int unchanged(int page, FetchedPage fetched) throws IOException;
+
+    /**
+     * Called once a scrape's walk is over. Pages past {@code pages} may have been fetched and
+     * passed to {@link #unchanged} ahead of time without ever being delivered.
+     *
+     * @param pages    pages 1 to this one were delivered, extracted or skipped as unchanged
+     * @param complete true when the walk reached the listing's last page, false when a limit,
+     *                 a failed page or a block page ended it early
+     */
+    default void finished(int pages, boolean complete) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+/**
+ * Fingerprint of a page's content, blind to the parts that change on every request even when
+ * the listing does not: comments, script and style bodies, {@code input} and {@code meta}
+ * tags (CSRF tokens, request ids) and {@code nonce} attributes. JSON-LD blocks are kept, as
+ * they carry product data.
+ */
+final class PageFingerprint {
+
+    private static final Pattern NONCE = Pattern.compile("\\snonce\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s>]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private PageFingerprint() {
+    }
+
+    static long of(FetchedPage page) throws IOException {
+        StringBuilder html = new StringBuilder();
+        char[] buffer = new char[8192];
+        try (Reader in = page.openReader()) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                html.append(buffer, 0, read);
+            }
+        }
+        return of(html.toString());
+    }
+
+    /** First 64 bits of the SHA-256 digest of the page without its volatile parts. */
+    static long of(String html) {
+        StringBuilder kept = new StringBuilder(html.length());
+        int n = html.length();
+        int i = 0;
+        while (i < n) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0) {
+                kept.append(html, i, n);
+                break;
+            }
+            kept.append(html, i, lt);
+            if (html.startsWith("<!--", lt)) {
+                int end = html.indexOf("-->", lt + 4);
+                i = end < 0 ? n : end + 3;
+                continue;
+            }
+            int gt = html.indexOf('>', lt);
+            if (gt < 0) {
+                kept.append(html, lt, n);
+                break;
+            }
+            String tag = html.substring(lt, gt + 1);
+            String name = tagName(tag);
+            if (name.equals("input") || name.equals("meta")) {
+                i = gt + 1;
+                continue;
+            }
+            kept.append(indexOfIgnoreCase(tag, "nonce", 0) < 0 ? tag : NONCE.matcher(tag).replaceAll(""));
+            i = gt + 1;
+            if (name.equals("script") || name.equals("style")) {
+                int close = indexOfIgnoreCase(html, "</" + name, i);
+                int end = close < 0 ? n : close;
+                if (name.equals("script") && indexOfIgnoreCase(tag, "ld+json", 0) >= 0) {
+                    kept.append(html, i, end);
+                }
+                // The closing tag is appended by the next pass
+                i = end;
+            }
+        }
+        return digest(kept.toString());
+    }
+
+    private static String tagName(String tag) {
+        int end = 1;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+        return tag.substring(1, end).toLowerCase();
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long digest(String content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+        long fingerprint = 0;
+        for (int i = 0; i < 8; i++) {
+            fingerprint = (fingerprint << 8) | (hash[i] & 0xff);
+        }
+        return fingerprint;
+    }
+}
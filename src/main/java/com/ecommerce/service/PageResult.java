@@ -0,0 +1,74 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Products extracted from one result page, and whether the walk should stop there.
+ */
+public final class PageResult {
+
+    private static final PageResult END = new PageResult(Collections.emptyList(), true, false, 0);
+    private static final PageResult BLOCKED = new PageResult(Collections.emptyList(), true, true, 0);
+
+    private final List<Product> products;
+    private final boolean last;
+    private final boolean blocked;
+    private final int unchangedProducts;
+
+    private PageResult(List<Product> products, boolean last, boolean blocked, int unchangedProducts) {
+        this.products = products;
+        this.last = last;
+        this.blocked = blocked;
+        this.unchangedProducts = unchangedProducts;
+    }
+
+    public static PageResult of(List<Product> products) {
+        return new PageResult(products, false, false, 0);
+    }
+
+    /**
+     * The page was skipped because a {@link PageFilter} had already seen it; it delivers no
+     * products but still counts its earlier ones towards the scrape's product limit.
+     */
+    public static PageResult unchanged(int products) {
+        return new PageResult(Collections.emptyList(), false, false, products);
+    }
+
+    /** Products of a page known to be the last one, e.g. because the site is not paginated. */
+    public static PageResult last(List<Product> products) {
+        return new PageResult(products, true, false, 0);
+    }
+
+    /** No products on this page (empty listing, ...) - nothing after it is worth fetching. */
+    public static PageResult end() {
+        return END;
+    }
+
+    /** The site served a CAPTCHA or block page; ends the walk like {@link #end()}. */
+    public static PageResult blocked() {
+        return BLOCKED;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public boolean isUnchanged() {
+        return unchangedProducts > 0;
+    }
+
+    public int getUnchangedProducts() {
+        return unchangedProducts;
+    }
+}
@@ -0,0 +1,296 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.CircuitOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Walks a paginated listing by fetching pages concurrently on the shared fetch pool and
+ * extracting them in the {@link ExtractionStage}, so fetch threads go straight on to the next
+ * request. Per-host politeness is enforced by {@link HostRateLimiter} for pages that are not
+ * fresh in the {@link PageCache}; results are merged in page order and the walk stops at the
+ * first page that reports it is the last one.
+ */
+@Component
+public class PaginatedFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaginatedFetcher.class);
+
+    // How long a page waits before trying the fetch pool again when its queue is full
+    private static final long RESUBMIT_DELAY_MS = 50;
+
+    @FunctionalInterface
+    public interface PageLoader {
+        FetchedPage load(String url) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface PageExtractor {
+        PageResult extract(int page, FetchedPage fetched) throws IOException;
+    }
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private HostRateLimiter rateLimiter;
+
+    @Autowired
+    private ExtractionStage extractionStage;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    @Qualifier("fetchExecutor")
+    private ExecutorService fetchExecutor;
+
+    @Autowired
+    @Qualifier("politenessScheduler")
+    private ScheduledExecutorService politenessScheduler;
+
+    /**
+     * Hands each page's products to the listener as soon as every earlier page has been
+     * delivered; nothing is retained here, so memory is bounded by the pages in flight.
+     * Only {@code scraper.fetch.pages-ahead} pages past the one being delivered are
+     * requested at a time, and the rate limit slots of pages that are never sent are handed
+     * back, so a listing that ends early leaves no debt for later scrapes of the host.
+     *
+     * @return how many products and pages were delivered and whether the listing's last page was reached
+     */
+    public Walk fetchAll(String host, FetchedPage firstPage, IntFunction<String> pageUrl,
+                                  PageLoader loader, PageExtractor extractor,
+                                  ScrapeListener listener) throws IOException {
+        ScraperProperties.Fetch config = properties.getFetch();
+        int maxPages = config.getMaxPages();
+        int ahead = Math.max(1, config.getPagesAhead());
+        AtomicInteger lastPage = new AtomicInteger(maxPages);
+
+        // Index i holds page i + 2
+        List<PendingPage> pending = new ArrayList<>(Math.min(maxPages, ahead + 1));
+        int productCount = 0;
+        // Also counts products of pages skipped as unchanged
+        int budgetUsed = 0;
+        int delivered = 0;
+        boolean complete = false;
+        Throwable failure = null;
+        try {
+            scheduleThrough(Math.min(maxPages, 1 + ahead), pending, host, pageUrl, loader, extractor, lastPage);
+            PageResult result = extractionStage.extract(1, firstPage, extractor);
+            for (int page = 1; ; page++) {
+                if (!result.getProducts().isEmpty()) {
+                    productCount += result.getProducts().size();
+                    listener.onPage(page, result.getProducts());
+                }
+                delivered = page;
+                budgetUsed += result.getProducts().size() + result.getUnchangedProducts();
+                if (result.isLast()) {
+                    lastPage.accumulateAndGet(page, Math::min);
+                    complete = !result.isBlocked();
+                    break;
+                }
+                if (budgetUsed >= config.getMaxProducts()) {
+                    logger.info("Reached maximum product limit ({})", config.getMaxProducts());
+                    lastPage.set(page);
+                    break;
+                }
+                if (page >= maxPages) {
+                    break;
+                }
+                scheduleThrough(Math.min(maxPages, page + ahead), pending, host, pageUrl, loader, extractor, lastPage);
+                try {
+                    result = pending.get(page - 1).result.join();
+                } catch (CompletionException e) {
+                    failure = e.getCause();
+                    logger.warn("Stopping {} walk at page {}: {}", host, page + 1, failure.getMessage());
+                    lastPage.set(page);
+                    break;
+                }
+            }
+        } finally {
+            pending.forEach(PendingPage::cancel);
+        }
+
+        logger.info("Fetched {} pages from {} ({} products)", lastPage.get(), host, productCount);
+        return new Walk(productCount, delivered, complete, failure);
+    }
+
+    /** How a walk ended. */
+    public static final class Walk {
+        private final int products;
+        private final int pages;
+        private final boolean complete;
+        private final Throwable failure;
+
+        Walk(int products, int pages, boolean complete, Throwable failure) {
+            this.products = products;
+            this.pages = pages;
+            this.complete = complete;
+            this.failure = failure;
+        }
+
+        /** Products handed to the listener. */
+        public int getProducts() {
+            return products;
+        }
+
+        /** Pages 1 to this one were delivered, including pages skipped as unchanged. */
+        public int getPages() {
+            return pages;
+        }
+
+        /**
+         * True when the walk stopped at the listing's own last page, false when a limit, a
+         * failed page or a block page cut it short.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Why the page after the last delivered one failed, e.g. a {@link CircuitOpenException}
+         * when the host's circuit refused it before it was sent; null when no page failed.
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    /** Schedules every page up to and including {@code through} that is not scheduled yet. */
+    private void scheduleThrough(int through, List<PendingPage> pending, String host, IntFunction<String> pageUrl,
+                                 PageLoader loader, PageExtractor extractor, AtomicInteger lastPage) {
+        for (int page = pending.size() + 2; page <= through; page++) {
+            PendingPage next = new PendingPage(host, page, pageUrl.apply(page), loader, extractor, lastPage);
+            pending.add(next);
+            next.schedule();
+        }
+    }
+
+    /**
+     * One page past the first: a rate limit reservation, then a fetch on the fetch pool and an
+     * extraction in the {@link ExtractionStage}. Whichever of the fetch and {@link #cancel()}
+     * claims the page first decides whether the request is sent or the reservation refunded.
+     */
+    private final class PendingPage {
+        private final String host;
+        private final int page;
+        private final String url;
+        private final PageLoader loader;
+        private final PageExtractor extractor;
+        private final AtomicInteger lastPage;
+
+        private final CompletableFuture<PageResult> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean reserved;
+        private volatile ScheduledFuture<?> timer;
+        // A fresh cached copy, served without a rate limit slot
+        private volatile FetchedPage cached;
+
+        PendingPage(String host, int page, String url, PageLoader loader, PageExtractor extractor, AtomicInteger lastPage) {
+            this.host = host;
+            this.page = page;
+            this.url = url;
+            this.loader = loader;
+            this.extractor = extractor;
+            this.lastPage = lastPage;
+        }
+
+        void schedule() {
+            cached = pageCache.fresh(url);
+            if (cached != null) {
+                submit();
+                return;
+            }
+            long delay;
+            try {
+                delay = rateLimiter.reserve(host);
+            } catch (CircuitOpenException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            reserved = true;
+            if (delay == 0) {
+                submit();
+            } else {
+                timer = politenessScheduler.schedule(this::submit, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /** Ends the page if it has not been sent yet, refunding its reservation. */
+        void cancel() {
+            result.cancel(false);
+            if (claimed.compareAndSet(false, true)) {
+                ScheduledFuture<?> pendingTimer = timer;
+                if (pendingTimer != null) {
+                    pendingTimer.cancel(false);
+                }
+                if (reserved) {
+                    rateLimiter.release(host);
+                }
+            }
+        }
+
+        private void submit() {
+            try {
+                fetchExecutor.execute(this::fetch);
+            } catch (RejectedExecutionException e) {
+                if (fetchExecutor.isShutdown()) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                // Every fetch thread is busy and the queue is full: wait for room instead of
+                // ending the walk here and returning a truncated listing as if it were complete
+                try {
+                    timer = politenessScheduler.schedule(this::submit, RESUBMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException shutdown) {
+                    result.completeExceptionally(shutdown);
+                }
+            }
+        }
+
+        private void fetch() {
+            // An earlier page already ended the walk, don't spend a request on this one
+            if (page > lastPage.get()) {
+                cancel();
+                return;
+            }
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                FetchedPage fetched = cached != null ? cached : loader.load(url);
+                if (result.isDone()) {
+                    // The walk ended while this page was downloading
+                    return;
+                }
+                extractionStage.submit(page, fetched, extractor).whenComplete((extracted, error) -> {
+                    if (error == null) {
+                        result.complete(extracted);
+                    } else {
+                        result.completeExceptionally(error);
+                    }
+                });
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.PriceHistory;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.PriceHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Repeated scrapes of the same listing that report only what changed. Each page's body is
+ * fingerprinted without its per-request tokens ({@link PageFingerprint}); a page whose content
+ * matches the previous run's is not parsed again and its products count as still listed. Extracted products are matched to the previous run by product key,
+ * and every addition, removal and price change is appended to the price history table.
+ * Removals are only reported by runs that walked the listing to its last page.
+ *
+ * <p>The last run's products and page fingerprints are kept in memory per listing. After a
+ * restart the products are rebuilt from the history table on the first run; fingerprints are
+ * not, so that run extracts every page.
+ */
+@Service
+public class PriceMonitorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceMonitorService.class);
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    private PriceHistoryRepository historyRepository;
+
+    @Autowired
+    @Qualifier("scrapeJobExecutor")
+    private ExecutorService scrapeJobExecutor;
+
+    private final ConcurrentMap<String, Listing> listings = new ConcurrentHashMap<>();
+
+    /**
+     * Scrapes the listing and returns the changes since its previous run; the first run
+     * reports every product as added. Runs of the same listing are serialized.
+     */
+    public MonitorResult monitor(String url) throws IOException {
+        String monitorUrl = PageCache.normalize(new URL(url));
+        Listing listing = listing(monitorUrl);
+
+        listing.runLock.lock();
+        try {
+            Run run = new Run();
+            webScraperService.scrapeWebsite(url, run.extracted::put, new PageFilter() {
+                @Override
+                public int unchanged(int page, FetchedPage fetched) throws IOException {
+                    long fingerprint = PageFingerprint.of(fetched);
+                    run.fingerprints.put(page, fingerprint);
+                    Long previous = listing.fingerprints.get(page);
+                    List<String> keys = listing.pageKeys.get(page);
+                    if (previous != null && previous == fingerprint && keys != null) {
+                        run.unchanged.add(page);
+                        return keys.size();
+                    }
+                    return -1;
+                }
+
+                @Override
+                public void finished(int pages, boolean complete) {
+                    run.pages = pages;
+                    run.complete = complete;
+                }
+            });
+            return commit(url, monitorUrl, listing, run);
+        } finally {
+            listing.runLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@link #monitor} on the scrape job pool.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public CompletableFuture<MonitorResult> monitorAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return monitor(url);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, scrapeJobExecutor);
+    }
+
+    /** Every recorded change of one product, oldest first. */
+    public List<PriceHistory> history(String productKey) {
+        return historyRepository.findByProductKeyOrderByIdAsc(productKey);
+    }
+
+    private Listing listing(String monitorUrl) {
+        Listing listing = listings.get(monitorUrl);
+        if (listing != null) {
+            return listing;
+        }
+        // Rebuilt outside the map so the repository is not queried while holding a bin lock
+        Listing restored = new Listing();
+        for (PriceHistory row : historyRepository.findByMonitorUrlOrderByIdAsc(monitorUrl)) {
+            if (row.getChange() == PriceHistory.Change.REMOVED) {
+                restored.products.remove(row.getProductKey());
+            } else {
+                restored.products.put(row.getProductKey(), new Tracked(hundredths(row.getPrice())));
+            }
+        }
+        Listing raced = listings.putIfAbsent(monitorUrl, restored);
+        return raced != null ? raced : restored;
+    }
+
+    /**
+     * Diffs the run against the listing's previous state, stores the changes and only then
+     * updates that state, so a failed write leaves the next run to report the same changes.
+     */
+    private MonitorResult commit(String url, String monitorUrl, Listing listing, Run run) {
+        Instant now = Instant.now();
+        List<PriceHistory> rows = new ArrayList<>();
+        List<Product> added = new ArrayList<>();
+        List<MonitorResult.PriceChange> priceChanged = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        // Pages fetched ahead of the walk but never delivered say nothing about this run, and
+        // their extraction may still be finishing
+        Map<Integer, Long> fingerprints = new HashMap<>();
+        run.fingerprints.forEach((page, fingerprint) -> {
+            if (page <= run.pages) {
+                fingerprints.put(page, fingerprint);
+            }
+        });
+        Set<Integer> unchanged = new HashSet<>();
+        for (int page : run.unchanged) {
+            if (page <= run.pages) {
+                unchanged.add(page);
+            }
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (int page : unchanged) {
+            seen.addAll(listing.pageKeys.get(page));
+        }
+        Map<String, Tracked> updates = new HashMap<>();
+        Map<Integer, List<String>> extractedKeys = new HashMap<>();
+        run.extracted.forEach((page, products) -> {
+            List<String> keys = new ArrayList<>(products.size());
+            for (Product product : products) {
+                String key = product.getProductKey();
+                if (key == null || !seen.add(key)) {
+                    continue;
+                }
+                keys.add(key);
+                long price = hundredths(product.getPrice());
+                updates.put(key, new Tracked(price));
+                Tracked previous = listing.products.get(key);
+                if (previous == null) {
+                    added.add(product);
+                    rows.add(row(key, monitorUrl, PriceHistory.Change.ADDED, product.getPrice(), now));
+                } else if (previous.price != price) {
+                    priceChanged.add(new MonitorResult.PriceChange(product, price(previous.price)));
+                    rows.add(row(key, monitorUrl, PriceHistory.Change.PRICE_CHANGED, product.getPrice(), now));
+                }
+            }
+            extractedKeys.put(page, keys);
+        });
+
+        // Only a walk that reached the listing's last page can tell a product is gone; one cut
+        // short by a limit or a failure would report every product beyond it as removed
+        if (run.complete) {
+            listing.products.forEach((key, tracked) -> {
+                if (!seen.contains(key)) {
+                    removed.add(key);
+                    rows.add(row(key, monitorUrl, PriceHistory.Change.REMOVED, null, now));
+                }
+            });
+        }
+
+        if (!rows.isEmpty()) {
+            historyRepository.saveAll(rows);
+        }
+
+        listing.products.putAll(updates);
+        removed.forEach(listing.products::remove);
+        for (int page : fingerprints.keySet()) {
+            List<String> keys = unchanged.contains(page) ? listing.pageKeys.get(page) : extractedKeys.get(page);
+            if (keys == null || keys.isEmpty()) {
+                // Pages that yielded nothing are always extracted again
+                listing.pageKeys.remove(page);
+                listing.fingerprints.remove(page);
+            } else {
+                listing.pageKeys.put(page, keys);
+                listing.fingerprints.put(page, fingerprints.get(page));
+            }
+        }
+
+        logger.info("Monitored {}: {} pages extracted, {} unchanged, {} added, {} price changes, {} removed",
+                url, extractedKeys.size(), unchanged.size(), added.size(), priceChanged.size(), removed.size());
+        return new MonitorResult(url, extractedKeys.size(), unchanged.size(), listing.products.size(),
+                added, priceChanged, removed);
+    }
+
+    private static PriceHistory row(String key, String monitorUrl, PriceHistory.Change change, BigDecimal price, Instant now) {
+        PriceHistory row = new PriceHistory();
+        row.setProductKey(key);
+        row.setMonitorUrl(monitorUrl);
+        row.setChange(change);
+        row.setPrice(price);
+        row.setObservedAt(now);
+        return row;
+    }
+
+    private static long hundredths(BigDecimal price) {
+        return price == null ? NO_PRICE : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal price(long hundredths) {
+        return hundredths == NO_PRICE ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    /** A listing's state after its last run. Only the run holding runLock reads or writes it. */
+    private static final class Listing {
+        private final ReentrantLock runLock = new ReentrantLock();
+        private final Map<String, Tracked> products = new HashMap<>();
+        private final Map<Integer, Long> fingerprints = new HashMap<>();
+        private final Map<Integer, List<String>> pageKeys = new HashMap<>();
+    }
+
+    private static final class Tracked {
+        private final long price;
+
+        private Tracked(long price) {
+            this.price = price;
+        }
+    }
+
+    /**
+     * One run's observations; the filter writes from extraction threads, the listener and
+     * {@link PageFilter#finished} from the scrape thread.
+     */
+    private static final class Run {
+        private final Map<Integer, Long> fingerprints = new ConcurrentHashMap<>();
+        private final Set<Integer> unchanged = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, List<Product>> extracted = new LinkedHashMap<>();
+        // Pages 1 to this one were delivered
+        private int pages;
+        private boolean complete;
+    }
+}
@@ -0,0 +1,209 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running price statistics over the products fed to it: count, min, max, mean, a histogram
+ * over fixed bucket bounds and approximate quantiles. Prices are kept as hundredths.
+ *
+ * <p>Quantiles come from a log-bucketed sketch: a price of {@code c} hundredths is counted
+ * in bucket {@code ceil(log(c) / log(gamma))}, so every estimate is within the configured
+ * relative accuracy of a true quantile, and memory grows with the log of the price range
+ * rather than with the number of products.
+ */
+public final class PriceStats {
+
+    private final long[] bounds;
+    private final double[] quantiles;
+    private final double gamma;
+    private final double logGamma;
+
+    // Everything below is guarded by this
+    private long count;
+    private long unpriced;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long sum;
+    private final long[] histogram;
+    private long zeroCount;
+    private long[] sketch = new long[256];
+
+    /**
+     * @param bounds            inclusive upper bounds of the histogram buckets, ascending; one
+     *                          more bucket holds everything above the last bound
+     * @param quantiles         quantiles to report, each in [0, 1]
+     * @param relativeAccuracy  relative error of the quantile estimates, e.g. 0.01
+     */
+    public PriceStats(List<BigDecimal> bounds, List<Double> quantiles, double relativeAccuracy) {
+        this.bounds = bounds.stream().mapToLong(PriceStats::hundredths).sorted().distinct().toArray();
+        this.quantiles = quantiles.stream().mapToDouble(Double::doubleValue).toArray();
+        this.histogram = new long[this.bounds.length + 1];
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public synchronized void addAll(List<Product> products) {
+        for (Product product : products) {
+            if (product.getPrice() == null) {
+                unpriced++;
+            } else {
+                add(hundredths(product.getPrice()));
+            }
+        }
+    }
+
+    private void add(long price) {
+        count++;
+        sum += price;
+        min = Math.min(min, price);
+        max = Math.max(max, price);
+
+        int bucket = Arrays.binarySearch(bounds, price);
+        histogram[bucket >= 0 ? bucket : -bucket - 1]++;
+
+        if (price <= 0) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(price) / logGamma);
+        if (index >= sketch.length) {
+            sketch = Arrays.copyOf(sketch, Math.max(index + 1, sketch.length * 2));
+        }
+        sketch[index]++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        if (count == 0) {
+            return new Snapshot(0, unpriced, null, null, null, histogram(), Collections.emptyMap());
+        }
+        BigDecimal mean = BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_UP);
+        Map<String, BigDecimal> estimates = new LinkedHashMap<>();
+        for (double quantile : quantiles) {
+            estimates.put("p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString(),
+                    price(quantile(quantile)));
+        }
+        return new Snapshot(count, unpriced, price(min), price(max), mean.movePointLeft(2), histogram(), estimates);
+    }
+
+    private long quantile(double quantile) {
+        long rank = (long) Math.floor(Math.min(Math.max(quantile, 0), 1) * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int index = 0; index < sketch.length; index++) {
+            seen += sketch[index];
+            if (rank < seen) {
+                // Midpoint of the bucket in relative terms, clamped to what was actually seen
+                long estimate = Math.round(2 * Math.pow(gamma, index) / (gamma + 1));
+                return Math.min(Math.max(estimate, min), max);
+            }
+        }
+        return max;
+    }
+
+    private List<Bucket> histogram() {
+        List<Bucket> buckets = new ArrayList<>(histogram.length);
+        for (int i = 0; i < histogram.length; i++) {
+            buckets.add(new Bucket(i == 0 ? null : price(bounds[i - 1]), i < bounds.length ? price(bounds[i]) : null,
+                    histogram[i]));
+        }
+        return buckets;
+    }
+
+    private static long hundredths(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal price(long hundredths) {
+        return BigDecimal.valueOf(hundredths, 2);
+    }
+
+    /** Point-in-time copy of the statistics, safe to serialize while more pages arrive. */
+    public static final class Snapshot {
+        private final long count;
+        private final long unpriced;
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final BigDecimal mean;
+        private final List<Bucket> histogram;
+        private final Map<String, BigDecimal> quantiles;
+
+        Snapshot(long count, long unpriced, BigDecimal min, BigDecimal max, BigDecimal mean,
+                 List<Bucket> histogram, Map<String, BigDecimal> quantiles) {
+            this.count = count;
+            this.unpriced = unpriced;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+            this.histogram = histogram;
+            this.quantiles = quantiles;
+        }
+
+        /** Products with a price; the other statistics cover only these. */
+        public long getCount() {
+            return count;
+        }
+
+        public long getUnpriced() {
+            return unpriced;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public BigDecimal getMean() {
+            return mean;
+        }
+
+        public List<Bucket> getHistogram() {
+            return histogram;
+        }
+
+        /** Approximate quantiles keyed {@code p50}, {@code p90} and so on. */
+        public Map<String, BigDecimal> getQuantiles() {
+            return quantiles;
+        }
+    }
+
+    /** Histogram bucket holding prices above {@code from} up to and including {@code to}. */
+    public static final class Bucket {
+        private final BigDecimal from;
+        private final BigDecimal to;
+        private final long count;
+
+        Bucket(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        /** Exclusive lower bound, null for the first bucket. */
+        public BigDecimal getFrom() {
+            return from;
+        }
+
+        /** Inclusive upper bound, null for the last bucket. */
+        public BigDecimal getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
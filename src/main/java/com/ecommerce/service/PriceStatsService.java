@@ -0,0 +1,55 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Price statistics per website over every product scraped since startup, updated as each
+ * page is extracted, and the factory for per-scrape statistics.
+ */
+@Service
+public class PriceStatsService {
+
+    @Autowired
+    private ScraperProperties properties;
+
+    private final ConcurrentMap<String, PriceStats> byWebsite = new ConcurrentHashMap<>();
+
+    /** Empty statistics with the configured buckets, quantiles and accuracy. */
+    public PriceStats newStats() {
+        ScraperProperties.Stats config = properties.getStats();
+        return new PriceStats(config.getBuckets(), config.getQuantiles(), config.getRelativeAccuracy());
+    }
+
+    /**
+     * Wraps the listener so every delivered page also updates its website's statistics.
+     */
+    public ScrapeListener aggregating(ScrapeListener listener) {
+        return (page, products) -> {
+            listener.onPage(page, products);
+            if (!products.isEmpty() && products.get(0).getWebsite() != null) {
+                // A scrape only ever delivers products of one website
+                byWebsite.computeIfAbsent(products.get(0).getWebsite().toLowerCase(Locale.ROOT), w -> newStats())
+                        .addAll(products);
+            }
+        };
+    }
+
+    public Optional<PriceStats.Snapshot> forWebsite(String website) {
+        return Optional.ofNullable(byWebsite.get(website.trim().toLowerCase(Locale.ROOT))).map(PriceStats::snapshot);
+    }
+
+    public Map<String, PriceStats.Snapshot> allWebsites() {
+        Map<String, PriceStats.Snapshot> snapshots = new TreeMap<>();
+        byWebsite.forEach((website, stats) -> snapshots.put(website, stats.snapshot()));
+        return snapshots;
+    }
+}
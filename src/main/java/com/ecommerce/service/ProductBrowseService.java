@@ -0,0 +1,210 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.service.extractor.SiteExtractorRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * Pages through persisted products by keyset (seek) pagination: each page carries a cursor
+ * naming the last row returned, and the next page asks for rows after it; nothing is skipped
+ * with an offset and nothing is counted. A page is an index range scan starting at the cursor,
+ * so page 10,000 costs what page 1 does, when one index covers both filter and order: a single
+ * exact filter or none with the id order, no filter or a price range with a price order, or a
+ * website with a price order ({@code (website, price, id)}). Other combinations, such as a brand
+ * with a price order, walk one index and check the rest per row, so their pages cost more the
+ * more rows the database has to pass over.
+ */
+@Service
+public class ProductBrowseService {
+
+    public enum Order { OLDEST, NEWEST, PRICE_ASC, PRICE_DESC }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SiteExtractorRegistry siteExtractors;
+
+    /** Exact-match filters; null fields do not filter. */
+    public static final class Filter {
+        private String website;
+        private String brand;
+        private String category;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private Instant scrapedSince;
+
+        public Filter website(String website) {
+            this.website = website;
+            return this;
+        }
+
+        public Filter brand(String brand) {
+            this.brand = brand;
+            return this;
+        }
+
+        public Filter category(String category) {
+            this.category = category;
+            return this;
+        }
+
+        public Filter price(BigDecimal min, BigDecimal max) {
+            this.minPrice = min;
+            this.maxPrice = max;
+            return this;
+        }
+
+        public Filter scrapedSince(Instant since) {
+            this.scrapedSince = since;
+            return this;
+        }
+    }
+
+    /** One page of products and the cursor of the next, null after the last page. */
+    public static final class BrowsePage {
+        private final List<Product> products;
+        private final String next;
+
+        private BrowsePage(List<Product> products, String next) {
+            this.products = products;
+            this.next = next;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        public String getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * Products matching the filter in the given order, starting after the cursor.
+     * Price orders leave out products without a price.
+     *
+     * @param after the {@code next} cursor of the previous page, null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or does not fit the order
+     */
+    public BrowsePage browse(Filter filter, Order order, String after, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+        Path<Long> id = product.get("id");
+        Path<BigDecimal> price = product.get("price");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.website != null) {
+            where.add(cb.equal(product.get("website"), siteExtractors.websiteName(filter.website.trim())));
+        }
+        if (filter.brand != null) {
+            where.add(cb.equal(product.get("brand"), filter.brand));
+        }
+        if (filter.category != null) {
+            where.add(cb.equal(product.get("category"), filter.category));
+        }
+        if (filter.minPrice != null) {
+            where.add(cb.greaterThanOrEqualTo(price, filter.minPrice));
+        }
+        if (filter.maxPrice != null) {
+            where.add(cb.lessThanOrEqualTo(price, filter.maxPrice));
+        }
+        if (filter.scrapedSince != null) {
+            where.add(cb.greaterThanOrEqualTo(product.<Instant>get("scrapedAt"), filter.scrapedSince));
+        }
+
+        Cursor cursor = after == null || after.isBlank() ? null : Cursor.parse(after, order);
+        switch (order) {
+            case NEWEST:
+                if (cursor != null) {
+                    where.add(cb.lessThan(id, cursor.id));
+                }
+                query.orderBy(cb.desc(id));
+                break;
+            case PRICE_ASC:
+                where.add(cb.isNotNull(price));
+                if (cursor != null) {
+                    // The redundant bound lets the database start the price index range at the cursor
+                    where.add(cb.greaterThanOrEqualTo(price, cursor.price));
+                    where.add(cb.or(cb.greaterThan(price, cursor.price),
+                            cb.and(cb.equal(price, cursor.price), cb.greaterThan(id, cursor.id))));
+                }
+                query.orderBy(cb.asc(price), cb.asc(id));
+                break;
+            case PRICE_DESC:
+                where.add(cb.isNotNull(price));
+                if (cursor != null) {
+                    where.add(cb.lessThanOrEqualTo(price, cursor.price));
+                    where.add(cb.or(cb.lessThan(price, cursor.price),
+                            cb.and(cb.equal(price, cursor.price), cb.lessThan(id, cursor.id))));
+                }
+                query.orderBy(cb.desc(price), cb.desc(id));
+                break;
+            case OLDEST:
+            default:
+                if (cursor != null) {
+                    where.add(cb.greaterThan(id, cursor.id));
+                }
+                query.orderBy(cb.asc(id));
+                break;
+        }
+        query.select(product).where(where.toArray(new Predicate[0]));
+
+        List<Product> rows = entityManager.createQuery(query)
+                .setMaxResults(size)
+                .setHint(HINT_READONLY, true)
+                .getResultList();
+        String next = rows.size() < size ? null : Cursor.of(rows.get(rows.size() - 1), order);
+        return new BrowsePage(rows, next);
+    }
+
+    /** Sort key of the last row of a page: {@code id}, or {@code price_id} for price orders. */
+    private static final class Cursor {
+        private final BigDecimal price;
+        private final long id;
+
+        private Cursor(BigDecimal price, long id) {
+            this.price = price;
+            this.id = id;
+        }
+
+        static String of(Product last, Order order) {
+            boolean byPrice = order == Order.PRICE_ASC || order == Order.PRICE_DESC;
+            return byPrice ? last.getPrice().toPlainString() + "_" + last.getId() : String.valueOf(last.getId());
+        }
+
+        static Cursor parse(String text, Order order) {
+            boolean byPrice = order == Order.PRICE_ASC || order == Order.PRICE_DESC;
+            try {
+                if (!byPrice) {
+                    return new Cursor(null, Long.parseLong(text.trim()));
+                }
+                int split = text.lastIndexOf('_');
+                if (split > 0) {
+                    return new Cursor(new BigDecimal(text.substring(0, split).trim()),
+                            Long.parseLong(text.substring(split + 1).trim()));
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid cursor '" + text + "' for sort " + order.name().toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column storage behind {@link ProductIndex}: one row per indexed product instead of one
+ * {@link Product} object. Prices are cents and scrape times epoch microseconds in
+ * {@code long} columns, ratings a {@code float} column. Website, brand, category and the scheme-and-host part of both URLs repeat across
+ * thousands of rows, so they are codes into per-column dictionaries. The rest of a row's text
+ * is a single UTF-8 record in a chunked byte heap, which can live outside the Java heap.
+ * Products are rebuilt by {@link #product} only when one has to be returned.
+ * <p>
+ * Not thread-safe; the index guards writes with its lock. Reads use absolute positions only,
+ * so any number of readers can share the columns between writes.
+ */
+final class ProductColumns {
+
+    static final long NO_PRICE = Long.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_REVIEWS = Integer.MIN_VALUE;
+    private static final int NONE = -1;
+
+    // Text fields of a row's record, in record order
+    private static final int PRODUCT_KEY = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int IMAGE_PATH = 3;
+    private static final int PRODUCT_PATH = 4;
+    private static final int FIELDS = 5;
+
+    private final Dictionary websites = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+    // Shared by both URL columns: "https://i.ebayimg.com/" and the like
+    private final Dictionary origins = new Dictionary();
+    private final TextHeap text;
+
+    private long[] prices;
+    private long[] scrapedAts;
+    private float[] ratings;
+    private int[] reviewCounts;
+    private int[] websiteCodes;
+    private int[] brandCodes;
+    private int[] categoryCodes;
+    private int[] imageOrigins;
+    private int[] productOrigins;
+    // Address of each row's text record in the heap
+    private long[] records;
+    private int size;
+
+    // Reused while encoding a record; writes are single-threaded
+    private final byte[][] fieldBytes = new byte[FIELDS][];
+    private byte[] scratch = new byte[1024];
+
+    ProductColumns(int capacity, boolean offHeap) {
+        text = new TextHeap(offHeap);
+        prices = new long[capacity];
+        scrapedAts = new long[capacity];
+        ratings = new float[capacity];
+        reviewCounts = new int[capacity];
+        websiteCodes = new int[capacity];
+        brandCodes = new int[capacity];
+        categoryCodes = new int[capacity];
+        imageOrigins = new int[capacity];
+        productOrigins = new int[capacity];
+        records = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** @return the new row */
+    int add(Product product) {
+        int row = newRow();
+        prices[row] = product.getPrice() == null ? NO_PRICE : cents(product.getPrice());
+        scrapedAts[row] = product.getScrapedAt() == null ? NO_TIME : micros(product.getScrapedAt());
+        ratings[row] = product.getRating() == null ? Float.NaN : product.getRating().floatValue();
+        reviewCounts[row] = product.getReviewCount() == null ? NO_REVIEWS : product.getReviewCount();
+        websiteCodes[row] = websites.encode(product.getWebsite());
+        brandCodes[row] = brands.encode(product.getBrand());
+        categoryCodes[row] = categories.encode(product.getCategory());
+
+        String imageUrl = product.getImageUrl();
+        String productUrl = product.getProductUrl();
+        int imageSplit = originEnd(imageUrl);
+        int productSplit = originEnd(productUrl);
+        imageOrigins[row] = imageSplit == 0 ? NONE : origins.encode(imageUrl.substring(0, imageSplit));
+        productOrigins[row] = productSplit == 0 ? NONE : origins.encode(productUrl.substring(0, productSplit));
+
+        fieldBytes[PRODUCT_KEY] = utf8(product.getProductKey());
+        fieldBytes[NAME] = utf8(product.getName());
+        fieldBytes[DESCRIPTION] = utf8(product.getDescription());
+        fieldBytes[IMAGE_PATH] = imageUrl == null ? null : utf8(imageUrl.substring(imageSplit));
+        fieldBytes[PRODUCT_PATH] = productUrl == null ? null : utf8(productUrl.substring(productSplit));
+        records[row] = text.append(encodeRecord());
+        return row;
+    }
+
+    /**
+     * Appends a copy of another instance's row, for compaction. Codes are re-encoded so the
+     * new dictionaries only hold values that are still in use; the text record is copied as is.
+     *
+     * @return the new row
+     */
+    int copy(ProductColumns from, int fromRow) {
+        int row = newRow();
+        prices[row] = from.prices[fromRow];
+        scrapedAts[row] = from.scrapedAts[fromRow];
+        ratings[row] = from.ratings[fromRow];
+        reviewCounts[row] = from.reviewCounts[fromRow];
+        websiteCodes[row] = websites.encode(from.websites.decode(from.websiteCodes[fromRow]));
+        brandCodes[row] = brands.encode(from.brands.decode(from.brandCodes[fromRow]));
+        categoryCodes[row] = categories.encode(from.categories.decode(from.categoryCodes[fromRow]));
+        imageOrigins[row] = origins.encode(from.origins.decode(from.imageOrigins[fromRow]));
+        productOrigins[row] = origins.encode(from.origins.decode(from.productOrigins[fromRow]));
+        records[row] = text.append(from.text, from.records[fromRow]);
+        return row;
+    }
+
+    long price(int row) {
+        return prices[row];
+    }
+
+    String name(int row) {
+        return text.field(records[row], NAME);
+    }
+
+    String description(int row) {
+        return text.field(records[row], DESCRIPTION);
+    }
+
+    String productKey(int row) {
+        return text.field(records[row], PRODUCT_KEY);
+    }
+
+    String website(int row) {
+        return websites.decode(websiteCodes[row]);
+    }
+
+    String productUrl(int row) {
+        return url(productOrigins[row], text.field(records[row], PRODUCT_PATH));
+    }
+
+    /** Rows below {@code limit} whose website equals the given one, ignoring case. */
+    BitSet rowsOfWebsite(String website, int limit) {
+        BitSet codes = websites.codesIgnoringCase(website);
+        BitSet rows = new BitSet(limit);
+        if (!codes.isEmpty()) {
+            for (int row = 0; row < limit; row++) {
+                int code = websiteCodes[row];
+                if (code != NONE && codes.get(code)) {
+                    rows.set(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    boolean hasWebsite(int row, String website) {
+        String value = websites.decode(websiteCodes[row]);
+        return value != null && value.equalsIgnoreCase(website);
+    }
+
+    /** Rebuilds the row as a detached {@link Product}; the database id is not kept. */
+    Product product(int row) {
+        long record = records[row];
+        Product product = new Product();
+        product.setProductKey(text.field(record, PRODUCT_KEY));
+        product.setName(text.field(record, NAME));
+        product.setDescription(text.field(record, DESCRIPTION));
+        product.setPrice(prices[row] == NO_PRICE ? null : BigDecimal.valueOf(prices[row], 2));
+        product.setImageUrl(url(imageOrigins[row], text.field(record, IMAGE_PATH)));
+        product.setProductUrl(url(productOrigins[row], text.field(record, PRODUCT_PATH)));
+        product.setWebsite(websites.decode(websiteCodes[row]));
+        product.setCategory(categories.decode(categoryCodes[row]));
+        product.setBrand(brands.decode(brandCodes[row]));
+        // Through the float's shortest decimal form, so 4.3 comes back as 4.3
+        product.setRating(Float.isNaN(ratings[row]) ? null : Double.valueOf(Float.toString(ratings[row])));
+        product.setReviewCount(reviewCounts[row] == NO_REVIEWS ? null : reviewCounts[row]);
+        product.setScrapedAt(scrapedAts[row] == NO_TIME ? null
+                : Instant.EPOCH.plus(scrapedAts[row], ChronoUnit.MICROS));
+        return product;
+    }
+
+    /** Approximate footprint of the columns, dictionaries and text, in bytes. */
+    long estimatedBytes() {
+        // Seven 4-byte columns and three 8-byte ones per allocated row
+        long columns = (long) prices.length * (7 * 4 + 3 * 8);
+        return columns + text.allocatedBytes()
+                + websites.estimatedBytes() + brands.estimatedBytes() + categories.estimatedBytes() + origins.estimatedBytes();
+    }
+
+    Map<String, Long> stats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("rows", (long) size);
+        stats.put("textBytes", text.usedBytes());
+        stats.put("textBytesAllocated", text.allocatedBytes());
+        stats.put("offHeap", text.direct ? 1L : 0L);
+        stats.put("websites", (long) websites.size());
+        stats.put("brands", (long) brands.size());
+        stats.put("categories", (long) categories.size());
+        stats.put("urlOrigins", (long) origins.size());
+        stats.put("estimatedBytes", estimatedBytes());
+        return stats;
+    }
+
+    private int newRow() {
+        int row = size++;
+        if (row == prices.length) {
+            int capacity = row * 2;
+            prices = Arrays.copyOf(prices, capacity);
+            scrapedAts = Arrays.copyOf(scrapedAts, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            reviewCounts = Arrays.copyOf(reviewCounts, capacity);
+            websiteCodes = Arrays.copyOf(websiteCodes, capacity);
+            brandCodes = Arrays.copyOf(brandCodes, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            imageOrigins = Arrays.copyOf(imageOrigins, capacity);
+            productOrigins = Arrays.copyOf(productOrigins, capacity);
+            records = Arrays.copyOf(records, capacity);
+        }
+        return row;
+    }
+
+    /** Each field as a varint of its length plus one, 0 for null, followed by its bytes. */
+    private byte[] encodeRecord() {
+        int length = 0;
+        for (byte[] field : fieldBytes) {
+            length += 5 + (field == null ? 0 : field.length);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int position = 0;
+        for (byte[] field : fieldBytes) {
+            position = writeVarint(scratch, position, field == null ? 0 : field.length + 1);
+            if (field != null) {
+                System.arraycopy(field, 0, scratch, position, field.length);
+                position += field.length;
+            }
+        }
+        return Arrays.copyOf(scratch, position);
+    }
+
+    private static int writeVarint(byte[] out, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    private String url(int origin, String path) {
+        if (path == null) {
+            return null;
+        }
+        return origin == NONE ? path : origins.decode(origin).concat(path);
+    }
+
+    /** Length of the URL's {@code scheme://host/} prefix, 0 when it has none. */
+    static int originEnd(String url) {
+        if (url == null) {
+            return 0;
+        }
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return 0;
+        }
+        int slash = url.indexOf('/', scheme + 3);
+        return slash < 0 ? url.length() : slash + 1;
+    }
+
+    private static long micros(Instant time) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, time);
+    }
+
+    static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Distinct values of a low-cardinality column, each stored once and referred to by code. */
+    private static final class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        String decode(int code) {
+            return code == NONE ? null : values.get(code);
+        }
+
+        BitSet codesIgnoringCase(String value) {
+            BitSet matching = new BitSet(values.size());
+            for (int code = 0; code < values.size(); code++) {
+                if (values.get(code).equalsIgnoreCase(value)) {
+                    matching.set(code);
+                }
+            }
+            return matching;
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        long estimatedBytes() {
+            long bytes = 0;
+            for (String value : values) {
+                // String, its array and a map entry
+                bytes += 40 + value.length() + 48;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Append-only records in fixed-size chunks, on the heap or in direct buffers. A record
+     * never spans chunks; its address is the chunk index in the high int and the offset in
+     * the low one.
+     */
+    private static final class TextHeap {
+        private static final int CHUNK_SIZE = 1 << 20;
+
+        private final boolean direct;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private long used;
+
+        TextHeap(boolean direct) {
+            this.direct = direct;
+        }
+
+        long append(byte[] record) {
+            ByteBuffer chunk = chunkFor(record.length);
+            int offset = chunk.position();
+            chunk.put(record);
+            used += record.length;
+            return ((long) (chunks.size() - 1) << 32) | offset;
+        }
+
+        /** Copies a record from another heap. */
+        long append(TextHeap from, long address) {
+            ByteBuffer source = from.chunks.get((int) (address >>> 32));
+            int start = (int) address;
+            int end = start;
+            for (int field = 0; field < FIELDS; field++) {
+                long lengthAndEnd = readVarint(source, end);
+                int length = (int) (lengthAndEnd >>> 32);
+                end = (int) lengthAndEnd + Math.max(length - 1, 0);
+            }
+            byte[] record = new byte[end - start];
+            for (int i = 0; i < record.length; i++) {
+                record[i] = source.get(start + i);
+            }
+            return append(record);
+        }
+
+        /** Decodes one field of the record at the address, null when it was null. */
+        String field(long address, int field) {
+            ByteBuffer chunk = chunks.get((int) (address >>> 32));
+            int position = (int) address;
+            for (int i = 0; ; i++) {
+                long lengthAndEnd = readVarint(chunk, position);
+                int length = (int) (lengthAndEnd >>> 32);
+                position = (int) lengthAndEnd;
+                if (i == field) {
+                    return length == 0 ? null : decode(chunk, position, length - 1);
+                }
+                position += Math.max(length - 1, 0);
+            }
+        }
+
+        long usedBytes() {
+            return used;
+        }
+
+        long allocatedBytes() {
+            long bytes = 0;
+            for (ByteBuffer chunk : chunks) {
+                bytes += chunk.capacity();
+            }
+            return bytes;
+        }
+
+        private ByteBuffer chunkFor(int length) {
+            ByteBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (last != null && last.remaining() >= length) {
+                return last;
+            }
+            int capacity = Math.max(CHUNK_SIZE, length);
+            ByteBuffer chunk = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            chunks.add(chunk);
+            return chunk;
+        }
+
+        private static String decode(ByteBuffer chunk, int position, int length) {
+            if (chunk.hasArray()) {
+                return new String(chunk.array(), chunk.arrayOffset() + position, length, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = chunk.get(position + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /** @return the value in the high int and the position after it in the low one */
+        private static long readVarint(ByteBuffer chunk, int position) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = chunk.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return ((long) value << 32) | position;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over every product scraped since startup. Products get ascending
+ * document ids; name and description tokens map to posting lists of those ids, and a column
+ * of ids sorted by price answers range queries and price ordering without a full sort. A
+ * second column of ids sorted by name does the same for name ordering, so queries never
+ * decode names they do not return.
+ * Pages are indexed as scrapes deliver them. A product scraped again (same product key)
+ * replaces its earlier copy.
+ * <p>
+ * Documents are rows of {@link ProductColumns}, not {@link Product} objects; products are
+ * rebuilt only for the page of results being returned.
+ */
+@Component
+public class ProductIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductIndex.class);
+
+    private static final long NO_PRICE = ProductColumns.NO_PRICE;
+
+    public enum SortBy { NEWEST, PRICE_ASC, PRICE_DESC, NAME }
+
+    private static final Comparator<Named> BY_NAME = Comparator.comparing(
+            (Named named) -> named.name == null ? "" : named.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(named -> named.doc);
+
+    @Autowired
+    private ScraperProperties properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by lock
+    private ProductColumns columns;
+    private int size;
+    private final BitSet live = new BitSet();
+    private int liveCount;
+    private final KeyTable byKey = new KeyTable();
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    // Ids of priced documents ordered by price, then id; removed documents linger until compaction.
+    // Both sorted columns keep spare capacity past their used length, so pages merge in place
+    private int[] byPrice = new int[1024];
+    private int pricedCount;
+    private final IntList unpriced = new IntList();
+    // Ids of all documents ordered by name, case-insensitively, then id; removed ones linger too
+    private int[] byName = new int[1024];
+    private int namedCount;
+    // Bumped by every compaction, which renumbers documents
+    private int generation;
+
+    @PostConstruct
+    void init() {
+        columns = new ProductColumns(1024, properties.getIndex().isOffHeap());
+    }
+
+    /**
+     * Wraps the listener so every delivered page is also indexed.
+     * Returns the listener unchanged when the index is disabled.
+     */
+    public ScrapeListener indexing(ScrapeListener listener) {
+        if (!properties.getIndex().isEnabled()) {
+            return listener;
+        }
+        return (page, products) -> {
+            listener.onPage(page, products);
+            addAll(products);
+        };
+    }
+
+    public void addAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            IntList added = new IntList();
+            for (Product product : products) {
+                add(product, added);
+            }
+            mergeIntoPriceColumn(added);
+            mergeIntoNameColumn(added);
+
+            int max = properties.getIndex().getMaxProducts();
+            for (int doc = live.nextSetBit(0); liveCount > max && doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                remove(doc);
+            }
+            // Removal only clears the live bit; rebuild once dead documents outnumber live ones
+            if (size > 1024 && size - liveCount > liveCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Live products, stored documents and the columns' footprint. */
+    public Map<String, Long> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> stats = new TreeMap<>(columns.stats());
+            stats.put("products", (long) liveCount);
+            stats.put("documents", (long) size);
+            stats.put("terms", (long) postings.size());
+            stats.put("estimatedBytesPerProduct", liveCount == 0 ? 0 : columns.estimatedBytes() / liveCount);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the next live products, oldest first, into {@code out} and advances the cursor,
+     * so exports can walk the whole index while holding the lock for one chunk at a time.
+     * After a compaction the walk continues behind the last product it returned; should that
+     * product have been dropped meanwhile, some products may be skipped.
+     *
+     * @param website case-insensitive exact match, null for all
+     * @return false once the cursor is past the last product
+     */
+    public boolean scan(ScanCursor cursor, String website, int max, List<Product> out) {
+        lock.readLock().lock();
+        try {
+            if (cursor.generation != generation) {
+                int doc = cursor.lastKey == null ? -1 : byKey.get(cursor.lastKey);
+                cursor.nextDoc = doc >= 0 ? doc + 1 : Math.min(cursor.nextDoc, size);
+                cursor.generation = generation;
+            }
+            int doc = live.nextSetBit(cursor.nextDoc);
+            for (; doc >= 0 && out.size() < max; doc = live.nextSetBit(doc + 1)) {
+                if (website == null || columns.hasWebsite(doc, website)) {
+                    out.add(columns.product(doc));
+                    cursor.lastKey = key(doc);
+                }
+            }
+            cursor.nextDoc = doc < 0 ? size : doc;
+            return doc >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param keywords  every word must occur in the name or description; the last one also matches as a prefix
+     * @param minPrice  inclusive, null for no lower bound; products without a price never match a bound
+     * @param maxPrice  inclusive, null for no upper bound
+     * @param website   case-insensitive exact match, null for all
+     */
+    public Page<Product> search(String keywords, BigDecimal minPrice, BigDecimal maxPrice, String website,
+                                SortBy sortBy, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(keywords, website);
+            boolean priceBounded = minPrice != null || maxPrice != null;
+            long min = minPrice == null ? NO_PRICE + 1 : cents(minPrice);
+            long max = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice);
+            Collector page = new Collector(pageable);
+
+            switch (sortBy) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    int from = lowerBound(min);
+                    int to = lowerBound(max == Long.MAX_VALUE ? max : max + 1);
+                    boolean ascending = sortBy == SortBy.PRICE_ASC;
+                    for (int i = 0; i < to - from; i++) {
+                        int doc = byPrice[ascending ? from + i : to - 1 - i];
+                        if (matches(doc, candidates)) {
+                            page.offer(doc);
+                        }
+                    }
+                    if (!priceBounded) {
+                        // Products without a price go last in either direction
+                        for (int i = 0; i < unpriced.size; i++) {
+                            if (matches(unpriced.values[i], candidates)) {
+                                page.offer(unpriced.values[i]);
+                            }
+                        }
+                    }
+                    break;
+                case NAME:
+                    for (int i = 0; i < namedCount; i++) {
+                        int doc = byName[i];
+                        if (matches(doc, candidates) && inRange(doc, priceBounded, min, max)) {
+                            page.offer(doc);
+                        }
+                    }
+                    break;
+                default:
+                    BitSet newest = candidates == null ? live : candidates;
+                    for (int doc = newest.previousSetBit(size - 1); doc >= 0; doc = newest.previousSetBit(doc - 1)) {
+                        if (live.get(doc) && inRange(doc, priceBounded, min, max)) {
+                            page.offer(doc);
+                        }
+                    }
+            }
+            return page.toPage(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Documents matching every keyword and the website, or null when there is no such filter. */
+    private BitSet candidates(String keywords, String website) {
+        BitSet candidates = null;
+        List<String> tokens = tokenize(keywords);
+        for (int i = 0; i < tokens.size(); i++) {
+            BitSet matches = new BitSet(size);
+            if (i == tokens.size() - 1) {
+                String prefix = tokens.get(i);
+                postings.subMap(prefix, prefix + Character.MAX_VALUE).values().forEach(list -> list.setAll(matches));
+            } else {
+                IntList list = postings.get(tokens.get(i));
+                if (list != null) {
+                    list.setAll(matches);
+                }
+            }
+            candidates = and(candidates, matches);
+        }
+        if (website != null && !website.isBlank()) {
+            candidates = and(candidates, columns.rowsOfWebsite(website.trim(), size));
+        }
+        return candidates;
+    }
+
+    private boolean matches(int doc, BitSet candidates) {
+        return live.get(doc) && (candidates == null || candidates.get(doc));
+    }
+
+    private boolean inRange(int doc, boolean priceBounded, long min, long max) {
+        long price = columns.price(doc);
+        return !priceBounded || (price != NO_PRICE && price >= min && price <= max);
+    }
+
+    /** First position in the price column whose price is at least the given one. */
+    private int lowerBound(long price) {
+        int low = 0;
+        int high = pricedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (columns.price(byPrice[mid]) < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void add(Product product, IntList added) {
+        int previous = byKey.get(key(product));
+        if (previous >= 0) {
+            remove(previous);
+        }
+        int doc = columns.add(product);
+        size = columns.size();
+        index(doc, added);
+    }
+
+    /** Makes a document that was just stored in the columns searchable. */
+    private void index(int doc, IntList added) {
+        live.set(doc);
+        liveCount++;
+        byKey.put(key(doc), doc);
+
+        Set<String> tokens = new HashSet<>(tokenize(columns.name(doc)));
+        tokens.addAll(tokenize(columns.description(doc)));
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new IntList()).add(doc);
+        }
+        if (columns.price(doc) == NO_PRICE) {
+            unpriced.add(doc);
+        }
+        added.add(doc);
+    }
+
+    private void remove(int doc) {
+        if (live.get(doc)) {
+            live.clear(doc);
+            liveCount--;
+            byKey.remove(key(doc), doc);
+        }
+    }
+
+    /**
+     * Sorts the page's new priced documents and merges them into the price column from the
+     * back, in place, so only the stored ids priced above the page's cheapest one move.
+     */
+    private void mergeIntoPriceColumn(IntList added) {
+        int priced = 0;
+        for (int i = 0; i < added.size; i++) {
+            if (columns.price(added.values[i]) != NO_PRICE) {
+                priced++;
+            }
+        }
+        if (priced == 0) {
+            return;
+        }
+        Integer[] fresh = new Integer[priced];
+        for (int i = 0, j = 0; i < added.size; i++) {
+            if (columns.price(added.values[i]) != NO_PRICE) {
+                fresh[j++] = added.values[i];
+            }
+        }
+        Arrays.sort(fresh, (a, b) -> comparePrice(a, b));
+
+        byPrice = reserve(byPrice, pricedCount + fresh.length);
+        int i = pricedCount - 1;
+        int j = fresh.length - 1;
+        int k = pricedCount + fresh.length - 1;
+        while (j >= 0) {
+            byPrice[k--] = i >= 0 && comparePrice(byPrice[i], fresh[j]) > 0 ? byPrice[i--] : fresh[j--];
+        }
+        pricedCount += fresh.length;
+    }
+
+    private int comparePrice(int a, int b) {
+        int byAmount = Long.compare(columns.price(a), columns.price(b));
+        return byAmount != 0 ? byAmount : Integer.compare(a, b);
+    }
+
+    /**
+     * Sorts the page's new documents by name and inserts them into the name column in place,
+     * from the back, so only the stored ids past the first insertion point move. Each insertion
+     * point is found by binary search, so only about log n stored names are decoded per new
+     * document.
+     */
+    private void mergeIntoNameColumn(IntList added) {
+        if (added.size == 0) {
+            return;
+        }
+        Named[] fresh = new Named[added.size];
+        for (int i = 0; i < added.size; i++) {
+            fresh[i] = new Named(columns.name(added.values[i]), added.values[i]);
+        }
+        Arrays.sort(fresh, BY_NAME);
+
+        byName = reserve(byName, namedCount + fresh.length);
+        int end = namedCount;
+        for (int j = fresh.length - 1; j >= 0; j--) {
+            int at = nameBound(fresh[j], end);
+            // Stored ids from the insertion point on move up past the new ones still to insert
+            System.arraycopy(byName, at, byName, at + j + 1, end - at);
+            byName[at + j] = fresh[j].doc;
+            end = at;
+        }
+        namedCount += fresh.length;
+    }
+
+    /** First position before {@code to} whose document sorts after the given one. */
+    private int nameBound(Named named, int to) {
+        int low = 0;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BY_NAME.compare(new Named(columns.name(byName[mid]), byName[mid]), named) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** The column itself if it can hold {@code length} ids, else a copy with room to spare. */
+    private static int[] reserve(int[] column, int length) {
+        return length <= column.length ? column : Arrays.copyOf(column, Math.max(length, column.length * 2));
+    }
+
+    /** Copies the live documents into fresh columns and rebuilds every structure from them. */
+    private void compact() {
+        ProductColumns previous = columns;
+        int capacity = Math.max(1024, liveCount * 2);
+        columns = new ProductColumns(capacity, properties.getIndex().isOffHeap());
+        BitSet survivors = (BitSet) live.clone();
+        size = 0;
+        live.clear();
+        liveCount = 0;
+        byKey.clear();
+        postings.clear();
+        byPrice = new int[capacity];
+        pricedCount = 0;
+        unpriced.size = 0;
+        byName = new int[capacity];
+        namedCount = 0;
+
+        IntList added = new IntList();
+        for (int doc = survivors.nextSetBit(0); doc >= 0; doc = survivors.nextSetBit(doc + 1)) {
+            index(columns.copy(previous, doc), added);
+        }
+        size = columns.size();
+        mergeIntoPriceColumn(added);
+        mergeIntoNameColumn(added);
+        generation++;
+        logger.debug("Compacted product index to {} products", liveCount);
+    }
+
+    private static String key(Product product) {
+        if (product.getProductKey() != null) {
+            return product.getProductKey();
+        }
+        return product.getWebsite() + '|' + (product.getProductUrl() != null ? product.getProductUrl() : product.getName());
+    }
+
+    /** The same key as {@link #key(Product)}, read from the columns. */
+    private String key(int doc) {
+        String productKey = columns.productKey(doc);
+        if (productKey != null) {
+            return productKey;
+        }
+        String productUrl = columns.productUrl(doc);
+        return columns.website(doc) + '|' + (productUrl != null ? productUrl : columns.name(doc));
+    }
+
+    private static long cents(BigDecimal price) {
+        return ProductColumns.cents(price);
+    }
+
+    /** Lower-cased runs of letters and digits. */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static BitSet and(BitSet candidates, BitSet matches) {
+        if (candidates == null) {
+            return matches;
+        }
+        candidates.and(matches);
+        return candidates;
+    }
+
+    /** Position of a {@link #scan} walk. */
+    public static final class ScanCursor {
+        private int nextDoc;
+        private int generation;
+        private String lastKey;
+    }
+
+    /** Counts every match and keeps only the requested page of them. */
+    private static final class Collector {
+        private final Pageable pageable;
+        private final IntList docs = new IntList();
+        private int total;
+
+        Collector(Pageable pageable) {
+            this.pageable = pageable;
+        }
+
+        void offer(int doc) {
+            if (total >= pageable.getOffset() && docs.size < pageable.getPageSize()) {
+                docs.add(doc);
+            }
+            total++;
+        }
+
+        Page<Product> toPage(ProductColumns columns) {
+            List<Product> content = new ArrayList<>(docs.size);
+            for (int i = 0; i < docs.size; i++) {
+                content.add(columns.product(docs.values[i]));
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+    }
+
+    /** A document and its decoded name while it is merged into the name column. */
+    private static final class Named {
+        private final String name;
+        private final int doc;
+
+        Named(String name, int doc) {
+            this.name = name;
+            this.doc = doc;
+        }
+    }
+
+    /**
+     * Map from product key to document holding only ints: keys are not stored, a probe reads
+     * the candidate document's key back from the columns. Open addressing with linear probing;
+     * removed slots are reused on insert and dropped when the table is rebuilt.
+     */
+    private final class KeyTable {
+        private static final int EMPTY = 0;
+        private static final int REMOVED = -1;
+
+        // Document + 1, or EMPTY / REMOVED
+        private int[] slots = new int[1024];
+        private int[] hashes = new int[1024];
+        // Slots that are not EMPTY
+        private int used;
+
+        /** @return the document, or -1 */
+        int get(String key) {
+            int hash = hash(key);
+            int mask = slots.length - 1;
+            for (int i = hash & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (slots[i] > 0 && hashes[i] == hash && key.equals(key(slots[i] - 1))) {
+                    return slots[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /** Callers remove any earlier document of the key first. */
+        void put(String key, int doc) {
+            if ((used + 1) * 4 > slots.length * 3) {
+                rehash();
+            }
+            int hash = hash(key);
+            int mask = slots.length - 1;
+            int i = hash & mask;
+            while (slots[i] > 0) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == EMPTY) {
+                used++;
+            }
+            slots[i] = doc + 1;
+            hashes[i] = hash;
+        }
+
+        void remove(String key, int doc) {
+            int mask = slots.length - 1;
+            for (int i = hash(key) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (slots[i] == doc + 1) {
+                    slots[i] = REMOVED;
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(slots, EMPTY);
+            used = 0;
+        }
+
+        /** Rebuilds without removed slots, doubling the capacity when most slots are live. */
+        private void rehash() {
+            int[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            int live = 0;
+            for (int slot : oldSlots) {
+                if (slot > 0) {
+                    live++;
+                }
+            }
+            int capacity = live * 2 > oldSlots.length ? oldSlots.length * 2 : oldSlots.length;
+            slots = new int[capacity];
+            hashes = new int[capacity];
+            used = 0;
+            int mask = capacity - 1;
+            for (int j = 0; j < oldSlots.length; j++) {
+                if (oldSlots[j] > 0) {
+                    int i = oldHashes[j] & mask;
+                    while (slots[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = oldSlots[j];
+                    hashes[i] = oldHashes[j];
+                    used++;
+                }
+            }
+        }
+
+        private int hash(String key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /** Growable list of document ids, ascending because ids are only ever appended. */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void setAll(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(values[i]);
+            }
+        }
+    }
+}
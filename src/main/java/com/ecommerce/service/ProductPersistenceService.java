@@ -0,0 +1,255 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in persistence stage for scraped products. Scrapes hand pages to a bounded queue
+ * and return immediately; a single writer thread drains it and writes in JDBC batches.
+ * The table holds one row per product: a product scraped again (same product key) updates
+ * its stored row, so repeated scrapes, crawls and monitor runs do not pile up duplicates.
+ * Price changes over time are kept by {@link PriceMonitorService}'s history instead.
+ */
+@Service
+public class ProductPersistenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPersistenceService.class);
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScrapeMetrics metrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AtomicLong persistedRows = new AtomicLong();
+    private final AtomicLong droppedRows = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    private BlockingQueue<List<Product>> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        ScraperProperties.Persistence config = properties.getPersistence();
+        if (!config.isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        writer = new Thread(this::drain, "product-writer");
+        writer.setDaemon(true);
+        writer.start();
+        metrics.persistence(this);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * Wraps the listener so every delivered page is stamped with its scrape time and also
+     * queued for persistence. Returns the listener unchanged when persistence is disabled.
+     */
+    public ScrapeListener persisting(ScrapeListener listener) {
+        if (!isEnabled()) {
+            return listener;
+        }
+        return (page, products) -> {
+            Instant scrapedAt = Instant.now();
+            for (Product product : products) {
+                product.setScrapedAt(scrapedAt);
+            }
+            listener.onPage(page, products);
+            enqueue(products);
+        };
+    }
+
+    /**
+     * Queues copies of the products, so the writer assigns ids to its own instances rather
+     * than to ones the scrape's other listeners may still be reading.
+     */
+    public void enqueue(List<Product> products) {
+        List<Product> copies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            copies.add(copyOf(product));
+        }
+        // Never block the scrape on the database; a full queue means the writer is behind
+        if (!queue.offer(copies)) {
+            long dropped = droppedRows.addAndGet(products.size());
+            logger.warn("Persistence queue full, dropped {} products ({} total)", products.size(), dropped);
+        }
+    }
+
+    public long getPersistedRows() {
+        return persistedRows.get();
+    }
+
+    public long getDroppedRows() {
+        return droppedRows.get();
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = writeNanos.get();
+        return nanos == 0 ? 0 : persistedRows.get() * 1_000_000_000d / nanos;
+    }
+
+    /** Every column but the id, which the writer's persist assigns. */
+    private static Product copyOf(Product product) {
+        Product copy = new Product();
+        copy.setProductKey(product.getProductKey());
+        copyInto(product, copy);
+        return copy;
+    }
+
+    /** Everything a new scrape can change about a stored product. */
+    private static void copyInto(Product product, Product copy) {
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setImageUrl(product.getImageUrl());
+        copy.setProductUrl(product.getProductUrl());
+        copy.setWebsite(product.getWebsite());
+        copy.setCategory(product.getCategory());
+        copy.setBrand(product.getBrand());
+        copy.setRating(product.getRating());
+        copy.setReviewCount(product.getReviewCount());
+        copy.setScrapedAt(product.getScrapedAt());
+    }
+
+    private void drain() {
+        int batchSize = properties.getPersistence().getBatchSize();
+        List<List<Product>> pages = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                List<Product> first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pages.add(first);
+                queue.drainTo(pages);
+                write(pages, batchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Error persisting scraped products: {}", e.getMessage());
+            } finally {
+                pages.clear();
+            }
+        }
+    }
+
+    private void write(List<List<Product>> pages, int batchSize) {
+        long start = System.nanoTime();
+        int rows;
+        try {
+            rows = transactionTemplate.execute(status -> upsert(pages, batchSize));
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted one of the keys first; its row is found on the second try
+            logger.debug("Retrying product batch after a concurrent insert: {}", e.getMessage());
+            // The rolled back inserts left ids on the products
+            pages.forEach(page -> page.forEach(product -> product.setId(null)));
+            rows = transactionTemplate.execute(status -> upsert(pages, batchSize));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        persistedRows.addAndGet(rows);
+        writeNanos.addAndGet(elapsed);
+        logger.info("Persisted {} products in {} ms ({} rows/s overall)",
+                rows, TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(getRowsPerSecond()));
+    }
+
+    /**
+     * Inserts new products and updates the stored row of known ones, a batch at a time: one
+     * query finds the batch's stored keys, then the inserts and updates go out as JDBC batches.
+     */
+    private int upsert(List<List<Product>> pages, int batchSize) {
+        List<Product> batch = new ArrayList<>(batchSize);
+        int count = 0;
+        for (List<Product> page : pages) {
+            for (Product product : page) {
+                batch.add(product);
+                if (batch.size() == batchSize) {
+                    count += upsertBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += upsertBatch(batch);
+        }
+        return count;
+    }
+
+    private int upsertBatch(List<Product> batch) {
+        Set<String> keys = new HashSet<>();
+        for (Product product : batch) {
+            if (product.getProductKey() != null) {
+                keys.add(product.getProductKey());
+            }
+        }
+        Map<String, Product> stored = new HashMap<>();
+        if (!keys.isEmpty()) {
+            entityManager.createQuery("SELECT p FROM Product p WHERE p.productKey IN :keys", Product.class)
+                    .setParameter("keys", keys)
+                    .getResultList()
+                    .forEach(product -> stored.put(product.getProductKey(), product));
+        }
+        for (Product product : batch) {
+            Product existing = product.getProductKey() == null ? null : stored.get(product.getProductKey());
+            if (existing != null) {
+                // Managed, so the flush writes the changed columns as an update
+                copyInto(product, existing);
+            } else {
+                entityManager.persist(product);
+                if (product.getProductKey() != null) {
+                    // A key repeated later in the batch updates this row rather than inserting another
+                    stored.put(product.getProductKey(), product);
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return batch.size();
+    }
+}
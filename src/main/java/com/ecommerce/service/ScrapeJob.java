@@ -0,0 +1,111 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory state of an asynchronous scrape. Written by a single worker thread and read
+ * by status/result requests, so progress fields are volatile and the product list is
+ * guarded by its own monitor.
+ */
+public class ScrapeJob implements ScrapeListener {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String url;
+    private final Instant createdAt = Instant.now();
+    private final List<Product> products = new ArrayList<>();
+    private final PriceStats priceStats;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int pagesDone;
+    private volatile int productCount;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    public ScrapeJob(String url, PriceStats priceStats) {
+        this.url = url;
+        this.priceStats = priceStats;
+    }
+
+    @Override
+    public void onPage(int page, List<Product> pageProducts) {
+        synchronized (products) {
+            products.addAll(pageProducts);
+            productCount = products.size();
+        }
+        priceStats.addAll(pageProducts);
+        pagesDone++;
+    }
+
+    void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    void markCompleted() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public List<Product> getProducts(int offset, int limit) {
+        synchronized (products) {
+            int from = Math.min(offset, products.size());
+            int to = Math.min(from + limit, products.size());
+            return new ArrayList<>(products.subList(from, to));
+        }
+    }
+
+    /** Price statistics of the products extracted so far. */
+    public PriceStats.Snapshot getPriceStats() {
+        return priceStats.snapshot();
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getPagesDone() {
+        return pagesDone;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs scrapes on the bounded job pool and keeps their state in memory until the TTL
+ * after completion expires.
+ */
+@Service
+public class ScrapeJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScrapeJobService.class);
+
+    private final ConcurrentMap<String, ScrapeJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    private PriceStatsService priceStats;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    @Qualifier("scrapeJobExecutor")
+    private ExecutorService scrapeJobExecutor;
+
+    /**
+     * Queues a scrape and returns immediately.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public ScrapeJob submit(String url) {
+        ScrapeJob job = new ScrapeJob(url, priceStats.newStats());
+        jobs.put(job.getId(), job);
+        try {
+            scrapeJobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info("Queued scrape job {} for URL: {}", job.getId(), url);
+        return job;
+    }
+
+    /**
+     * Runs a scrape on the job pool without tracking it, streaming pages to the listener.
+     *
+     * @return the eventual product count
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public CompletableFuture<Integer> scrapeAsync(String url, ScrapeListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return webScraperService.scrapeWebsite(url, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, scrapeJobExecutor);
+    }
+
+    public Optional<ScrapeJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(ScrapeJob job) {
+        job.markRunning();
+        try {
+            webScraperService.scrapeWebsite(job.getUrl(), job);
+            job.markCompleted();
+            logger.info("Scrape job {} completed with {} products", job.getId(), job.getProductCount());
+        } catch (Exception e) {
+            logger.error("Scrape job {} failed: {}", job.getId(), e.getMessage());
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.jobs.eviction-interval:60000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(properties.getJobs().getTtl());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.util.List;
+
+/**
+ * Receives a scrape's products page by page, in page order, as soon as each page is extracted.
+ */
+@FunctionalInterface
+public interface ScrapeListener {
+
+    ScrapeListener NONE = (page, products) -> { };
+
+    void onPage(int page, List<Product> products);
+}
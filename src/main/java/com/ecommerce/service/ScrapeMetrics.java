@@ -0,0 +1,158 @@
+package com.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for the scrape pipeline, exposed at {@code /actuator/prometheus}.
+ * Meters are tagged with the extractor's site name rather than the raw host, so arbitrary
+ * user-supplied URLs cannot blow up the number of time series. Everything is recorded per
+ * response, page or scrape, never per product.
+ */
+@Component
+public class ScrapeMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final ConcurrentMap<String, AtomicInteger> activeScrapes = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttfbNanos request sent until response headers arrived, including DNS, connect and
+     *                  TLS when no pooled connection was available
+     */
+    public void recordFetch(String site, int status, long ttfbNanos, long downloadNanos, int bytes) {
+        Timer.builder("scraper.fetch.ttfb")
+                .description("Time to first byte of a page response")
+                .tag("site", site)
+                .register(registry)
+                .record(ttfbNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("scraper.fetch.download")
+                .description("Time to read and decode a page body")
+                .tag("site", site)
+                .register(registry)
+                .record(downloadNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("scraper.fetch.body")
+                .baseUnit("bytes")
+                .tag("site", site)
+                .register(registry)
+                .record(bytes);
+        Counter.builder("scraper.fetch.responses")
+                .tag("site", site)
+                .tag("status", Integer.toString(status))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * @param nanos parse and extraction together; streaming extraction interleaves the two
+     */
+    public void recordPage(String site, long nanos, int products) {
+        Timer.builder("scraper.page.extract")
+                .description("Time to turn a fetched page body into products")
+                .tag("site", site)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("scraper.page.products")
+                .tag("site", site)
+                .register(registry)
+                .record(products);
+    }
+
+    /**
+     * @param reason {@code captcha} when a block page was served, the status ({@code 403},
+     *               {@code 429} or {@code 503}) when the site pushed back, {@code circuit_open}
+     *               when the host's circuit breaker refused the request
+     */
+    public void recordBlocked(String site, String reason) {
+        Counter.builder("scraper.blocked")
+                .tag("site", site)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordScrape(String site, String outcome, long nanos, int pages, int products) {
+        Timer.builder("scraper.scrape")
+                .tag("site", site)
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("scraper.scrape.pages")
+                .tag("site", site)
+                .register(registry)
+                .record(pages);
+        DistributionSummary.builder("scraper.scrape.products")
+                .tag("site", site)
+                .register(registry)
+                .record(products);
+    }
+
+    /** Counter behind the {@code scraper.scrapes.active} gauge for the site. */
+    public AtomicInteger activeScrapes(String site) {
+        return activeScrapes.computeIfAbsent(site, key -> {
+            AtomicInteger active = new AtomicInteger();
+            Gauge.builder("scraper.scrapes.active", active, AtomicInteger::get)
+                    .description("Scrapes currently in progress")
+                    .tag("site", key)
+                    .register(registry);
+            return active;
+        });
+    }
+
+    /** Registers the {@code scraper.extraction.queued} gauge. */
+    public void extractionQueue(ExtractionStage stage) {
+        Gauge.builder("scraper.extraction.queued", stage, ExtractionStage::queued)
+                .description("Fetched pages waiting for or in extraction")
+                .register(registry);
+    }
+
+    /** Registers the {@code scraper.cache.*} meters of the page cache. */
+    public void pageCache(PageCache cache) {
+        FunctionCounter.builder("scraper.cache.hits", cache, PageCache::getHits)
+                .description("Pages served from the cache without a request")
+                .register(registry);
+        FunctionCounter.builder("scraper.cache.misses", cache, PageCache::getMisses)
+                .description("Pages fetched in full and stored")
+                .register(registry);
+        FunctionCounter.builder("scraper.cache.revalidations", cache, PageCache::getRevalidations)
+                .description("Stale pages the host confirmed unchanged with a 304")
+                .register(registry);
+        FunctionCounter.builder("scraper.cache.coalesced", cache, PageCache::getCoalesced)
+                .description("Fetches that shared another caller's in-flight request")
+                .register(registry);
+        FunctionCounter.builder("scraper.cache.saved", cache, PageCache::getBytesSaved)
+                .description("Body bytes not downloaded thanks to hits and revalidations")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("scraper.cache.stored", cache, PageCache::getStoredBytes)
+                .description("Compressed page bytes held in the cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /** Registers the {@code scraper.persistence.*} meters of the database writer. */
+    public void persistence(ProductPersistenceService persistence) {
+        FunctionCounter.builder("scraper.persistence.rows", persistence, ProductPersistenceService::getPersistedRows)
+                .description("Products written to the database")
+                .register(registry);
+        FunctionCounter.builder("scraper.persistence.dropped", persistence, ProductPersistenceService::getDroppedRows)
+                .description("Products dropped because the persistence queue was full")
+                .register(registry);
+        Gauge.builder("scraper.persistence.throughput", persistence, ProductPersistenceService::getRowsPerSecond)
+                .description("Rows written per second the writer spent in transactions")
+                .baseUnit("rows")
+                .register(registry);
+    }
+}
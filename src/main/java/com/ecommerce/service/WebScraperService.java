@@ -1,18 +1,26 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.exception.CircuitOpenException;
+import com.ecommerce.exception.FetchStatusException;
+import com.ecommerce.exception.SiteBlockedException;
 import com.ecommerce.model.Product;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.ecommerce.service.extractor.SiteExtractor;
+import com.ecommerce.service.extractor.SiteExtractorRegistry;
+import org.jsoup.HttpStatusException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,416 +28,298 @@ import java.util.regex.Pattern;
 public class WebScraperService {
     
     private static final Logger logger = LoggerFactory.getLogger(WebScraperService.class);
+
+    private static final Pattern DOMAIN_PATTERN = Pattern.compile("https?://(?:www\\.)?([^/:?#]+)");
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private PaginatedFetcher paginatedFetcher;
+
+    @Autowired
+    private ProductPersistenceService productPersistence;
+
+    @Autowired
+    private ProductIndex productIndex;
+
+    @Autowired
+    private PriceStatsService priceStats;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private ExtractionStage extractionStage;
+
+    @Autowired
+    private SiteExtractorRegistry extractorRegistry;
+
+    @Autowired
+    private ScrapeMetrics metrics;
+
+    @Autowired
+    private HostRateLimiter rateLimiter;
     
     public List<Product> scrapeWebsite(String url) throws IOException {
         List<Product> products = new ArrayList<>();
+        scrapeWebsite(url, (page, pageProducts) -> products.addAll(pageProducts));
+        return products;
+    }
+
+    /**
+     * Scrapes the URL and delivers products to the listener page by page without retaining them.
+     *
+     * @return the number of products delivered
+     */
+    public int scrapeWebsite(String url, ScrapeListener listener) throws IOException {
+        return scrapeWebsite(url, listener, PageFilter.NONE);
+    }
+
+    /**
+     * Variant that lets the filter skip extraction of pages it has already seen; skipped
+     * pages deliver nothing to the listener.
+     *
+     * @return the number of products delivered
+     */
+    public int scrapeWebsite(String url, ScrapeListener listener, PageFilter filter) throws IOException {
+        listener = priceStats.aggregating(productIndex.indexing(productPersistence.persisting(listener)));
         logger.info("Attempting to scrape URL: {}", url);
-        
+
+        String domain = extractDomain(url);
+        SiteExtractor extractor = extractorRegistry.resolve(domain);
+        String site = extractor.website().toLowerCase(Locale.ROOT);
+        logger.info("Detected domain: {} ({})", domain, extractor.website());
+
+        long start = System.nanoTime();
+        AtomicInteger pages = new AtomicInteger();
+        AtomicBoolean blocked = new AtomicBoolean();
+        AtomicInteger unchangedPages = new AtomicInteger();
+        PaginatedFetcher.PageExtractor pageExtractor = (page, fetched) -> {
+            int unchanged = filter.unchanged(page, fetched);
+            if (unchanged >= 0) {
+                unchangedPages.incrementAndGet();
+                if (fetched.isFromNetwork()) {
+                    rateLimiter.onSuccess(domain);
+                }
+                return PageResult.unchanged(unchanged);
+            }
+            PageResult result = extractPage(page, fetched, domain, site, extractor, blocked);
+            pages.incrementAndGet();
+            return result;
+        };
+
+        AtomicInteger active = metrics.activeScrapes(site);
+        active.incrementAndGet();
+        int productCount = 0;
+        String outcome = "failure";
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8")
-                    .header("Accept-Language", "en-US,en;q=0.5")
-                    .header("Accept-Encoding", "gzip, deflate, br")
-                    .header("DNT", "1")
-                    .header("Connection", "keep-alive")
-                    .header("Upgrade-Insecure-Requests", "1")
-                    .referrer("https://www.google.com")
-                    .timeout(30000)
-                    .followRedirects(true)
-                    .maxBodySize(0)
-                    .ignoreHttpErrors(true)
-                    .get();
-
-            if (doc.connection().response().statusCode() == 403) {
-                logger.error("Access forbidden (403) - Website blocking scraping attempts");
-                throw new IOException("This website is blocking automated access. Try a different website or use their official API if available.");
+            FetchedPage firstPage = awaitAndFetch(url, domain, site, extractor, blocked);
+
+            String pageParameter = extractor.pageParameter();
+            if (pageParameter == null) {
+                PageResult result = extractionStage.extract(1, firstPage, pageExtractor);
+                productCount = singlePage(result, listener);
+                filter.finished(1, !result.isBlocked());
+            } else {
+                String baseUrl = firstPage.getUrl();
+                PaginatedFetcher.Walk walk = paginatedFetcher.fetchAll(domain, firstPage,
+                        page -> baseUrl + (baseUrl.contains("?") ? "&" : "?") + pageParameter + "=" + page,
+                        pageUrl -> fetchPage(pageUrl, domain, site, extractor, blocked), pageExtractor, listener);
+                if (walk.getFailure() instanceof CircuitOpenException) {
+                    onCircuitOpen(site, blocked);
+                }
+                productCount = walk.getProducts();
+                filter.finished(walk.getPages(), walk.isComplete());
             }
 
-            String domain = extractDomain(url);
-            logger.info("Detected domain: {}", domain);
-            
-            switch (domain.toLowerCase()) {
-                case "meesho.com":
-                    products.addAll(scrapeMeesho(doc));
-                    break;
-                case "amazon.com":
-                    products.addAll(scrapeAmazon(doc));
-                    break;
-                case "walmart.com":
-                    products.addAll(scrapeWalmart(doc));
-                    break;
-                case "ebay.com":
-                    products.addAll(scrapeEbay(doc));
-                    break;
-                default:
-                    products.addAll(scrapeGeneric(doc));
+            if (productCount == 0 && unchangedPages.get() == 0 && extractor.emptyResultMessage() != null) {
+                throw new IOException(extractor.emptyResultMessage());
             }
-            
-            logger.info("Successfully scraped {} products", products.size());
-            return products;
-            
+
+            outcome = "success";
+            logger.info("Successfully scraped {} products", productCount);
+            return productCount;
+
         } catch (IOException e) {
             logger.error("Error scraping website: {}", e.getMessage());
             throw new IOException("Failed to connect to website. " + e.getMessage(), e);
+        } finally {
+            active.decrementAndGet();
+            metrics.recordScrape(site, blocked.get() ? "blocked" : outcome, System.nanoTime() - start, pages.get(), productCount);
         }
     }
 
-    private List<Product> scrapeMeesho(Document doc) {
-        List<Product> products = new ArrayList<>();
-        Elements productElements = doc.select("div.ProductList__GridCol-sc-8lnc8o-0");
-        logger.info("Found {} Meesho product elements", productElements.size());
-        
-        for (Element element : productElements) {
-            try {
-                Product product = new Product();
-                product.setWebsite("Meesho");
-                
-                Element titleElement = element.selectFirst("p.Text__StyledText-sc-oo0kvp-0");
-                if (titleElement != null) {
-                    product.setName(titleElement.text());
-                }
-                
-                Element priceElement = element.selectFirst("h5.Text__StyledText-sc-oo0kvp-0");
-                if (priceElement != null) {
-                    String priceText = priceElement.text().replaceAll("[^0-9.]", "");
-                    if (!priceText.isEmpty()) {
-                        product.setPrice(new BigDecimal(priceText));
-                    }
-                }
-                
-                Element imageElement = element.selectFirst("img");
-                if (imageElement != null) {
-                    product.setImageUrl(imageElement.attr("src"));
-                }
-                
-                if (product.getName() != null && product.getPrice() != null) {
-                    products.add(product);
-                }
-            } catch (Exception e) {
-                logger.error("Error parsing Meesho product: {}", e.getMessage());
+    /**
+     * URL of a listing's n-th result page.
+     *
+     * @return null when the site is not paginated and page is beyond the first
+     */
+    public String pageUrl(String url, int page) {
+        String pageParameter = extractorRegistry.resolve(extractDomain(url)).pageParameter();
+        if (page == 1) {
+            return url;
+        }
+        if (pageParameter == null) {
+            return null;
+        }
+        return url + (url.contains("?") ? "&" : "?") + pageParameter + "=" + page;
+    }
+
+    /**
+     * Fetches and extracts a single result page, for callers that walk a listing themselves
+     * and must not lose earlier pages when a later one fails. Delivers the page's products
+     * to the listener the same way {@link #scrapeWebsite(String, ScrapeListener)} does.
+     *
+     * @return the page's result; {@link PageResult#isLast()} ends the walk
+     */
+    public PageResult scrapePage(String pageUrl, int page, ScrapeListener listener) throws IOException {
+        listener = priceStats.aggregating(productIndex.indexing(productPersistence.persisting(listener)));
+        String domain = extractDomain(pageUrl);
+        SiteExtractor extractor = extractorRegistry.resolve(domain);
+        String site = extractor.website().toLowerCase(Locale.ROOT);
+
+        long start = System.nanoTime();
+        AtomicBoolean blocked = new AtomicBoolean();
+        int productCount = 0;
+        String outcome = "failure";
+        try {
+            FetchedPage fetched = awaitAndFetch(pageUrl, domain, site, extractor, blocked);
+            PageResult result = extractionStage.extract(page, fetched,
+                    (number, body) -> extractPage(number, body, domain, site, extractor, blocked));
+            if (!result.getProducts().isEmpty()) {
+                productCount = result.getProducts().size();
+                listener.onPage(page, result.getProducts());
             }
+            outcome = "success";
+            return extractor.pageParameter() == null && !result.isLast() ? PageResult.last(result.getProducts()) : result;
+        } finally {
+            metrics.recordScrape(site, blocked.get() ? "blocked" : outcome, System.nanoTime() - start, 1, productCount);
         }
-        
-        return products;
     }
 
-    private List<Product> scrapeAmazon(Document doc) throws IOException {
-        List<Product> products = new ArrayList<>();
-        String baseUrl = doc.baseUri();
-        int maxPages = 20;
-        int currentPage = 1;
-        
+    /**
+     * Serves a fresh cached copy straight away, otherwise waits for the host's rate limit and
+     * fetches; a 403 fails with a message fit for the user. Blocks are recorded by {@link #fetchPage}.
+     */
+    private FetchedPage awaitAndFetch(String url, String domain, String site, SiteExtractor extractor,
+                                      AtomicBoolean blocked) throws IOException {
+        FetchedPage cached = pageCache.fresh(url);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            // Check if we're being blocked
-            Elements captchaCheck = doc.select("form[action='/errors/validateCaptcha']");
-            if (!captchaCheck.isEmpty()) {
-                logger.error("Amazon is blocking access - detected CAPTCHA page");
-                throw new IOException("Amazon is blocking automated access. Please try using eBay instead (ebay.com/sch/i.html?_nkw=laptop)");
+            awaitSlot(domain);
+            return fetchPage(url, domain, site, extractor, blocked);
+        } catch (CircuitOpenException e) {
+            onCircuitOpen(site, blocked);
+            throw e;
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 403) {
+                logger.error("Access forbidden (403) - Website blocking scraping attempts");
+                throw new IOException("This website is blocking automated access. Try a different website or use their official API if available.");
             }
+            throw e;
+        }
+    }
 
-            while (currentPage <= maxPages) {
-                String pageUrl = baseUrl + (baseUrl.contains("?") ? "&" : "?") + "page=" + currentPage;
-                Document pageDoc = currentPage == 1 ? doc : Jsoup.connect(pageUrl)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/121.0.0.0 Safari/537.36 Edg/121.0.0.0")
-                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
-                    .header("Accept-Language", "en-US,en;q=0.9")
-                    .header("Accept-Encoding", "gzip, deflate, br")
-                    .header("Cache-Control", "no-cache")
-                    .header("Pragma", "no-cache")
-                    .header("Dnt", "1")
-                    .header("Sec-Ch-Ua", "\"Not A(Brand\";v=\"99\", \"Microsoft Edge\";v=\"121\", \"Chromium\";v=\"121\"")
-                    .header("Sec-Ch-Ua-Mobile", "?0")
-                    .header("Sec-Ch-Ua-Platform", "\"Windows\"")
-                    .header("Sec-Fetch-Dest", "document")
-                    .header("Sec-Fetch-Mode", "navigate")
-                    .header("Sec-Fetch-Site", "none")
-                    .header("Sec-Fetch-User", "?1")
-                    .header("Upgrade-Insecure-Requests", "1")
-                    .referrer("https://www.google.com")
-                    .timeout(30000)
-                    .get();
-
-                // Check for blocking on subsequent pages
-                captchaCheck = pageDoc.select("form[action='/errors/validateCaptcha']");
-                if (!captchaCheck.isEmpty()) {
-                    logger.error("Amazon is blocking access on page {} - detected CAPTCHA", currentPage);
-                    break;
-                }
+    /**
+     * Extracts a fetched page and reports CAPTCHA pages and successes to metrics and the host's
+     * rate controller. Only a page this scrape fetched itself is reported to the controller, so
+     * a page shared with other scrapes counts once; a block page is dropped from the cache.
+     */
+    private PageResult extractPage(int page, FetchedPage fetched, String domain, String site, SiteExtractor extractor,
+                                   AtomicBoolean blocked) throws IOException {
+        long extractStart = System.nanoTime();
+        PageResult result;
+        try {
+            result = extractor.extract(page, fetched);
+        } catch (SiteBlockedException e) {
+            onBlockPage(fetched, domain, site, blocked);
+            throw e;
+        }
+        metrics.recordPage(site, System.nanoTime() - extractStart, result.getProducts().size());
+        if (result.isBlocked()) {
+            onBlockPage(fetched, domain, site, blocked);
+        } else if (fetched.isFromNetwork()) {
+            rateLimiter.onSuccess(domain);
+        }
+        return result;
+    }
 
-                Elements productElements = pageDoc.select("div[data-component-type='s-search-result']");
-                if (productElements.isEmpty()) {
-                    logger.warn("No product elements found on Amazon page {} - possible blocking", currentPage);
-                    break;
-                }
+    /** A page the host's circuit breaker refused to send, which is a block like any other. */
+    private void onCircuitOpen(String site, AtomicBoolean blocked) {
+        blocked.set(true);
+        metrics.recordBlocked(site, "circuit_open");
+    }
 
-                logger.info("Found {} Amazon product elements on page {}", productElements.size(), currentPage);
-                
-                for (Element element : productElements) {
-                    try {
-                        Product product = new Product();
-                        product.setWebsite("Amazon");
-                        
-                        // Try multiple title selectors
-                        Element titleElement = element.selectFirst("h2 span.a-text-normal");
-                        if (titleElement == null) {
-                            titleElement = element.selectFirst("h2 a.a-link-normal span");
-                        }
-                        if (titleElement == null) {
-                            titleElement = element.selectFirst("h2 a.a-link-normal");
-                        }
-                        
-                        if (titleElement != null) {
-                            String title = titleElement.text().trim();
-                            logger.debug("Found title: {}", title);
-                            product.setName(title);
-                        } else {
-                            logger.debug("No title found for product element");
-                            continue;
-                        }
-                        
-                        // Try multiple price selectors
-                        Element priceElement = element.selectFirst("span.a-price span.a-offscreen");
-                        if (priceElement == null) {
-                            priceElement = element.selectFirst("span.a-price:first-of-type span.a-offscreen");
-                        }
-                        if (priceElement == null) {
-                            priceElement = element.selectFirst("span[data-a-color='base'] span.a-offscreen");
-                        }
-                        if (priceElement == null) {
-                            priceElement = element.selectFirst("span.a-price-whole");
-                        }
-                        
-                        if (priceElement != null) {
-                            String priceText = priceElement.text().replaceAll("[^0-9.]", "").trim();
-                            try {
-                                if (!priceText.isEmpty()) {
-                                    BigDecimal price = new BigDecimal(priceText);
-                                    logger.debug("Found price: {}", price);
-                                    product.setPrice(price);
-                                }
-                            } catch (NumberFormatException e) {
-                                logger.error("Error parsing Amazon price: {} - {}", priceText, e.getMessage());
-                                continue;
-                            }
-                        } else {
-                            logger.debug("No price found for product element");
-                            continue;
-                        }
-                        
-                        // Get description if available
-                        Element descriptionElement = element.selectFirst("div.a-row.a-size-base.a-color-secondary");
-                        if (descriptionElement != null) {
-                            String description = descriptionElement.text().trim();
-                            logger.debug("Found description: {}", description);
-                            product.setDescription(description);
-                        }
-                        
-                        // Get product URL
-                        Element linkElement = element.selectFirst("h2 a.a-link-normal");
-                        if (linkElement != null) {
-                            String href = linkElement.attr("href");
-                            if (!href.startsWith("http")) {
-                                href = "https://www.amazon.com" + href;
-                            }
-                            logger.debug("Found product URL: {}", href);
-                            product.setProductUrl(href);
-                        }
-                        
-                        // Only add products that have at least a name and price
-                        if (product.getName() != null && product.getPrice() != null) {
-                            products.add(product);
-                            logger.info("Added Amazon product: {} - {}", product.getName(), product.getPrice());
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error parsing Amazon product: {}", e.getMessage());
-                    }
-                }
-                
-                if (products.size() >= 1000) {
-                    logger.info("Reached maximum product limit (1000)");
-                    break;
-                }
-                
-                currentPage++;
-                // Increase delay between requests to avoid being blocked
-                Thread.sleep(3000);
-            }
-        } catch (Exception e) {
-            logger.error("Error scraping Amazon pages: {}", e.getMessage());
-            throw new IOException("Unable to scrape Amazon. Please try using eBay instead (ebay.com/sch/i.html?_nkw=laptop): " + e.getMessage());
-        }
-        
-        if (products.isEmpty()) {
-            throw new IOException("Amazon appears to be blocking access. Please try using eBay instead (ebay.com/sch/i.html?_nkw=laptop)");
+    private void onBlockPage(FetchedPage fetched, String domain, String site, AtomicBoolean blocked) {
+        blocked.set(true);
+        metrics.recordBlocked(site, "captcha");
+        pageCache.evict(fetched);
+        if (fetched.isFromNetwork()) {
+            rateLimiter.onBlocked(domain, null);
         }
-        
-        logger.info("Successfully scraped {} Amazon products", products.size());
-        return products;
     }
 
-    private List<Product> scrapeWalmart(Document doc) {
-        List<Product> products = new ArrayList<>();
-        Elements productElements = doc.select("div[data-item-id]");
-        logger.info("Found {} Walmart product elements", productElements.size());
-        
-        for (Element element : productElements) {
+    /** Waits out the host's rate limit for the first page; later pages are scheduled by {@link PaginatedFetcher}. */
+    private void awaitSlot(String domain) throws IOException {
+        long delay = rateLimiter.reserve(domain);
+        if (delay > 0) {
             try {
-                Product product = new Product();
-                product.setWebsite("Walmart");
-                
-                Element titleElement = element.selectFirst("span.normal");
-                if (titleElement != null) {
-                    product.setName(titleElement.text());
-                }
-                
-                Element priceElement = element.selectFirst("div.price-main");
-                if (priceElement != null) {
-                    String priceText = priceElement.text().replace("$", "").replace(",", "");
-                    if (!priceText.isEmpty()) {
-                        product.setPrice(new BigDecimal(priceText));
-                    }
-                }
-                
-                Element imageElement = element.selectFirst("img.absolute");
-                if (imageElement != null) {
-                    product.setImageUrl(imageElement.attr("src"));
-                }
-                
-                products.add(product);
-            } catch (Exception e) {
-                logger.error("Error parsing Walmart product: {}", e.getMessage());
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to fetch from " + domain);
             }
         }
-        
-        return products;
     }
 
-    private List<Product> scrapeEbay(Document doc) throws IOException {
-        List<Product> products = new ArrayList<>();
-        String baseUrl = doc.baseUri();
-        int maxPages = 20; // This will get us approximately 1200 products (60 per page)
-        int currentPage = 1;
-        
+    /**
+     * Fetches one page and reports HTTP-level push-back to the host's rate controller and to
+     * metrics, tagged with the status; CAPTCHA pages and successes are reported once the page
+     * has been extracted.
+     */
+    private FetchedPage fetchPage(String url, String domain, String site, SiteExtractor extractor,
+                                  AtomicBoolean blocked) throws IOException {
+        rateLimiter.checkOpen(domain);
         try {
-            while (currentPage <= maxPages) {
-                String pageUrl = baseUrl + (baseUrl.contains("?") ? "&" : "?") + "pgn=" + currentPage;
-                Document pageDoc = currentPage == 1 ? doc : Jsoup.connect(pageUrl)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8")
-                    .header("Accept-Language", "en-US,en;q=0.5")
-                    .header("Accept-Encoding", "gzip, deflate, br")
-                    .header("DNT", "1")
-                    .header("Connection", "keep-alive")
-                    .header("Upgrade-Insecure-Requests", "1")
-                    .referrer("https://www.google.com")
-                    .timeout(30000)
-                    .get();
-
-                Elements productElements = pageDoc.select("li.s-item");
-                if (productElements.isEmpty()) {
-                    break; // No more products found
-                }
-
-                logger.info("Found {} eBay product elements on page {}", productElements.size(), currentPage);
-                
-                for (Element element : productElements) {
-                    try {
-                        Product product = new Product();
-                        product.setWebsite("eBay");
-                        
-                        Element titleElement = element.selectFirst("div.s-item__title");
-                        if (titleElement != null) {
-                            product.setName(titleElement.text());
-                        }
-                        
-                        Element descriptionElement = element.selectFirst("div.s-item__subtitle");
-                        if (descriptionElement != null) {
-                            product.setDescription(descriptionElement.text());
-                        }
-                        
-                        Element priceElement = element.selectFirst("span.s-item__price");
-                        if (priceElement != null) {
-                            String priceText = priceElement.text().replaceAll("[^0-9.]", "");
-                            if (!priceText.isEmpty()) {
-                                try {
-                                    product.setPrice(new BigDecimal(priceText));
-                                } catch (NumberFormatException e) {
-                                    logger.error("Error parsing price: {} - {}", priceText, e.getMessage());
-                                }
-                            }
-                        }
-                        
-                        Element imageElement = element.selectFirst("img.s-item__image-img");
-                        if (imageElement != null) {
-                            product.setImageUrl(imageElement.attr("src"));
-                        }
-                        
-                        if (product.getName() != null && product.getPrice() != null) {
-                            products.add(product);
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error parsing eBay product: {}", e.getMessage());
-                    }
-                }
-                
-                if (products.size() >= 1000) {
-                    break; // Stop if we've collected enough products
-                }
-                
-                currentPage++;
-                // Add a small delay between requests to be respectful to the server
-                Thread.sleep(1000);
+            return pageCache.fetch(site, url, extractor.requestHeaders(), properties.getFetch().timeoutFor(domain),
+                    rateLimiter.isHalfOpen(domain));
+        } catch (FetchStatusException e) {
+            if (e.isThrottling()) {
+                blocked.set(true);
+            }
+            if (e.isShared()) {
+                // The scrape whose request it was reports it
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error scraping eBay pages: {}", e.getMessage());
+            if (e.isThrottling()) {
+                metrics.recordBlocked(site, String.valueOf(e.getStatusCode()));
+                rateLimiter.onBlocked(domain, e.getRetryAfter());
+            } else {
+                rateLimiter.onError(domain);
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            rateLimiter.onError(domain);
+            throw e;
         }
-        
-        return products;
     }
 
-    private List<Product> scrapeGeneric(Document doc) {
-        List<Product> products = new ArrayList<>();
-        Elements productElements = doc.select("div.product, article.product, .item");
-        logger.info("Found {} generic product elements", productElements.size());
-        
-        for (Element element : productElements) {
-            try {
-                Product product = new Product();
-                
-                Element titleElement = element.selectFirst("h1, h2, .title, .name");
-                if (titleElement != null) {
-                    product.setName(titleElement.text());
-                }
-                
-                Element priceElement = element.selectFirst(".price, [itemprop='price']");
-                if (priceElement != null) {
-                    String priceText = priceElement.text().replaceAll("[^0-9.]", "");
-                    if (!priceText.isEmpty()) {
-                        product.setPrice(new BigDecimal(priceText));
-                    }
-                }
-                
-                Element imageElement = element.selectFirst("img");
-                if (imageElement != null) {
-                    product.setImageUrl(imageElement.attr("src"));
-                }
-                
-                products.add(product);
-            } catch (Exception e) {
-                logger.error("Error parsing generic product: {}", e.getMessage());
-            }
+    private int singlePage(PageResult result, ScrapeListener listener) {
+        if (!result.getProducts().isEmpty()) {
+            listener.onPage(1, result.getProducts());
         }
-        
-        return products;
+        return result.getProducts().size();
     }
 
-    private String extractDomain(String url) {
-        Pattern pattern = Pattern.compile("https?://(?:www\\.)?([^/]+)");
-        Matcher matcher = pattern.matcher(url);
+    /** Host of the URL without {@code www.}, the key for rate limiting; empty when it has none. */
+    public static String extractDomain(String url) {
+        Matcher matcher = DOMAIN_PATTERN.matcher(url);
         if (matcher.find()) {
             return matcher.group(1);
         }
         return "";
     }
-} 
\ No newline at end of file
+}
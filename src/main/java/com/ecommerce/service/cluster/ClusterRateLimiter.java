@@ -0,0 +1,94 @@
+package com.ecommerce.service.cluster;
+
+import com.ecommerce.model.HostSlot;
+import com.ecommerce.repository.HostSlotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces requests to each host across every node sharing the database, so adding nodes does
+ * not multiply the rate a host sees. Each host's {@link HostSlot} row holds the theoretical
+ * arrival time of the generic cell rate algorithm and is advanced with a compare-and-set
+ * update: a reservation takes no lock and costs one read and one short transaction, retried
+ * when another node got in between. Node clocks are assumed to agree to well under a
+ * request interval, as they do for several nodes on one machine or with NTP.
+ */
+@Component
+public class ClusterRateLimiter {
+
+    private static final int MAX_ATTEMPTS = 16;
+
+    @Autowired
+    private HostSlotRepository slots;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactions;
+
+    @PostConstruct
+    void init() {
+        transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reserves the host's next cluster-wide request slot.
+     *
+     * @param requestsPerSecond the rate the whole cluster may send to the host
+     * @param burst             requests that may go back to back after an idle spell
+     * @return nanoseconds the caller must wait before issuing the request
+     * @throws IllegalStateException when other nodes keep winning the race for the row
+     */
+    public long reserve(String host, double requestsPerSecond, double burst) {
+        long interval = Math.max(1, (long) (1_000_000 / requestsPerSecond));
+        long tolerance = (long) ((Math.max(1, burst) - 1) * interval);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+            Optional<HostSlot> slot = slots.findById(host);
+            long arrival = slot.map(HostSlot::getTheoreticalArrival).orElse(now);
+            long next = Math.max(arrival, now) + interval;
+            try {
+                Boolean reserved = transactions.execute(status -> slot.isPresent()
+                        ? slots.advance(host, arrival, next) == 1
+                        : slots.saveAndFlush(new HostSlot(host, next)) != null);
+                if (Boolean.TRUE.equals(reserved)) {
+                    return TimeUnit.MICROSECONDS.toNanos(Math.max(0, arrival - tolerance - now));
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the host's row first; read it and go again
+            }
+        }
+        throw new IllegalStateException("Could not reserve a request slot for " + host + " after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Hands back a slot taken by {@link #reserve} whose request was never sent, moving the
+     * host's schedule back by one interval but not into the past. Best effort: gives up
+     * quietly when other nodes keep moving the row.
+     */
+    public void release(String host, double requestsPerSecond) {
+        long interval = Math.max(1, (long) (1_000_000 / requestsPerSecond));
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+            Optional<HostSlot> slot = slots.findById(host);
+            if (slot.isEmpty() || slot.get().getTheoreticalArrival() <= now) {
+                return;
+            }
+            long arrival = slot.get().getTheoreticalArrival();
+            long previous = Math.max(now, arrival - interval);
+            Integer moved = transactions.execute(status -> slots.advance(host, arrival, previous));
+            if (moved != null && moved == 1) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ecommerce.service.cluster;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.ScrapeTask;
+import com.ecommerce.service.PageResult;
+import com.ecommerce.service.ScrapeListener;
+import com.ecommerce.service.WebScraperService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This node's share of the cluster's work. While cluster mode is on, every node polls the
+ * {@link ScrapeTaskQueue}, leases as many due tasks as it has free workers and renews the
+ * leases of the ones it is running. A node that dies stops renewing, and its tasks go to
+ * whichever node polls first once their leases run out.
+ */
+@Service
+public class ClusterWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterWorker.class);
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ScrapeTaskQueue queue;
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    @Qualifier("clusterExecutor")
+    private ExecutorService clusterExecutor;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private Semaphore workers;
+    private String nodeId;
+
+    @PostConstruct
+    void start() {
+        ScraperProperties.Cluster config = properties.getCluster();
+        workers = new Semaphore(config.getWorkers());
+        nodeId = config.getNodeId() == null || config.getNodeId().isBlank() ? defaultNodeId() : config.getNodeId();
+        if (config.isEnabled()) {
+            logger.info("Cluster mode on, node {} runs up to {} tasks", nodeId, config.getWorkers());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** This node's id and running tasks, and the shared queue by status. */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.getCluster().isEnabled());
+        status.put("node", nodeId);
+        status.put("running", new ArrayList<>(running));
+        if (properties.getCluster().isEnabled()) {
+            status.put("queue", queue.counts());
+        }
+        return status;
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.cluster.poll-interval:1000}")
+    public void poll() {
+        if (!properties.getCluster().isEnabled()) {
+            return;
+        }
+        int free = workers.drainPermits();
+        List<ScrapeTask> leased = List.of();
+        try {
+            queue.failExpired();
+            leased = queue.lease(nodeId, free);
+        } catch (RuntimeException e) {
+            logger.warn("Could not lease cluster tasks: {}", e.getMessage());
+        } finally {
+            workers.release(free - leased.size());
+        }
+
+        for (ScrapeTask task : leased) {
+            running.add(task.getId());
+            try {
+                clusterExecutor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the lease runs out and another node takes the task over
+                running.remove(task.getId());
+                workers.release();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.cluster.heartbeat-interval:15000}")
+    public void heartbeat() {
+        if (!properties.getCluster().isEnabled() || running.isEmpty()) {
+            return;
+        }
+        try {
+            queue.renew(nodeId, new ArrayList<>(running));
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew leases of {} running tasks: {}", running.size(), e.getMessage());
+        }
+    }
+
+    private void run(ScrapeTask task) {
+        try {
+            PageResult result = null;
+            Exception failure = null;
+            try {
+                result = webScraperService.scrapePage(task.getPageUrl(), task.getPage(), ScrapeListener.NONE);
+            } catch (Exception e) {
+                failure = e;
+            }
+
+            boolean recorded;
+            if (failure == null) {
+                recorded = queue.complete(task, nodeId, result);
+            } else {
+                logger.info("Task {} (page {} of {}) failed on attempt {}: {}",
+                        task.getId(), task.getPage(), task.getUrl(), task.getAttempts(), failure.getMessage());
+                recorded = queue.fail(task, nodeId, failure.getMessage());
+            }
+            if (!recorded) {
+                logger.warn("Lease on task {} was taken over before page {} of {} finished",
+                        task.getId(), task.getPage(), task.getUrl());
+            }
+        } catch (RuntimeException e) {
+            // The lease runs out and the task is retried elsewhere
+            logger.error("Could not record the outcome of task {}: {}", task.getId(), e.getMessage());
+        } finally {
+            running.remove(task.getId());
+            workers.release();
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,203 @@
+package com.ecommerce.service.cluster;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.ScrapeTask;
+import com.ecommerce.model.ScrapeTask.Status;
+import com.ecommerce.repository.ScrapeTaskRepository;
+import com.ecommerce.service.PageResult;
+import com.ecommerce.service.WebScraperService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable queue of cluster scrape tasks in the {@code scrape_tasks} table. A job starts as its
+ * listing's first page; finishing a page queues the next one, so any node may scrape any page
+ * and a listing never has more than one page in flight. Leases are taken and released with
+ * the conditional updates of {@link ScrapeTaskRepository}, which need no row locks and work
+ * the same on H2 and Postgres.
+ */
+@Service
+public class ScrapeTaskQueue {
+
+    @Autowired
+    private ScrapeTaskRepository tasks;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactions;
+
+    @PostConstruct
+    void init() {
+        transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Queues the listing's first page as a new job.
+     *
+     * @return the job id
+     */
+    public String submit(String url) {
+        String jobId = UUID.randomUUID().toString();
+        tasks.save(newTask(jobId, url, 1, url, Instant.now()));
+        return jobId;
+    }
+
+    /**
+     * Leases up to {@code max} due tasks to the node. Candidates that another node claims
+     * first are skipped, so fewer may come back even while more are due.
+     */
+    public List<ScrapeTask> lease(String owner, int max) {
+        if (max <= 0) {
+            return List.of();
+        }
+        ScraperProperties.Cluster config = properties.getCluster();
+        Instant now = Instant.now();
+        Instant until = now.plus(config.getLeaseDuration());
+        List<ScrapeTask> leased = new ArrayList<>(max);
+        // Read extra candidates, since every idle node is reading the same ones
+        for (ScrapeTask task : tasks.findClaimable(Status.QUEUED, Status.LEASED, now, config.getMaxAttempts(),
+                PageRequest.of(0, max * 2))) {
+            if (leased.size() == max) {
+                break;
+            }
+            Integer claimed = transactions.execute(status -> tasks.claim(task.getId(), owner, until, now,
+                    config.getMaxAttempts(), Status.QUEUED, Status.LEASED));
+            if (claimed != null && claimed == 1) {
+                task.setStatus(Status.LEASED);
+                task.setOwner(owner);
+                task.setLeaseUntil(until);
+                task.setAttempts(task.getAttempts() + 1);
+                leased.add(task);
+            }
+        }
+        return leased;
+    }
+
+    /** Extends the node's leases on tasks it is still working on. */
+    public void renew(String owner, Collection<Long> ids) {
+        Instant until = Instant.now().plus(properties.getCluster().getLeaseDuration());
+        transactions.execute(status -> tasks.renew(ids, owner, until, Status.LEASED));
+    }
+
+    /**
+     * Marks the page done and queues the listing's next page in the same transaction.
+     *
+     * @return false when the node's lease had been taken over, in which case nothing changes
+     */
+    public boolean complete(ScrapeTask task, String owner, PageResult result) {
+        Instant now = Instant.now();
+        Boolean completed = transactions.execute(status -> {
+            if (tasks.finish(task.getId(), owner, Status.DONE, result.getProducts().size(), null, now, Status.LEASED) == 0) {
+                return false;
+            }
+            String next = result.isLast() || task.getPage() >= properties.getFetch().getMaxPages()
+                    ? null : webScraperService.pageUrl(task.getUrl(), task.getPage() + 1);
+            if (next != null) {
+                tasks.save(newTask(task.getJobId(), task.getUrl(), task.getPage() + 1, next, now));
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(completed);
+    }
+
+    /**
+     * Queues the page again after a backoff, or fails it once it has used its attempts.
+     *
+     * @return false when the node's lease had been taken over
+     */
+    public boolean fail(ScrapeTask task, String owner, String error) {
+        ScraperProperties.Cluster config = properties.getCluster();
+        Instant now = Instant.now();
+        String message = truncate(error);
+        Integer updated;
+        if (task.getAttempts() >= config.getMaxAttempts()) {
+            updated = transactions.execute(status -> tasks.finish(task.getId(), owner, Status.FAILED, 0, message, now, Status.LEASED));
+        } else {
+            Instant notBefore = now.plus(config.getRetryBackoff().multipliedBy(1L << Math.min(task.getAttempts() - 1, 20)));
+            updated = transactions.execute(status -> tasks.requeue(task.getId(), owner, notBefore, message, now,
+                    Status.QUEUED, Status.LEASED));
+        }
+        return updated != null && updated == 1;
+    }
+
+    /** Fails tasks whose last lease ran out with no attempts left. */
+    public int failExpired() {
+        ScraperProperties.Cluster config = properties.getCluster();
+        Integer failed = transactions.execute(status -> tasks.failExpired(Instant.now(), config.getMaxAttempts(),
+                "Lease expired on the last attempt", Status.FAILED, Status.LEASED));
+        return failed == null ? 0 : failed;
+    }
+
+    /** The job's pages so far with its overall status, or empty for an unknown job. */
+    public Optional<Map<String, Object>> job(String jobId) {
+        List<ScrapeTask> pages = tasks.findByJobIdOrderByPageAsc(jobId);
+        if (pages.isEmpty()) {
+            return Optional.empty();
+        }
+        ScrapeTask last = pages.get(pages.size() - 1);
+        String status;
+        if (last.getStatus() == Status.QUEUED || last.getStatus() == Status.LEASED) {
+            status = "RUNNING";
+        } else {
+            status = last.getStatus() == Status.FAILED ? "FAILED" : "DONE";
+        }
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("jobId", jobId);
+        job.put("url", pages.get(0).getUrl());
+        job.put("status", status);
+        job.put("pages", pages.size());
+        job.put("productCount", pages.stream().mapToInt(ScrapeTask::getProductCount).sum());
+        job.put("tasks", pages);
+        return Optional.of(job);
+    }
+
+    /** Tasks in the queue by status. */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Status status : Status.values()) {
+            counts.put(status.name().toLowerCase(Locale.ROOT), tasks.countByStatus(status));
+        }
+        return counts;
+    }
+
+    private static ScrapeTask newTask(String jobId, String url, int page, String pageUrl, Instant now) {
+        ScrapeTask task = new ScrapeTask();
+        task.setJobId(jobId);
+        task.setUrl(url);
+        task.setPage(page);
+        task.setPageUrl(pageUrl);
+        task.setStatus(Status.QUEUED);
+        task.setNotBefore(now);
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        return task;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return "Unknown error";
+        }
+        return error.length() <= 1024 ? error : error.substring(0, 1024);
+    }
+}
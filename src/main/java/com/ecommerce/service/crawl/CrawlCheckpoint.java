@@ -0,0 +1,19 @@
+package com.ecommerce.service.crawl;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contents of the checkpoint file: definitions added through the API, and the progress of
+ * every definition by name.
+ */
+@Data
+public class CrawlCheckpoint {
+
+    private List<CrawlDefinition> definitions = new ArrayList<>();
+    private Map<String, CrawlState> states = new LinkedHashMap<>();
+}
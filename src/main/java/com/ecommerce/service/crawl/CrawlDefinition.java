@@ -0,0 +1,24 @@
+package com.ecommerce.service.crawl;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * A recurring crawl of one listing, from {@code scraper.crawl.definitions} or the crawler API.
+ * Exactly one of {@code interval} and {@code cron} says when it runs again; both count from
+ * the end of the previous run.
+ */
+@Data
+public class CrawlDefinition {
+
+    private String name;
+    private String url;
+    private Duration interval;
+    // Spring cron syntax with seconds, e.g. "0 0 */6 * * *"
+    private String cron;
+    // Defaults to scraper.fetch.max-pages
+    private Integer maxPages;
+    // Higher runs first when several pages of a host are due
+    private int priority;
+}
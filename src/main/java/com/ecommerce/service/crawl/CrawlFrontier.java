@@ -0,0 +1,144 @@
+package com.ecommerce.service.crawl;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Pages waiting to be crawled, one priority queue per host. Hosts take turns, so a long
+ * walk of one site never starves the others, and at most {@code perHost} pages of a host
+ * are handed out at once. Within a host, higher priority and then earlier due time go first.
+ * A page URL is queued at most once.
+ */
+final class CrawlFrontier {
+
+    private static final Comparator<Task> ORDER = Comparator.comparingInt((Task task) -> -task.priority)
+            .thenComparing(task -> task.notBefore)
+            .thenComparingLong(task -> task.sequence);
+
+    private final int perHost;
+    private final Map<String, PriorityQueue<Task>> byHost = new HashMap<>();
+    // Round-robin order of hosts with queued pages
+    private final Deque<String> hosts = new ArrayDeque<>();
+    private final Map<String, Integer> inFlight = new HashMap<>();
+    private final Set<String> queued = new HashSet<>();
+    private long sequence;
+
+    CrawlFrontier(int perHost) {
+        this.perHost = perHost;
+    }
+
+    /**
+     * @return false when the page URL is already queued or being crawled
+     */
+    synchronized boolean add(String definition, String host, String url, int page, int priority, Instant notBefore) {
+        if (!queued.add(url)) {
+            return false;
+        }
+        PriorityQueue<Task> queue = byHost.get(host);
+        if (queue == null) {
+            queue = new PriorityQueue<>(ORDER);
+            byHost.put(host, queue);
+            hosts.addLast(host);
+        }
+        queue.add(new Task(definition, host, url, page, priority, notBefore, sequence++));
+        return true;
+    }
+
+    /**
+     * @return the next due page of the first host in turn with a free slot, or null when none is due
+     */
+    synchronized Task poll(Instant now) {
+        for (Iterator<String> turn = hosts.iterator(); turn.hasNext(); ) {
+            String host = turn.next();
+            if (inFlight.getOrDefault(host, 0) >= perHost) {
+                continue;
+            }
+            PriorityQueue<Task> queue = byHost.get(host);
+            Task task = firstDue(queue, now);
+            if (task == null) {
+                continue;
+            }
+            queue.remove(task);
+            turn.remove();
+            if (queue.isEmpty()) {
+                byHost.remove(host);
+            } else {
+                hosts.addLast(host);
+            }
+            inFlight.merge(host, 1, Integer::sum);
+            return task;
+        }
+        return null;
+    }
+
+    /** Releases the page's host slot and its URL, which may be queued again from now on. */
+    synchronized void done(Task task) {
+        inFlight.computeIfPresent(task.host, (host, count) -> count > 1 ? count - 1 : null);
+        queued.remove(task.url);
+    }
+
+    /** Drops every queued page of the definition; pages being crawled are unaffected. */
+    synchronized void removeDefinition(String definition) {
+        for (Iterator<Map.Entry<String, PriorityQueue<Task>>> hostQueues = byHost.entrySet().iterator(); hostQueues.hasNext(); ) {
+            Map.Entry<String, PriorityQueue<Task>> entry = hostQueues.next();
+            entry.getValue().removeIf(task -> {
+                if (task.definition.equals(definition)) {
+                    queued.remove(task.url);
+                    return true;
+                }
+                return false;
+            });
+            if (entry.getValue().isEmpty()) {
+                hosts.remove(entry.getKey());
+                hostQueues.remove();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return byHost.values().stream().mapToInt(PriorityQueue::size).sum();
+    }
+
+    /** The queue is ordered by priority first, so a due page may sit behind one that is not. */
+    private static Task firstDue(PriorityQueue<Task> queue, Instant now) {
+        Task first = queue.peek();
+        if (first != null && !first.notBefore.isAfter(now)) {
+            return first;
+        }
+        Task due = null;
+        for (Task task : queue) {
+            if (!task.notBefore.isAfter(now) && (due == null || ORDER.compare(task, due) < 0)) {
+                due = task;
+            }
+        }
+        return due;
+    }
+
+    static final class Task {
+        final String definition;
+        final String host;
+        final String url;
+        final int page;
+        final int priority;
+        final Instant notBefore;
+        final long sequence;
+
+        private Task(String definition, String host, String url, int page, int priority, Instant notBefore, long sequence) {
+            this.definition = definition;
+            this.host = host;
+            this.url = url;
+            this.page = page;
+            this.priority = priority;
+            this.notBefore = notBefore;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.ecommerce.service.crawl;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.service.PageResult;
+import com.ecommerce.service.ScrapeListener;
+import com.ecommerce.service.WebScraperService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs recurring crawls. Each due definition walks its listing one page at a time through
+ * the shared {@link CrawlFrontier}, so a failed page is retried with backoff on its own
+ * instead of restarting the walk, and pages already crawled keep their products. Progress is
+ * checkpointed to disk after every page; after a restart running crawls continue at the page
+ * they had reached.
+ */
+@Service
+public class CrawlScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    @Autowired
+    private WebScraperService webScraperService;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("crawlExecutor")
+    private ExecutorService crawlExecutor;
+
+    // Guarded by this
+    private final Map<String, CrawlDefinition> definitions = new LinkedHashMap<>();
+    private final Set<String> apiDefinitions = new LinkedHashSet<>();
+    private final Map<String, CrawlState> states = new LinkedHashMap<>();
+
+    private CrawlFrontier frontier;
+    private Semaphore workers;
+    private Path checkpoint;
+
+    @PostConstruct
+    synchronized void start() {
+        ScraperProperties.Crawl config = properties.getCrawl();
+        frontier = new CrawlFrontier(config.getPerHost());
+        workers = new Semaphore(config.getWorkers());
+        checkpoint = Paths.get(config.getCheckpoint());
+
+        for (CrawlDefinition definition : config.getDefinitions()) {
+            try {
+                validate(definition);
+                definitions.put(definition.getName(), definition);
+            } catch (IllegalArgumentException e) {
+                logger.error("Ignoring crawl definition {}: {}", definition.getName(), e.getMessage());
+            }
+        }
+
+        CrawlCheckpoint saved = load();
+        for (CrawlDefinition definition : saved.getDefinitions()) {
+            try {
+                validate(definition);
+                definitions.put(definition.getName(), definition);
+                apiDefinitions.add(definition.getName());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Dropping checkpointed crawl definition {}: {}", definition.getName(), e.getMessage());
+            }
+        }
+        saved.getStates().forEach((name, state) -> {
+            if (definitions.containsKey(name)) {
+                states.put(name, state);
+                if (state.isRunning()) {
+                    logger.info("Resuming crawl {} at page {}", name, state.getPage());
+                }
+            }
+        });
+        definitions.keySet().forEach(name -> states.computeIfAbsent(name, n -> new CrawlState()));
+    }
+
+    /**
+     * Starts due crawls, re-queues the current page of running ones (a no-op unless it was
+     * lost, e.g. after a restart) and hands due pages to free workers.
+     */
+    @Scheduled(fixedDelayString = "${scraper.crawl.tick-interval:1000}")
+    public void tick() {
+        if (!properties.getCrawl().isEnabled()) {
+            return;
+        }
+        Instant now = Instant.now();
+        synchronized (this) {
+            boolean started = false;
+            for (CrawlDefinition definition : definitions.values()) {
+                CrawlState state = states.get(definition.getName());
+                if (state.isRunning()) {
+                    enqueue(definition, state, now);
+                } else if (state.getNextRunAt() == null || !now.isBefore(state.getNextRunAt())) {
+                    startRun(definition, state, now);
+                    started = true;
+                }
+            }
+            if (started) {
+                save();
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * @throws IllegalArgumentException when the definition is invalid or its name or URL is taken
+     */
+    public synchronized CrawlDefinition add(CrawlDefinition definition) {
+        validate(definition);
+        definitions.put(definition.getName(), definition);
+        apiDefinitions.add(definition.getName());
+        states.put(definition.getName(), new CrawlState());
+        save();
+        logger.info("Added crawl definition {} for {}", definition.getName(), definition.getUrl());
+        return definition;
+    }
+
+    /**
+     * Stops and forgets the definition. Definitions from configuration come back on restart.
+     */
+    public synchronized boolean remove(String name) {
+        if (definitions.remove(name) == null) {
+            return false;
+        }
+        apiDefinitions.remove(name);
+        states.remove(name);
+        frontier.removeDefinition(name);
+        save();
+        return true;
+    }
+
+    /** Makes an idle definition due now; a running one is left as it is. */
+    public synchronized boolean runNow(String name) {
+        CrawlState state = states.get(name);
+        if (state == null) {
+            return false;
+        }
+        if (!state.isRunning()) {
+            state.setNextRunAt(Instant.now());
+            save();
+        }
+        return true;
+    }
+
+    /** Each definition with its progress, by name. */
+    public synchronized Map<String, Map<String, Object>> getStatus() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        definitions.forEach((name, definition) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("definition", definition);
+            entry.put("source", apiDefinitions.contains(name) ? "api" : "config");
+            // Copied while locked, since workers keep updating the state
+            entry.put("state", objectMapper.convertValue(states.get(name), Map.class));
+            status.put(name, entry);
+        });
+        return status;
+    }
+
+    private void dispatch() {
+        while (workers.tryAcquire()) {
+            CrawlFrontier.Task task = frontier.poll(Instant.now());
+            if (task == null) {
+                workers.release();
+                return;
+            }
+            try {
+                crawlExecutor.execute(() -> crawl(task));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the page stays current in its state and is queued again on restart
+                synchronized (this) {
+                    frontier.done(task);
+                }
+                workers.release();
+                return;
+            }
+        }
+    }
+
+    private void crawl(CrawlFrontier.Task task) {
+        PageResult result = null;
+        Exception failure = null;
+        try {
+            result = webScraperService.scrapePage(task.url, task.page, ScrapeListener.NONE);
+        } catch (Exception e) {
+            failure = e;
+        }
+        try {
+            completed(task, result, failure);
+        } finally {
+            workers.release();
+            dispatch();
+        }
+    }
+
+    /** Advances the definition past the page, or schedules a retry, and checkpoints. */
+    private synchronized void completed(CrawlFrontier.Task task, PageResult result, Exception failure) {
+        // Released under the lock so tick() never re-queues a page whose outcome is still being recorded
+        frontier.done(task);
+        CrawlDefinition definition = definitions.get(task.definition);
+        CrawlState state = states.get(task.definition);
+        if (definition == null || !state.isRunning() || state.getPage() != task.page) {
+            // Removed, or superseded while the page was being crawled
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (failure == null) {
+            state.setCycleProducts(state.getCycleProducts() + result.getProducts().size());
+            String next = result.isLast() || task.page >= maxPages(definition)
+                    ? null : webScraperService.pageUrl(definition.getUrl(), task.page + 1);
+            if (next == null) {
+                finishRun(definition, state, task.page, result.isBlocked() ? "Blocked by the site" : null, now);
+            } else {
+                state.setPage(task.page + 1);
+                state.setAttempts(0);
+                state.setNotBefore(null);
+                enqueue(definition, state, now);
+            }
+        } else {
+            int attempts = state.getAttempts() + 1;
+            ScraperProperties.Crawl config = properties.getCrawl();
+            if (attempts >= config.getMaxAttempts()) {
+                logger.warn("Crawl {} giving up at page {} after {} attempts: {}",
+                        definition.getName(), task.page, attempts, failure.getMessage());
+                finishRun(definition, state, task.page - 1, failure.getMessage(), now);
+            } else {
+                logger.info("Crawl {} page {} failed, retrying: {}", definition.getName(), task.page, failure.getMessage());
+                state.setAttempts(attempts);
+                state.setNotBefore(now.plus(config.getRetryBackoff().multipliedBy(1L << (attempts - 1))));
+                enqueue(definition, state, now);
+            }
+        }
+        save();
+    }
+
+    private void startRun(CrawlDefinition definition, CrawlState state, Instant now) {
+        logger.info("Starting crawl {} of {}", definition.getName(), definition.getUrl());
+        state.setRunning(true);
+        state.setPage(1);
+        state.setAttempts(0);
+        state.setNotBefore(null);
+        state.setCycleStartedAt(now);
+        state.setCycleProducts(0);
+        enqueue(definition, state, now);
+    }
+
+    private void finishRun(CrawlDefinition definition, CrawlState state, int pages, String error, Instant now) {
+        state.setRunning(false);
+        state.setPage(0);
+        state.setAttempts(0);
+        state.setNotBefore(null);
+        state.setLastCompletedAt(now);
+        state.setLastPages(pages);
+        state.setLastProducts(state.getCycleProducts());
+        state.setLastError(error);
+        state.setNextRunAt(nextRun(definition, now));
+        logger.info("Finished crawl {}: {} pages, {} products, next run at {}",
+                definition.getName(), pages, state.getCycleProducts(), state.getNextRunAt());
+    }
+
+    private void enqueue(CrawlDefinition definition, CrawlState state, Instant now) {
+        String url = webScraperService.pageUrl(definition.getUrl(), state.getPage());
+        Instant due = state.getNotBefore() != null ? state.getNotBefore() : now;
+        frontier.add(definition.getName(), WebScraperService.extractDomain(url), url, state.getPage(),
+                definition.getPriority(), due);
+    }
+
+    private int maxPages(CrawlDefinition definition) {
+        return definition.getMaxPages() != null ? definition.getMaxPages() : properties.getFetch().getMaxPages();
+    }
+
+    private static Instant nextRun(CrawlDefinition definition, Instant now) {
+        if (definition.getInterval() != null) {
+            return now.plus(definition.getInterval());
+        }
+        ZonedDateTime next = CronExpression.parse(definition.getCron()).next(now.atZone(ZoneId.systemDefault()));
+        // A cron expression that never fires again leaves the definition idle
+        return next == null ? Instant.MAX : next.toInstant();
+    }
+
+    private void validate(CrawlDefinition definition) {
+        if (definition.getName() == null || definition.getName().isBlank()) {
+            throw new IllegalArgumentException("A crawl definition needs a name");
+        }
+        if (definitions.containsKey(definition.getName())) {
+            throw new IllegalArgumentException("A crawl named '" + definition.getName() + "' already exists");
+        }
+        String url = definition.getUrl();
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            throw new IllegalArgumentException("Crawl '" + definition.getName() + "' needs an http(s) URL");
+        }
+        for (CrawlDefinition other : definitions.values()) {
+            if (other.getUrl().equals(url)) {
+                throw new IllegalArgumentException("Crawl '" + other.getName() + "' already covers " + url);
+            }
+        }
+        if ((definition.getInterval() == null) == (definition.getCron() == null)) {
+            throw new IllegalArgumentException("Crawl '" + definition.getName() + "' needs exactly one of interval and cron");
+        }
+        if (definition.getInterval() != null && (definition.getInterval().isZero() || definition.getInterval().isNegative())) {
+            throw new IllegalArgumentException("Crawl '" + definition.getName() + "' needs a positive interval");
+        }
+        if (definition.getCron() != null) {
+            // Throws IllegalArgumentException with the parse error
+            CronExpression.parse(definition.getCron());
+        }
+        if (definition.getMaxPages() != null && definition.getMaxPages() < 1) {
+            throw new IllegalArgumentException("Crawl '" + definition.getName() + "' needs max-pages of at least 1");
+        }
+    }
+
+    private CrawlCheckpoint load() {
+        if (!Files.exists(checkpoint)) {
+            return new CrawlCheckpoint();
+        }
+        try {
+            return objectMapper.readValue(checkpoint.toFile(), CrawlCheckpoint.class);
+        } catch (IOException e) {
+            logger.error("Ignoring unreadable crawl checkpoint {}: {}", checkpoint, e.getMessage());
+            return new CrawlCheckpoint();
+        }
+    }
+
+    /** Writes the checkpoint to a temporary file and moves it into place, so a crash never leaves half a file. */
+    private void save() {
+        CrawlCheckpoint snapshot = new CrawlCheckpoint();
+        apiDefinitions.forEach(name -> snapshot.getDefinitions().add(definitions.get(name)));
+        snapshot.getStates().putAll(states);
+        try {
+            Path directory = checkpoint.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "crawl-checkpoint", ".tmp");
+            objectMapper.writeValue(temporary.toFile(), snapshot);
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to write crawl checkpoint {}: {}", checkpoint, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.service.crawl;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Progress of one definition, checkpointed to disk after every page. A running crawl
+ * resumes at {@code page} after a restart instead of starting over.
+ */
+@Data
+public class CrawlState {
+
+    private boolean running;
+    // Next page to fetch while running
+    private int page;
+    // Failed attempts at that page
+    private int attempts;
+    // Earliest time the page may be retried
+    private Instant notBefore;
+    private Instant cycleStartedAt;
+    private int cycleProducts;
+
+    private Instant nextRunAt;
+    private Instant lastCompletedAt;
+    private int lastPages;
+    private int lastProducts;
+    // Why the last run stopped early, null when it reached the end of the listing
+    private String lastError;
+}
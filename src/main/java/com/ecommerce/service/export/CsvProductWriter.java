@@ -0,0 +1,110 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.model.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV: a header row, CRLF line ends, and fields quoted only when they hold a comma,
+ * quote or line break, with quotes inside doubled. Times are ISO-8601 instants in UTC. Scraped text
+ * starting with {@code =}, {@code +}, {@code -} or {@code @} gets a leading {@code '} so spreadsheets
+ * show it rather than evaluate it as a formula; numbers and times are written as they are.
+ */
+final class CsvProductWriter implements ProductRowWriter {
+
+    private final Writer out;
+
+    CsvProductWriter(OutputStream out, int bufferSize) throws IOException {
+        // OutputStreamWriter encodes through its own small buffer; the caller's stream carries the fixed-size one
+        this.out = new OutputStreamWriter(new NonClosingOutputStream(out, bufferSize), StandardCharsets.UTF_8);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                this.out.write(',');
+            }
+            this.out.write(COLUMNS[i]);
+        }
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        field(product.getId());
+        out.write(',');
+        text(product.getProductKey());
+        out.write(',');
+        text(product.getName());
+        out.write(',');
+        text(product.getDescription());
+        out.write(',');
+        field(product.getPrice() == null ? null : product.getPrice().toPlainString());
+        out.write(',');
+        text(product.getImageUrl());
+        out.write(',');
+        text(product.getProductUrl());
+        out.write(',');
+        text(product.getWebsite());
+        out.write(',');
+        text(product.getCategory());
+        out.write(',');
+        text(product.getBrand());
+        out.write(',');
+        field(product.getRating());
+        out.write(',');
+        field(product.getReviewCount());
+        out.write(',');
+        field(product.getScrapedAt());
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void field(Object value) throws IOException {
+        if (value != null) {
+            quoted(value.toString());
+        }
+    }
+
+    private void text(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        quoted(!value.isEmpty() && isFormulaStart(value.charAt(0)) ? "'" + value : value);
+    }
+
+    private void quoted(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+            out.write(value, start, i + 1 - start);
+            out.write('"');
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    private static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@';
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
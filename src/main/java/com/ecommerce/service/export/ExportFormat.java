@@ -0,0 +1,44 @@
+package com.ecommerce.service.export;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    CSV_GZIP("application/gzip", "csv.gz"),
+    PARQUET("application/vnd.apache.parquet", "parquet");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name {@code csv}, {@code csv.gz} (or {@code gzip}) or {@code parquet}
+     * @throws IllegalArgumentException for any other name
+     */
+    public static ExportFormat parse(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "csv.gz":
+            case "gzip":
+                return CSV_GZIP;
+            case "parquet":
+                return PARQUET;
+            default:
+                throw new IllegalArgumentException("Unknown export format '" + name + "', expected csv, csv.gz or parquet");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.service.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Fixed-size write buffer in front of a stream it does not own: closing it flushes the
+ * buffer but leaves the underlying stream open.
+ */
+final class NonClosingOutputStream extends BufferedOutputStream {
+
+    private long written;
+
+    NonClosingOutputStream(OutputStream out, int bufferSize) {
+        super(out, bufferSize);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        super.write(b);
+        written++;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        written += len;
+    }
+
+    /** Bytes written so far, buffered or not. */
+    long position() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,394 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal Parquet writer for product rows, so analytics exports need no Hadoop stack.
+ * Every column is optional and PLAIN-encoded, strings are UTF8 byte arrays, the price is
+ * a DECIMAL(18,2) int64 and the scrape time a TIMESTAMP_MICROS int64. Rows are buffered
+ * column by column until the row group reaches its byte budget, then written as one
+ * gzip-compressed v1 data page per column, so memory stays bounded by the row group however
+ * many rows are exported. The footer is written by
+ * {@link #close()} in Thrift compact encoding, as the format requires.
+ */
+final class ParquetProductWriter implements ProductRowWriter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    // parquet.thrift enum values
+    private static final int INT32 = 1;
+    private static final int INT64 = 2;
+    private static final int DOUBLE = 5;
+    private static final int BYTE_ARRAY = 6;
+    private static final int OPTIONAL = 1;
+    private static final int UTF8 = 0;
+    private static final int DECIMAL = 5;
+    private static final int TIMESTAMP_MICROS = 10;
+    private static final int PLAIN = 0;
+    private static final int RLE = 3;
+    private static final int GZIP = 2;
+    private static final int DATA_PAGE = 0;
+
+    private final NonClosingOutputStream out;
+    private final int rowGroupBytes;
+    private final Column[] columns = {
+            new Column("id", INT64), new Column("productKey", BYTE_ARRAY), new Column("name", BYTE_ARRAY),
+            new Column("description", BYTE_ARRAY), new Column("price", INT64), new Column("imageUrl", BYTE_ARRAY),
+            new Column("productUrl", BYTE_ARRAY), new Column("website", BYTE_ARRAY), new Column("category", BYTE_ARRAY),
+            new Column("brand", BYTE_ARRAY), new Column("rating", DOUBLE), new Column("reviewCount", INT32),
+            new Column("scrapedAt", INT64)};
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private int rows;
+    private long totalRows;
+
+    ParquetProductWriter(OutputStream out, int bufferSize, int rowGroupBytes) throws IOException {
+        this.out = new NonClosingOutputStream(out, bufferSize);
+        this.rowGroupBytes = rowGroupBytes;
+        this.out.write(MAGIC);
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        columns[0].int64(product.getId());
+        columns[1].string(product.getProductKey());
+        columns[2].string(product.getName());
+        columns[3].string(product.getDescription());
+        columns[4].int64(product.getPrice() == null ? null
+                : product.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue());
+        columns[5].string(product.getImageUrl());
+        columns[6].string(product.getProductUrl());
+        columns[7].string(product.getWebsite());
+        columns[8].string(product.getCategory());
+        columns[9].string(product.getBrand());
+        columns[10].float64(product.getRating());
+        columns[11].int32(product.getReviewCount());
+        columns[12].int64(product.getScrapedAt() == null ? null
+                : ChronoUnit.MICROS.between(Instant.EPOCH, product.getScrapedAt()));
+        rows++;
+
+        long buffered = 0;
+        for (Column column : columns) {
+            buffered += column.values.size();
+        }
+        if (buffered >= rowGroupBytes) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rows > 0) {
+            flushRowGroup();
+        }
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        writeFileMetaData(new Thrift(footer));
+        footer.writeTo(out);
+        int length = footer.size();
+        out.write(new byte[]{(byte) length, (byte) (length >>> 8), (byte) (length >>> 16), (byte) (length >>> 24)});
+        out.write(MAGIC);
+        out.close();
+    }
+
+    private void flushRowGroup() throws IOException {
+        RowGroup group = new RowGroup(rows);
+        for (Column column : columns) {
+            ByteArrayOutputStream page = new ByteArrayOutputStream(column.values.size() + rows / 8 + 16);
+            writeDefinitionLevels(page, column.defined, rows);
+            column.values.writeTo(page);
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(page.size() / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                page.writeTo(gzip);
+            }
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+            Thrift thrift = new Thrift(header);
+            thrift.structBegin();
+            thrift.i32(1, DATA_PAGE);
+            thrift.i32(2, page.size());
+            thrift.i32(3, compressed.size());
+            thrift.fieldStruct(5);
+            thrift.i32(1, rows);
+            thrift.i32(2, PLAIN);
+            thrift.i32(3, RLE);
+            thrift.i32(4, RLE);
+            thrift.structEnd();
+            thrift.structEnd();
+
+            long offset = out.position();
+            header.writeTo(out);
+            compressed.writeTo(out);
+            group.chunks.add(new Chunk(column, offset, header.size() + page.size(), header.size() + compressed.size()));
+            column.reset();
+        }
+        rowGroups.add(group);
+        totalRows += rows;
+        rows = 0;
+    }
+
+    /** Levels are 0 or 1, so every value is one bit; written as bit-packed groups of eight. */
+    private static void writeDefinitionLevels(ByteArrayOutputStream page, byte[] defined, int count) throws IOException {
+        int groups = (count + 7) / 8;
+        ByteArrayOutputStream levels = new ByteArrayOutputStream(groups + 5);
+        writeVarint(levels, ((long) groups << 1) | 1);
+        levels.write(defined, 0, groups);
+        int length = levels.size();
+        page.write(length);
+        page.write(length >>> 8);
+        page.write(length >>> 16);
+        page.write(length >>> 24);
+        levels.writeTo(page);
+    }
+
+    private void writeFileMetaData(Thrift thrift) {
+        thrift.structBegin();
+        thrift.i32(1, 1);
+
+        thrift.fieldList(2, Thrift.STRUCT, columns.length + 1);
+        thrift.structBegin();
+        thrift.string(4, "product");
+        thrift.i32(5, columns.length);
+        thrift.structEnd();
+        for (Column column : columns) {
+            thrift.structBegin();
+            thrift.i32(1, column.type);
+            thrift.i32(3, OPTIONAL);
+            thrift.string(4, column.name);
+            if (column.type == BYTE_ARRAY) {
+                thrift.i32(6, UTF8);
+            } else if (column.name.equals("price")) {
+                thrift.i32(6, DECIMAL);
+                thrift.i32(7, 2);
+                thrift.i32(8, 18);
+            } else if (column.name.equals("scrapedAt")) {
+                thrift.i32(6, TIMESTAMP_MICROS);
+            }
+            thrift.structEnd();
+        }
+
+        thrift.i64(3, totalRows);
+
+        thrift.fieldList(4, Thrift.STRUCT, rowGroups.size());
+        for (RowGroup group : rowGroups) {
+            thrift.structBegin();
+            thrift.fieldList(1, Thrift.STRUCT, group.chunks.size());
+            long totalBytes = 0;
+            for (Chunk chunk : group.chunks) {
+                totalBytes += chunk.uncompressedSize;
+                thrift.structBegin();
+                thrift.i64(2, chunk.offset);
+                thrift.fieldStruct(3);
+                thrift.i32(1, chunk.column.type);
+                thrift.fieldList(2, Thrift.I32, 2);
+                thrift.listI32(PLAIN);
+                thrift.listI32(RLE);
+                thrift.fieldList(3, Thrift.BINARY, 1);
+                thrift.listString(chunk.column.name);
+                thrift.i32(4, GZIP);
+                thrift.i64(5, group.rows);
+                thrift.i64(6, chunk.uncompressedSize);
+                thrift.i64(7, chunk.compressedSize);
+                thrift.i64(9, chunk.offset);
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.i64(2, totalBytes);
+            thrift.i64(3, group.rows);
+            thrift.structEnd();
+        }
+
+        thrift.string(6, "web-scraper");
+        thrift.structEnd();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /** One column's values for the current row group, PLAIN-encoded, and a bit per row for whether it is set. */
+    private static final class Column {
+        private final String name;
+        private final int type;
+        private final ByteArrayOutputStream values = new ByteArrayOutputStream(8192);
+        private byte[] defined = new byte[1024];
+        private int count;
+
+        private Column(String name, int type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        void int64(Long value) {
+            if (define(value != null)) {
+                littleEndian(value, 8);
+            }
+        }
+
+        void int32(Integer value) {
+            if (define(value != null)) {
+                littleEndian(value, 4);
+            }
+        }
+
+        void float64(Double value) {
+            if (define(value != null)) {
+                littleEndian(Double.doubleToLongBits(value), 8);
+            }
+        }
+
+        void string(String value) {
+            if (define(value != null)) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                littleEndian(bytes.length, 4);
+                values.write(bytes, 0, bytes.length);
+            }
+        }
+
+        private boolean define(boolean present) {
+            if (count / 8 == defined.length) {
+                defined = Arrays.copyOf(defined, defined.length * 2);
+            }
+            if (present) {
+                defined[count / 8] |= (byte) (1 << (count % 8));
+            }
+            count++;
+            return present;
+        }
+
+        private void littleEndian(long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                values.write((int) (value >>> (8 * i)));
+            }
+        }
+
+        void reset() {
+            values.reset();
+            Arrays.fill(defined, 0, (count + 7) / 8, (byte) 0);
+            count = 0;
+        }
+    }
+
+    private static final class Chunk {
+        private final Column column;
+        private final long offset;
+        private final long uncompressedSize;
+        private final long compressedSize;
+
+        private Chunk(Column column, long offset, long uncompressedSize, long compressedSize) {
+            this.column = column;
+            this.offset = offset;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+        }
+    }
+
+    private static final class RowGroup {
+        private final int rows;
+        private final List<Chunk> chunks = new ArrayList<>();
+
+        private RowGroup(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    /** The subset of the Thrift compact protocol the Parquet footer and page headers need. */
+    private static final class Thrift {
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final ByteArrayOutputStream out;
+        private final int[] lastField = new int[8];
+        private int depth = -1;
+
+        Thrift(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        void structBegin() {
+            lastField[++depth] = 0;
+        }
+
+        void structEnd() {
+            out.write(0);
+            depth--;
+        }
+
+        void i32(int field, int value) {
+            header(field, I32);
+            writeVarint(out, zigzag(value));
+        }
+
+        void i64(int field, long value) {
+            header(field, I64);
+            writeVarint(out, zigzag(value));
+        }
+
+        void string(int field, String value) {
+            header(field, BINARY);
+            binary(value);
+        }
+
+        void fieldStruct(int field) {
+            header(field, STRUCT);
+            structBegin();
+        }
+
+        void fieldList(int field, int elementType, int size) {
+            header(field, LIST);
+            if (size < 15) {
+                out.write((size << 4) | elementType);
+            } else {
+                out.write(0xF0 | elementType);
+                writeVarint(out, size);
+            }
+        }
+
+        void listI32(int value) {
+            writeVarint(out, zigzag(value));
+        }
+
+        void listString(String value) {
+            binary(value);
+        }
+
+        private void binary(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        private void header(int field, int type) {
+            int delta = field - lastField[depth];
+            if (delta > 0 && delta <= 15) {
+                out.write((delta << 4) | type);
+            } else {
+                out.write(type);
+                writeVarint(out, zigzag(field));
+            }
+            lastField[depth] = field;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductIndex;
+import com.ecommerce.service.ScrapeJob;
+import com.ecommerce.service.extractor.SiteExtractorRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams products to a client in CSV, gzip-compressed CSV or Parquet. Sources are read a
+ * chunk at a time and rows go out through a buffer of {@code scraper.export.buffer-size}
+ * bytes, so an export's memory does not grow with the number of products; only Parquet
+ * holds a row group of up to {@code scraper.export.parquet.row-group-bytes} before writing it.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+
+    // How long a running-job export waits for the next page of products
+    private static final long JOB_POLL_MS = 250;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ProductIndex productIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SiteExtractorRegistry siteExtractors;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Every product in the search index, oldest first.
+     *
+     * @param website case-insensitive exact match, null for all
+     */
+    public void exportIndex(String website, ExportFormat format, OutputStream out) throws IOException {
+        ProductIndex.ScanCursor cursor = new ProductIndex.ScanCursor();
+        export("index", format, out, chunk -> productIndex.scan(cursor, website, chunkSize(), chunk));
+    }
+
+    /**
+     * Every persisted product in id order, read from one streamed query in a read-only
+     * transaction: rows arrive as the driver fetches them and are detached once copied into
+     * a chunk, so neither the result nor the persistence context grows with the table.
+     *
+     * @param website a supported site's name in any case, null for all
+     */
+    public void exportDatabase(String website, ExportFormat format, OutputStream out) throws IOException {
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Product> rows = website == null
+                        ? productRepository.streamAllByOrderByIdAsc()
+                        : productRepository.streamByWebsiteOrderByIdAsc(siteExtractors.websiteName(website.trim()))) {
+                    Iterator<Product> iterator = rows.iterator();
+                    export("database", format, out, chunk -> {
+                        int limit = chunkSize();
+                        while (chunk.size() < limit && iterator.hasNext()) {
+                            Product product = iterator.next();
+                            entityManager.detach(product);
+                            chunk.add(product);
+                        }
+                        return iterator.hasNext();
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The job's products, following it while it runs: the export ends once the job has
+     * finished and every product it extracted has been written.
+     */
+    public void exportJob(ScrapeJob job, ExportFormat format, OutputStream out) throws IOException {
+        int[] offset = {0};
+        export("job " + job.getId(), format, out, chunk -> {
+            while (true) {
+                // Read before fetching, so products delivered just before the job finished are not missed
+                boolean finished = job.isFinished();
+                List<Product> rows = job.getProducts(offset[0], chunkSize());
+                if (!rows.isEmpty()) {
+                    chunk.addAll(rows);
+                    offset[0] += rows.size();
+                    return true;
+                }
+                if (finished) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(JOB_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Export of job " + job.getId() + " interrupted");
+                }
+            }
+        });
+    }
+
+    private void export(String source, ExportFormat format, OutputStream out, Source chunks) throws IOException {
+        ScraperProperties.Export config = properties.getExport();
+        long started = System.nanoTime();
+        long rows = 0;
+        GZIPOutputStream gzip = format == ExportFormat.CSV_GZIP ? new GZIPOutputStream(out, config.getBufferSize()) : null;
+        try (ProductRowWriter writer = open(format, gzip != null ? gzip : out, config)) {
+            List<Product> chunk = new ArrayList<>(chunkSize());
+            boolean more = true;
+            while (more) {
+                chunk.clear();
+                more = chunks.next(chunk);
+                for (Product product : chunk) {
+                    writer.write(product);
+                }
+                rows += chunk.size();
+            }
+        }
+        if (gzip != null) {
+            gzip.finish();
+        }
+        out.flush();
+        logger.info("Exported {} products from {} as {} in {} ms", rows, source, format,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static ProductRowWriter open(ExportFormat format, OutputStream out, ScraperProperties.Export config) throws IOException {
+        switch (format) {
+            case PARQUET:
+                return new ParquetProductWriter(out, config.getBufferSize(), config.getParquet().getRowGroupBytes());
+            case CSV:
+            case CSV_GZIP:
+            default:
+                return new CsvProductWriter(out, config.getBufferSize());
+        }
+    }
+
+    private int chunkSize() {
+        return properties.getExport().getChunkSize();
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        /**
+         * Adds the next products to {@code chunk}.
+         *
+         * @return false once the source is exhausted
+         */
+        boolean next(List<Product> chunk) throws IOException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.model.Product;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes products in one export format. Rows go through a fixed-size buffer to the
+ * underlying stream; {@link #close()} writes any trailer and flushes, but leaves the
+ * stream itself open.
+ */
+public interface ProductRowWriter extends Closeable {
+
+    /** Columns of every export, in order. */
+    String[] COLUMNS = {"id", "productKey", "name", "description", "price", "imageUrl", "productUrl",
+            "website", "category", "brand", "rating", "reviewCount", "scrapedAt"};
+
+    void write(Product product) throws IOException;
+}
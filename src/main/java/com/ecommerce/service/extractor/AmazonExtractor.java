@@ -0,0 +1,74 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.exception.SiteBlockedException;
+import com.ecommerce.service.PageResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class AmazonExtractor extends ListingExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AmazonExtractor.class);
+
+    private static final Map<String, String> HEADERS = Map.ofEntries(
+            Map.entry("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/121.0.0.0 Safari/537.36 Edg/121.0.0.0"),
+            Map.entry("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7"),
+            Map.entry("Accept-Language", "en-US,en;q=0.9"),
+            Map.entry("Accept-Encoding", "gzip, deflate, br"),
+            Map.entry("Cache-Control", "no-cache"),
+            Map.entry("Pragma", "no-cache"),
+            Map.entry("Dnt", "1"),
+            Map.entry("Sec-Ch-Ua", "\"Not A(Brand\";v=\"99\", \"Microsoft Edge\";v=\"121\", \"Chromium\";v=\"121\""),
+            Map.entry("Sec-Ch-Ua-Mobile", "?0"),
+            Map.entry("Sec-Ch-Ua-Platform", "\"Windows\""),
+            Map.entry("Sec-Fetch-Dest", "document"),
+            Map.entry("Sec-Fetch-Mode", "navigate"),
+            Map.entry("Sec-Fetch-Site", "none"),
+            Map.entry("Sec-Fetch-User", "?1"),
+            Map.entry("Upgrade-Insecure-Requests", "1"),
+            Map.entry("Referer", "https://www.google.com"));
+
+    public AmazonExtractor() {
+        super("amazon");
+    }
+
+    @Override
+    public List<String> hosts() {
+        return List.of("amazon.com");
+    }
+
+    @Override
+    public String website() {
+        return "Amazon";
+    }
+
+    @Override
+    public String pageParameter() {
+        return "page";
+    }
+
+    @Override
+    public Map<String, String> requestHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public String emptyResultMessage() {
+        return "Amazon appears to be blocking access. Please try using eBay instead (ebay.com/sch/i.html?_nkw=laptop)";
+    }
+
+    @Override
+    protected PageResult blocked(int page) throws IOException {
+        if (page == 1) {
+            logger.error("Amazon is blocking access - detected CAPTCHA page");
+            throw new SiteBlockedException("Amazon is blocking automated access. Please try using eBay instead (ebay.com/sch/i.html?_nkw=laptop)");
+        }
+        logger.error("Amazon is blocking access on page {} - detected CAPTCHA", page);
+        return PageResult.blocked();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.service.extractor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class EbayExtractor extends ListingExtractor {
+
+    public EbayExtractor() {
+        super("ebay");
+    }
+
+    @Override
+    public List<String> hosts() {
+        return List.of("ebay.com");
+    }
+
+    @Override
+    public String website() {
+        return "eBay";
+    }
+
+    @Override
+    public String pageParameter() {
+        return "pgn";
+    }
+}
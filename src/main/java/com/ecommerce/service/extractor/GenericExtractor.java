@@ -0,0 +1,86 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.service.FetchedPage;
+import com.ecommerce.service.PageResult;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Best-effort fallback for hosts no other extractor claims. Pages that describe their
+ * products in schema.org structured data are read from that alone: JSON-LD first, straight
+ * from the raw body, then microdata. Only pages with neither fall back to the generic card
+ * selectors in {@code site-rules.yml}. The body is decoded to a string once for all of these.
+ */
+@Component
+public class GenericExtractor extends ListingExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenericExtractor.class);
+
+    public GenericExtractor() {
+        super("generic");
+    }
+
+    @Override
+    public List<String> hosts() {
+        return List.of();
+    }
+
+    @Override
+    public String website() {
+        return "generic";
+    }
+
+    @Override
+    public PageResult extract(int page, FetchedPage fetched) throws IOException {
+        String html = read(fetched);
+        List<Product> products = StructuredData.fromJsonLd(html, fetched.getUrl(), this::newProduct);
+        if (!products.isEmpty()) {
+            logger.debug("Found {} JSON-LD products on page {} of {}", products.size(), page, fetched.getUrl());
+            return PageResult.of(products);
+        }
+        if (!StructuredData.mayHaveMicrodata(html)) {
+            return extract(page, html, fetched.getUrl());
+        }
+        Document doc = Jsoup.parse(html, fetched.getUrl());
+        products = StructuredData.fromMicrodata(doc, this::newProduct);
+        if (!products.isEmpty()) {
+            logger.debug("Found {} microdata products on page {} of {}", products.size(), page, fetched.getUrl());
+            return PageResult.of(products);
+        }
+        return super.extract(page, doc);
+    }
+
+    @Override
+    public PageResult extract(int page, Document doc) throws IOException {
+        List<Product> products = StructuredData.fromJsonLd(doc, this::newProduct);
+        if (products.isEmpty()) {
+            products = StructuredData.fromMicrodata(doc, this::newProduct);
+        }
+        return products.isEmpty() ? super.extract(page, doc) : PageResult.of(products);
+    }
+
+    @Override
+    protected Product newProduct() {
+        // The site is unknown, so don't label products with a made-up name
+        return new Product();
+    }
+
+    private static String read(FetchedPage fetched) throws IOException {
+        StringBuilder html = new StringBuilder(Math.max(fetched.getStoredLength(), 1024));
+        char[] buffer = new char[8192];
+        try (Reader reader = fetched.openReader()) {
+            for (int read; (read = reader.read(buffer)) != -1; ) {
+                html.append(buffer, 0, read);
+            }
+        }
+        return html.toString();
+    }
+}
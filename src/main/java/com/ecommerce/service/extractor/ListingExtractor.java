@@ -0,0 +1,276 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.FetchedPage;
+import com.ecommerce.service.PageResult;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Base for sites whose result pages are a list of product cards. Selectors come from the
+ * site's entry in {@code site-rules.yml}; subclasses only describe the site itself.
+ */
+public abstract class ListingExtractor implements SiteExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingExtractor.class);
+
+    private final String rulesKey;
+
+    @Autowired
+    private SiteRulesLoader rulesLoader;
+
+    @Autowired
+    private ScraperProperties properties;
+
+    /**
+     * @param rulesKey the site's top-level key in {@code site-rules.yml}
+     */
+    protected ListingExtractor(String rulesKey) {
+        this.rulesKey = rulesKey;
+    }
+
+    public SiteRules rules() {
+        return rulesLoader.forSite(rulesKey);
+    }
+
+    @Override
+    public PageResult extract(int page, Document doc) throws IOException {
+        // One snapshot per page, so a reload never mixes old and new selectors
+        SiteRules rules = rules();
+        if (rules.isBlocked(doc)) {
+            return blocked(page);
+        }
+
+        Elements productElements = rules.products(doc);
+        if (productElements.isEmpty()) {
+            logger.debug("No {} product elements found on page {}", website(), page);
+            return PageResult.end();
+        }
+
+        logger.debug("Found {} {} product elements on page {}", productElements.size(), website(), page);
+        List<Product> products = new ArrayList<>(productElements.size());
+        int failed = 0;
+        int chunkSize = properties.getExtraction().getChunkSize();
+        if (chunkSize > 0 && productElements.size() > chunkSize && ForkJoinTask.inForkJoinPool()) {
+            // Cards only read the document, so chunks can share it; merging in chunk order keeps page order
+            List<CardChunk> chunks = new ArrayList<>();
+            for (int from = 0; from < productElements.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, productElements.size());
+                chunks.add(new CardChunk(productElements.subList(from, to), rules));
+            }
+            ForkJoinTask.invokeAll(chunks);
+            for (CardChunk chunk : chunks) {
+                products.addAll(chunk.products);
+                failed += chunk.failed;
+            }
+        } else {
+            for (Element element : productElements) {
+                failed += addProduct(products, element, rules);
+            }
+        }
+        return finish(page, products, failed);
+    }
+
+    /**
+     * Streams the body through jsoup's {@link StreamParser}: each card is extracted as soon as
+     * its closing tag is parsed and then detached, as is every completed element outside a
+     * card, so the live tree is one card plus its open ancestors rather than the whole page.
+     * On the extraction pool, every {@code chunk-size} detached cards are forked as one task,
+     * so other workers extract them while this one keeps parsing.
+     */
+    @Override
+    public PageResult extract(int page, FetchedPage fetched) throws IOException {
+        if (!properties.getExtraction().isStreaming()) {
+            return extract(page, fetched.parse());
+        }
+        return extract(page, fetched.openReader(), fetched.getUrl());
+    }
+
+    /**
+     * Variant for a body the caller has already decoded, so it is not decoded a second time:
+     * streamed the same way, or parsed whole when streaming is off.
+     */
+    protected PageResult extract(int page, String html, String url) throws IOException {
+        if (!properties.getExtraction().isStreaming()) {
+            return extract(page, Jsoup.parse(html, url));
+        }
+        return extract(page, new StringReader(html), url);
+    }
+
+    private PageResult extract(int page, Reader body, String url) throws IOException {
+        SiteRules rules = rules();
+        int chunkSize = properties.getExtraction().getChunkSize();
+        boolean chunked = chunkSize > 0 && ForkJoinTask.inForkJoinPool();
+        List<Product> products = new ArrayList<>();
+        List<CardChunk> forked = new ArrayList<>();
+        List<Element> pending = new ArrayList<>();
+        int cards = 0;
+        int failed = 0;
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(body, url)) {
+            Document doc = parser.document();
+            // Whether each open element is a card or inside one, decided once per element
+            Map<Element, Boolean> inCard = new IdentityHashMap<>();
+            for (Iterator<Element> completed = parser.iterator(); completed.hasNext(); ) {
+                Element element = completed.next();
+                inCard.remove(element);
+                if (rules.isBlocked(doc, element)) {
+                    forked.forEach(chunk -> chunk.cancel(false));
+                    return blocked(page);
+                }
+                if (rules.isProduct(doc, element)) {
+                    cards++;
+                    if (!chunked) {
+                        failed += addProduct(products, element, rules);
+                        element.remove();
+                        continue;
+                    }
+                    // Once detached the parser never reaches the card again, so another worker can read it
+                    element.remove();
+                    pending.add(element);
+                    if (pending.size() == chunkSize) {
+                        CardChunk chunk = new CardChunk(pending, rules);
+                        chunk.fork();
+                        forked.add(chunk);
+                        pending = new ArrayList<>(chunkSize);
+                    }
+                } else if (!insideCard(doc, element.parent(), rules, inCard)) {
+                    element.remove();
+                }
+            }
+        }
+
+        // Chunks are merged in the order they were cut, which keeps page order
+        for (CardChunk chunk : forked) {
+            chunk.join();
+            products.addAll(chunk.products);
+            failed += chunk.failed;
+        }
+        for (Element card : pending) {
+            failed += addProduct(products, card, rules);
+        }
+
+        if (cards == 0) {
+            logger.debug("No {} product elements found on page {}", website(), page);
+            return PageResult.end();
+        }
+        logger.debug("Found {} {} product elements on page {}", cards, website(), page);
+        return finish(page, products, failed);
+    }
+
+    private PageResult finish(int page, List<Product> products, int failed) {
+        if (failed > 0) {
+            logger.warn("Skipped {} {} product cards on page {} that failed to parse", failed, website(), page);
+        }
+        return PageResult.of(products);
+    }
+
+    private static boolean insideCard(Document doc, Element open, SiteRules rules, Map<Element, Boolean> inCard) {
+        if (open == null || open == doc) {
+            return false;
+        }
+        Boolean known = inCard.get(open);
+        if (known == null) {
+            known = rules.isProduct(doc, open) || insideCard(doc, open.parent(), rules, inCard);
+            inCard.put(open, known);
+        }
+        return known;
+    }
+
+    /**
+     * @return 1 when the card threw while being extracted, so callers can report failures once per page
+     */
+    private int addProduct(List<Product> products, Element element, SiteRules rules) {
+        try {
+            Product product = extractProduct(element, rules);
+            if (product != null) {
+                products.add(product);
+            }
+            return 0;
+        } catch (Exception e) {
+            logger.debug("Error parsing {} product", website(), e);
+            return 1;
+        }
+    }
+
+    /** A run of one page's cards, extracted as one task on the extraction pool. */
+    private final class CardChunk extends RecursiveAction {
+        private final List<Element> cards;
+        private final SiteRules rules;
+        private final List<Product> products;
+        private int failed;
+
+        CardChunk(List<Element> cards, SiteRules rules) {
+            this.cards = cards;
+            this.rules = rules;
+            this.products = new ArrayList<>(cards.size());
+        }
+
+        @Override
+        protected void compute() {
+            for (Element card : cards) {
+                failed += addProduct(products, card, rules);
+            }
+        }
+    }
+
+    /**
+     * Called when the site's {@code blocked} selector matches.
+     *
+     * @throws IOException to fail the whole scrape instead of ending it quietly
+     */
+    protected PageResult blocked(int page) throws IOException {
+        logger.error("{} is blocking access on page {}", website(), page);
+        return PageResult.blocked();
+    }
+
+    /**
+     * @return the product on this card, or null when a required field is missing
+     */
+    protected Product extractProduct(Element element, SiteRules rules) {
+        Product product = newProduct();
+
+        product.setName(rules.value(element, "name"));
+        if (product.getName() == null && rules.isRequired("name")) {
+            return null;
+        }
+
+        String priceText = rules.value(element, "price");
+        if (priceText != null) {
+            product.setPrice(Prices.parse(priceText));
+        }
+        if (product.getPrice() == null && rules.isRequired("price")) {
+            return null;
+        }
+
+        product.setDescription(rules.value(element, "description"));
+        product.setImageUrl(rules.value(element, "imageUrl"));
+        product.setProductUrl(rules.value(element, "productUrl"));
+        product.setProductKey(ProductKeys.of(product, rules.value(element, "itemId")));
+        return product;
+    }
+
+    protected Product newProduct() {
+        Product product = new Product();
+        product.setWebsite(website());
+        return product;
+    }
+}
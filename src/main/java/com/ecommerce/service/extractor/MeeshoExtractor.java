@@ -0,0 +1,23 @@
+package com.ecommerce.service.extractor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class MeeshoExtractor extends ListingExtractor {
+
+    public MeeshoExtractor() {
+        super("meesho");
+    }
+
+    @Override
+    public List<String> hosts() {
+        return List.of("meesho.com");
+    }
+
+    @Override
+    public String website() {
+        return "Meesho";
+    }
+}
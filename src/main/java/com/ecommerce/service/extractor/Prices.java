@@ -0,0 +1,145 @@
+package com.ecommerce.service.extractor;
+
+import java.math.BigDecimal;
+
+/**
+ * Price parsing shared by all extractors. Prices are read in a single pass over the text
+ * into a scaled {@code long} of hundredths ({@code "$1,299.99"} is {@code 129999}) without
+ * regexes, intermediate strings or exceptions; {@link BigDecimal} is only built at the
+ * {@code Product} edge.
+ *
+ * <p>The first number in the text wins, so ranges ({@code "$12.99 to $15.99"}) and
+ * repeated labels ({@code "current price $24.97$24.97"}) yield their first price. Currency
+ * symbols and words around the number are skipped. The decimal separator is inferred:
+ * with both {@code .} and {@code ,} present the last one is decimal ({@code "1.299,00"}), a lone separator followed by exactly three digits groups
+ * thousands ({@code "1,299"}), and any other lone separator is decimal ({@code "12,99"}).
+ * Spaces and apostrophes followed by exactly three digits are treated as grouping.
+ */
+public final class Prices {
+
+    /** Returned when the text holds no usable price. */
+    public static final long NO_PRICE = -1L;
+
+    // Longer numbers are not prices; 16 digits times 100 still fits in a long
+    private static final int MAX_DIGITS = 16;
+
+    private Prices() {
+    }
+
+    /**
+     * @return the price, or null when the text holds none
+     */
+    public static BigDecimal parse(String text) {
+        long hundredths = parseHundredths(text);
+        return hundredths == NO_PRICE ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    /**
+     * @return the first price in the text in hundredths, or {@link #NO_PRICE}
+     */
+    public static long parseHundredths(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && !isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return NO_PRICE;
+        }
+
+        long digits = 0;
+        int digitCount = 0;
+        int digitsAfterSeparator = 0;
+        char lastSeparator = 0;
+        int lastSeparatorCount = 0;
+        boolean mixedSeparators = false;
+        // ".99" - the number starts at its decimal point, unless the point ends a word ("Rs.499")
+        if (i > 0 && (text.charAt(i - 1) == '.' || text.charAt(i - 1) == ',')
+                && (i == 1 || !Character.isLetter(text.charAt(i - 2)))) {
+            lastSeparator = text.charAt(i - 1);
+            lastSeparatorCount = 1;
+        }
+        boolean wholePartZero = true;
+
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                if (++digitCount > MAX_DIGITS) {
+                    return NO_PRICE;
+                }
+                digits = digits * 10 + (c - '0');
+                digitsAfterSeparator++;
+                if (lastSeparator == 0 && c != '0') {
+                    wholePartZero = false;
+                }
+                continue;
+            }
+            // A separator only belongs to the number when a digit follows it
+            if (i + 1 == length || !isDigit(text.charAt(i + 1))) {
+                break;
+            }
+            if (c == '.' || c == ',') {
+                if (lastSeparator != 0 && lastSeparator != c) {
+                    mixedSeparators = true;
+                    lastSeparatorCount = 0;
+                }
+                lastSeparator = c;
+                lastSeparatorCount++;
+                digitsAfterSeparator = 0;
+            } else if (!isGroupSpace(c) || !isThreeDigitGroup(text, i + 1)) {
+                break;
+            }
+        }
+
+        int fractionDigits = 0;
+        if (lastSeparator != 0) {
+            // "0.995" cannot be a thousands group, "1,299" is taken to be one
+            boolean decimal = mixedSeparators
+                    || lastSeparatorCount == 1 && (digitsAfterSeparator != 3 || wholePartZero);
+            if (decimal) {
+                fractionDigits = digitsAfterSeparator;
+            }
+        }
+        return toHundredths(digits, fractionDigits);
+    }
+
+    private static long toHundredths(long digits, int fractionDigits) {
+        switch (fractionDigits) {
+            case 0:
+                return digits * 100;
+            case 1:
+                return digits * 10;
+            case 2:
+                return digits;
+            default:
+                long divisor = 1;
+                for (int i = 2; i < fractionDigits; i++) {
+                    divisor *= 10;
+                }
+                // Round half up to the nearest hundredth
+                return (digits + divisor / 2) / divisor;
+        }
+    }
+
+    private static boolean isGroupSpace(char c) {
+        return c == ' ' || c == '\'' || c == '\u00A0' || c == '\u202F';
+    }
+
+    /** Spaces and apostrophes only group digits when exactly three follow, as in "1 299,00". */
+    private static boolean isThreeDigitGroup(CharSequence text, int start) {
+        int end = start + 3;
+        if (end > text.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return end == text.length() || !isDigit(text.charAt(end));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.model.Product;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Stable identity of a product across scrapes. In order of preference the key is the site's
+ * own item id ({@code amazon:B07XJ8C8F5}), a hash of the canonical product URL (scheme, query
+ * and fragment dropped, since they carry tracking and session noise), or a hash of the
+ * normalized name. Keys are prefixed with the website so equal ids on different sites never
+ * collide.
+ */
+public final class ProductKeys {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ProductKeys() {
+    }
+
+    /**
+     * @param itemId the site's item id from the card, or null when the site has none
+     * @return the key, or null when the product has neither an id, a URL nor a name
+     */
+    public static String of(Product product, String itemId) {
+        String site = product.getWebsite() == null ? "" : product.getWebsite().toLowerCase(Locale.ROOT);
+        if (itemId != null && !itemId.isBlank()) {
+            return site + ':' + itemId.trim();
+        }
+        String url = canonicalUrl(product.getProductUrl());
+        if (url != null) {
+            return site + ":u" + hash(url);
+        }
+        String name = normalizeName(product.getName());
+        return name.isEmpty() ? null : site + ":n" + hash(name);
+    }
+
+    /** Lower-cased host plus path, or null when the URL is missing or not absolute. */
+    static String canonicalUrl(String productUrl) {
+        if (productUrl == null || productUrl.isBlank()) {
+            return null;
+        }
+        try {
+            URI uri = new URI(productUrl.trim());
+            if (uri.getHost() == null) {
+                return null;
+            }
+            String host = uri.getHost().toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            return host + (path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /** Lower-cased letters and digits, with every other run of characters collapsed to one space. */
+    static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean gap = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /** First 64 bits of the SHA-256 digest, as 16 hex digits. */
+    private static String hash(String text) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        char[] hex = new char[16];
+        for (int i = 0; i < 8; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.service.FetchedPage;
+import com.ecommerce.service.PageResult;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns one site's result pages into products. Fetching, caching and pagination are shared
+ * by {@link com.ecommerce.service.WebScraperService}; an extractor only describes the site.
+ * Implementations are singletons used by many scrapes at once, so they must be stateless,
+ * and selectors should be compiled once when the extractor is constructed.
+ */
+public interface SiteExtractor {
+
+    Map<String, String> BROWSER_HEADERS = Map.of(
+            "User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36",
+            "Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8",
+            "Accept-Language", "en-US,en;q=0.5",
+            "Accept-Encoding", "gzip, deflate, br",
+            "DNT", "1",
+            "Upgrade-Insecure-Requests", "1",
+            "Referer", "https://www.google.com");
+
+    /** Host suffixes served by this extractor, e.g. {@code amazon.com}; empty for the fallback. */
+    List<String> hosts();
+
+    /** Site name used in logs and as {@code Product.website}. */
+    String website();
+
+    /** Query parameter selecting the result page, or null when only the requested page is scraped. */
+    default String pageParameter() {
+        return null;
+    }
+
+    default Map<String, String> requestHeaders() {
+        return BROWSER_HEADERS;
+    }
+
+    /** Error raised when a whole scrape yields nothing, or null to return an empty result. */
+    default String emptyResultMessage() {
+        return null;
+    }
+
+    /**
+     * @return the page's products, or {@link PageResult#end()} when there are none
+     * @throws IOException when the site refuses the scrape outright
+     */
+    PageResult extract(int page, Document doc) throws IOException;
+
+    /**
+     * Extracts straight from the fetched body. Parses the whole document by default;
+     * extractors that can work on a partial tree override this to stream instead.
+     */
+    default PageResult extract(int page, FetchedPage fetched) throws IOException {
+        return extract(page, fetched.parse());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.service.extractor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the extractor for a host by its registered suffix, so {@code www.ebay.com}
+ * and {@code ebay.com} both reach {@link EbayExtractor}. Every {@link SiteExtractor}
+ * bean is registered; hosts nobody claims fall back to {@link GenericExtractor}.
+ */
+@Component
+public class SiteExtractorRegistry {
+
+    private final Map<String, SiteExtractor> byHost = new HashMap<>();
+    private final Map<String, String> websites = new HashMap<>();
+
+    @Autowired
+    private List<SiteExtractor> extractors;
+
+    @Autowired
+    private GenericExtractor fallback;
+
+    @PostConstruct
+    void register() {
+        for (SiteExtractor extractor : extractors) {
+            websites.put(extractor.website().toLowerCase(Locale.ROOT), extractor.website());
+            for (String host : extractor.hosts()) {
+                SiteExtractor previous = byHost.put(host.toLowerCase(), extractor);
+                if (previous != null) {
+                    throw new IllegalStateException("Host " + host + " is claimed by both "
+                            + previous.getClass().getSimpleName() + " and " + extractor.getClass().getSimpleName());
+                }
+            }
+            // Fail at startup rather than on the first scrape if a site has no selector rules
+            if (extractor instanceof ListingExtractor) {
+                ((ListingExtractor) extractor).rules();
+            }
+        }
+    }
+
+    public SiteExtractor resolve(String host) {
+        // One hash lookup per label, so the cost does not grow with the number of sites
+        String suffix = host.toLowerCase();
+        while (true) {
+            SiteExtractor extractor = byHost.get(suffix);
+            if (extractor != null) {
+                return extractor;
+            }
+            int dot = suffix.indexOf('.');
+            if (dot < 0) {
+                return fallback;
+            }
+            suffix = suffix.substring(dot + 1);
+        }
+    }
+
+    /**
+     * The website name as extractors store it on products, matched case-insensitively, so an
+     * exact (indexed) comparison can serve a filter typed in any case. Unknown names are
+     * returned unchanged.
+     */
+    public String websiteName(String name) {
+        return websites.getOrDefault(name.toLowerCase(Locale.ROOT), name);
+    }
+}
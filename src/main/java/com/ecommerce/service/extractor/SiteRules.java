@@ -0,0 +1,106 @@
+package com.ecommerce.service.extractor;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A site's selectors compiled into jsoup {@link Evaluator}s. Immutable, so one instance is
+ * shared by every scrape until {@link SiteRulesLoader} swaps in a reloaded set.
+ */
+public final class SiteRules {
+
+    private final Evaluator products;
+    private final Evaluator blocked;
+    private final Set<String> required;
+    private final Map<String, Field> fields;
+
+    private SiteRules(Evaluator products, Evaluator blocked, Set<String> required, Map<String, Field> fields) {
+        this.products = products;
+        this.blocked = blocked;
+        this.required = required;
+        this.fields = fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the definition is incomplete or a selector does not parse
+     */
+    static SiteRules compile(String site, SiteRulesDefinition definition) {
+        if (definition.getProducts() == null) {
+            throw new IllegalArgumentException("Site " + site + " has no 'products' selector");
+        }
+        Map<String, Field> fields = new HashMap<>();
+        definition.getFields().forEach((name, field) -> {
+            Evaluator[] chain = field.getSelect().stream().map(QueryParser::parse).toArray(Evaluator[]::new);
+            fields.put(name, new Field(chain, field.getAttr()));
+        });
+        for (String name : definition.getRequired()) {
+            if (!fields.containsKey(name)) {
+                throw new IllegalArgumentException("Site " + site + " requires undefined field '" + name + "'");
+            }
+        }
+        return new SiteRules(
+                QueryParser.parse(definition.getProducts()),
+                definition.getBlocked() == null ? null : QueryParser.parse(definition.getBlocked()),
+                Set.copyOf(definition.getRequired()),
+                Map.copyOf(fields));
+    }
+
+    public Elements products(Document doc) {
+        return doc.select(products);
+    }
+
+    public boolean isBlocked(Document doc) {
+        return blocked != null && doc.selectFirst(blocked) != null;
+    }
+
+    /**
+     * Tests one element of a document that may still be parsing. Its own attributes and
+     * ancestors are always known, its children only once the element has been completed.
+     */
+    public boolean isProduct(Element root, Element element) {
+        return products.matches(root, element);
+    }
+
+    public boolean isBlocked(Element root, Element element) {
+        return blocked != null && blocked.matches(root, element);
+    }
+
+    public boolean isRequired(String field) {
+        return required.contains(field);
+    }
+
+    /**
+     * @return the field's text (or attribute) from the first selector that matches, null if none does
+     */
+    public String value(Element element, String field) {
+        Field rule = fields.get(field);
+        return rule == null ? null : rule.value(element);
+    }
+
+    private static final class Field {
+        private final Evaluator[] chain;
+        private final String attr;
+
+        private Field(Evaluator[] chain, String attr) {
+            this.chain = chain;
+            this.attr = attr;
+        }
+
+        String value(Element element) {
+            for (Evaluator selector : chain) {
+                Element match = element.selectFirst(selector);
+                if (match != null) {
+                    return attr == null ? match.text() : match.attr(attr);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.service.extractor;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One site's entry in {@code site-rules.yml}, as written. See {@link SiteRules} for the compiled form.
+ */
+@Data
+public class SiteRulesDefinition {
+
+    private String products;
+    private String blocked;
+    private List<String> required = new ArrayList<>();
+    private Map<String, FieldDefinition> fields = new LinkedHashMap<>();
+
+    @Data
+    public static class FieldDefinition {
+        private List<String> select = new ArrayList<>();
+        // Attribute to read instead of the element text
+        private String attr;
+    }
+}
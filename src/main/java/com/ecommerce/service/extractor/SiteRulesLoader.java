@@ -0,0 +1,104 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.config.ScraperProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads {@code site-rules.yml}, compiles it and swaps the whole rule set in atomically.
+ * When the location is a plain file it is checked for changes periodically, so a broken
+ * selector can be fixed without a restart. A reload that fails to parse or compile, or
+ * that drops a site, is rejected and the previous rules stay in effect.
+ */
+@Component
+public class SiteRulesLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteRulesLoader.class);
+
+    private static final TypeReference<Map<String, SiteRulesDefinition>> DEFINITIONS = new TypeReference<>() { };
+
+    private final ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
+    private final AtomicReference<Map<String, SiteRules>> rules = new AtomicReference<>(Map.of());
+
+    @Autowired
+    private ScraperProperties properties;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private Resource resource;
+    private long lastModified;
+
+    @PostConstruct
+    void load() throws IOException {
+        resource = resourceLoader.getResource(properties.getSelectors().getLocation());
+        lastModified = lastModified();
+        rules.set(compile(read()));
+        logger.info("Loaded selector rules for {} sites from {}", rules.get().size(), resource.getDescription());
+    }
+
+    public SiteRules forSite(String site) {
+        SiteRules siteRules = rules.get().get(site);
+        if (siteRules == null) {
+            throw new IllegalStateException("No selector rules for site '" + site + "' in " + resource.getDescription());
+        }
+        return siteRules;
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.selectors.reload-interval:5000}")
+    public void reloadIfChanged() {
+        long modified = lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        lastModified = modified;
+        try {
+            Map<String, SiteRules> reloaded = compile(read());
+            for (String site : rules.get().keySet()) {
+                if (!reloaded.containsKey(site)) {
+                    throw new IllegalArgumentException("site '" + site + "' was removed");
+                }
+            }
+            rules.set(reloaded);
+            logger.info("Reloaded selector rules for {} sites from {}", reloaded.size(), resource.getDescription());
+        } catch (Exception e) {
+            logger.error("Rejected selector rules from {}, keeping previous rules: {}", resource.getDescription(), e.getMessage());
+        }
+    }
+
+    private Map<String, SiteRulesDefinition> read() throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return yaml.readValue(in, DEFINITIONS);
+        }
+    }
+
+    private static Map<String, SiteRules> compile(Map<String, SiteRulesDefinition> definitions) {
+        Map<String, SiteRules> compiled = new HashMap<>();
+        definitions.forEach((site, definition) -> compiled.put(site, SiteRules.compile(site, definition)));
+        return Map.copyOf(compiled);
+    }
+
+    private long lastModified() {
+        // Resources inside a jar cannot change, only file locations are watched
+        try {
+            return resource.isFile() ? resource.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
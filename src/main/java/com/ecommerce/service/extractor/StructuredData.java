@@ -0,0 +1,539 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Products a page describes in schema.org structured data, which shops publish for search
+ * engines and which is far more reliable than guessing at their markup. JSON-LD is found by
+ * scanning the raw body for {@code application/ld+json} script blocks, so no document is
+ * built, and each block is read with Jackson's streaming parser keeping only the fields a
+ * {@link Product} needs. {@code Product} entities are taken from anywhere in a block: top
+ * level, {@code @graph}, {@code ItemList} elements or an {@code Offer}'s {@code itemOffered}.
+ * Microdata ({@code itemscope itemtype=".../Product"}) needs the parsed document.
+ *
+ * <p>Only products with a name are returned, and a product described twice on a page is
+ * returned once.
+ */
+public final class StructuredData {
+
+    private static final Logger logger = LoggerFactory.getLogger(StructuredData.class);
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            // Hand-written blocks often have raw line breaks in strings or a trailing comma
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
+
+    private static final String MICRODATA_PRODUCT = "schema.org/Product";
+
+    private StructuredData() {
+    }
+
+    /**
+     * @param html    the page markup
+     * @param pageUrl base for relative product and image URLs
+     * @return the products of every JSON-LD block, in document order; empty when there are none
+     */
+    public static List<Product> fromJsonLd(String html, String pageUrl, Supplier<Product> newProduct) {
+        Mapping mapping = new Mapping(pageUrl, newProduct);
+        for (int from = 0; ; ) {
+            int script = indexOfIgnoreCase(html, "<script", from);
+            if (script < 0) {
+                break;
+            }
+            int tagEnd = html.indexOf('>', script);
+            if (tagEnd < 0) {
+                break;
+            }
+            int close = indexOfIgnoreCase(html, "</script", tagEnd);
+            if (close < 0) {
+                break;
+            }
+            if (indexOfIgnoreCase(html.substring(script, tagEnd), "ld+json", 0) >= 0) {
+                mapping.readBlock(html.substring(tagEnd + 1, close));
+            }
+            from = close + 8;
+        }
+        return mapping.products;
+    }
+
+    /** JSON-LD variant for an already parsed document. */
+    public static List<Product> fromJsonLd(Document doc, Supplier<Product> newProduct) {
+        Mapping mapping = new Mapping(doc.location(), newProduct);
+        for (Element script : doc.select("script[type~=(?i)ld\\+json]")) {
+            mapping.readBlock(script.data());
+        }
+        return mapping.products;
+    }
+
+    /** Cheap test on the raw body for whether {@link #fromMicrodata} can find anything. */
+    public static boolean mayHaveMicrodata(String html) {
+        return html.contains(MICRODATA_PRODUCT);
+    }
+
+    /**
+     * @return the products of every top-level microdata {@code Product} item, in document order
+     */
+    public static List<Product> fromMicrodata(Document doc, Supplier<Product> newProduct) {
+        Mapping mapping = new Mapping(doc.location(), newProduct);
+        for (Element item : doc.select("[itemscope][itemtype*=" + MICRODATA_PRODUCT + "]")) {
+            if (!isProductType(item.attr("itemtype")) || insideProduct(item)) {
+                continue;
+            }
+            Entity entity = new Entity();
+            entity.product = true;
+            entity.name = itemProp(item, "name");
+            entity.description = itemProp(item, "description");
+            entity.url = itemProp(item, "url");
+            entity.image = itemProp(item, "image");
+            entity.sku = first(itemProp(item, "sku"), itemProp(item, "productID"));
+            entity.category = itemProp(item, "category");
+
+            Element brand = itemPropElement(item, "brand");
+            if (brand != null) {
+                entity.brand = brand.hasAttr("itemscope") ? itemProp(brand, "name") : propValue(brand);
+            }
+            Element offers = itemPropElement(item, "offers");
+            entity.price = price(offers == null ? itemProp(item, "price")
+                    : first(itemProp(offers, "price"), itemProp(offers, "lowPrice")));
+            Element rating = itemPropElement(item, "aggregateRating");
+            if (rating != null) {
+                entity.rating = decimal(itemProp(rating, "ratingValue"));
+                entity.reviewCount = integer(first(itemProp(rating, "reviewCount"), itemProp(rating, "ratingCount")));
+            }
+            mapping.emit(entity);
+        }
+        return mapping.products;
+    }
+
+    private static boolean insideProduct(Element item) {
+        for (Element parent = item.parent(); parent != null; parent = parent.parent()) {
+            if (parent.hasAttr("itemscope") && isProductType(parent.attr("itemtype"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** First element carrying the property whose nearest enclosing item is {@code item}. */
+    private static Element itemPropElement(Element item, String name) {
+        for (Element element : item.select("[itemprop]")) {
+            if (element == item || !hasToken(element.attr("itemprop"), name)) {
+                continue;
+            }
+            Element scope = element.parent();
+            while (scope != null && scope != item && !scope.hasAttr("itemscope")) {
+                scope = scope.parent();
+            }
+            if (scope == item) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static String itemProp(Element item, String name) {
+        Element element = itemPropElement(item, name);
+        return element == null ? null : propValue(element);
+    }
+
+    /** The property value as the microdata spec reads it from each kind of element. */
+    private static String propValue(Element element) {
+        String value;
+        if (element.hasAttr("content")) {
+            value = element.attr("content");
+        } else {
+            switch (element.normalName()) {
+                case "a":
+                case "link":
+                case "area":
+                    value = element.absUrl("href");
+                    break;
+                case "img":
+                case "source":
+                    value = element.absUrl("src");
+                    break;
+                case "time":
+                    value = element.hasAttr("datetime") ? element.attr("datetime") : element.text();
+                    break;
+                case "data":
+                case "meter":
+                    value = element.attr("value");
+                    break;
+                default:
+                    value = element.text();
+            }
+        }
+        return value.isBlank() ? null : value.trim();
+    }
+
+    private static boolean hasToken(String tokens, String token) {
+        for (String candidate : tokens.trim().split("\\s+")) {
+            if (candidate.equals(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Matches {@code Product}, {@code schema:Product} and {@code https://schema.org/Product}, not {@code ProductGroup}. */
+    private static boolean isProductType(String type) {
+        String trimmed = type.trim();
+        int separator = Math.max(trimmed.lastIndexOf('/'), trimmed.lastIndexOf(':'));
+        return trimmed.substring(separator + 1).equals("Product");
+    }
+
+    private static boolean isOfferType(String type) {
+        String trimmed = type.trim();
+        int separator = Math.max(trimmed.lastIndexOf('/'), trimmed.lastIndexOf(':'));
+        String name = trimmed.substring(separator + 1);
+        return name.equals("Offer") || name.equals("AggregateOffer");
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        int last = text.length() - needle.length();
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String first(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static BigDecimal price(String text) {
+        return text == null ? null : Prices.parse(text);
+    }
+
+    private static Double decimal(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer integer(String text) {
+        if (text == null) {
+            return null;
+        }
+        long hundredths = Prices.parseHundredths(text);
+        return hundredths == Prices.NO_PRICE || hundredths / 100 > Integer.MAX_VALUE ? null : (int) (hundredths / 100);
+    }
+
+    /** The fields of one JSON-LD or microdata entity a product can draw on, whatever its type. */
+    private static final class Entity {
+        private boolean product;
+        private boolean offer;
+        private String name;
+        private String description;
+        private String url;
+        private String image;
+        private String sku;
+        private String brand;
+        private String category;
+        private BigDecimal price;
+        private Double rating;
+        private Integer reviewCount;
+        // Products named by an Offer's itemOffered, which take the offer's price
+        private List<Product> offered;
+        // What this entity became, if it was a product
+        private Product emitted;
+    }
+
+    /** One page's mapping state: the products found so far and the keys already returned. */
+    private static final class Mapping {
+        private final String pageUrl;
+        private final Supplier<Product> newProduct;
+        private final List<Product> products = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+        // Products nested in a product (related items, accessories) are not listings of the page
+        private int productDepth;
+
+        private Mapping(String pageUrl, Supplier<Product> newProduct) {
+            this.pageUrl = pageUrl;
+            this.newProduct = newProduct;
+        }
+
+        void readBlock(String json) {
+            // A malformed block can end the read inside a product
+            productDepth = 0;
+            try (JsonParser parser = JSON.createParser(json)) {
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    readValue(parser, token);
+                }
+            } catch (JsonProcessingException e) {
+                logger.debug("Skipping malformed JSON-LD block on {}: {}", pageUrl, e.getOriginalMessage());
+            } catch (IOException e) {
+                // Reading from a String, so only malformed input can get here
+                logger.debug("Skipping unreadable JSON-LD block on {}", pageUrl, e);
+            }
+        }
+
+        /**
+         * Reads the value at the current token: objects become entities, arrays a list of
+         * their elements, and scalars their text.
+         */
+        private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT:
+                    return readEntity(parser);
+                case START_ARRAY:
+                    List<Object> values = new ArrayList<>();
+                    for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+                        Object value = readValue(parser, element);
+                        if (value != null) {
+                            values.add(value);
+                        }
+                    }
+                    return values;
+                case VALUE_NULL:
+                    return null;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getDecimalValue();
+                default:
+                    return parser.getText();
+            }
+        }
+
+        private Entity readEntity(JsonParser parser) throws IOException {
+            Entity entity = new Entity();
+            boolean counted = false;
+            for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("@type".equals(field) && !counted) {
+                    readType(readValue(parser, valueToken), entity);
+                    if (entity.product) {
+                        // Fields read before @type are already in the entity; only nested products are affected
+                        productDepth++;
+                        counted = true;
+                    }
+                    continue;
+                }
+                Object value = readValue(parser, valueToken);
+                if (value != null) {
+                    apply(entity, field, value);
+                }
+            }
+            if (counted) {
+                productDepth--;
+            }
+            if (entity.product && productDepth == 0) {
+                emit(entity);
+            }
+            if (entity.offer && entity.offered != null && entity.price != null) {
+                for (Product product : entity.offered) {
+                    if (product.getPrice() == null) {
+                        product.setPrice(entity.price);
+                    }
+                }
+            }
+            return entity;
+        }
+
+        private static void readType(Object type, Entity entity) {
+            if (type instanceof List) {
+                for (Object each : (List<?>) type) {
+                    readType(each, entity);
+                }
+            } else if (type instanceof String) {
+                entity.product |= isProductType((String) type);
+                entity.offer |= isOfferType((String) type);
+            }
+        }
+
+        private void apply(Entity entity, String field, Object value) {
+            switch (field) {
+                case "name":
+                    entity.name = text(value);
+                    break;
+                case "description":
+                    entity.description = text(value);
+                    break;
+                case "url":
+                case "contentUrl":
+                    entity.url = text(value);
+                    break;
+                case "image":
+                    entity.image = imageUrl(value);
+                    break;
+                case "sku":
+                    entity.sku = text(value);
+                    break;
+                case "productID":
+                    entity.sku = first(entity.sku, text(value));
+                    break;
+                case "category":
+                    entity.category = text(value);
+                    break;
+                case "brand":
+                case "manufacturer":
+                    entity.brand = first(entity.brand, text(value));
+                    break;
+                case "price":
+                case "lowPrice":
+                    entity.price = first(entity.price, amount(value));
+                    break;
+                case "offers":
+                case "priceSpecification":
+                    entity.price = first(entity.price, offerPrice(value));
+                    break;
+                case "aggregateRating":
+                    Entity rating = firstEntity(value);
+                    if (rating != null) {
+                        entity.rating = rating.rating;
+                        entity.reviewCount = rating.reviewCount;
+                    }
+                    break;
+                case "ratingValue":
+                    entity.rating = decimal(text(value));
+                    break;
+                case "reviewCount":
+                case "ratingCount":
+                    if (entity.reviewCount == null) {
+                        entity.reviewCount = integer(text(value));
+                    }
+                    break;
+                case "itemOffered":
+                    entity.offered = offeredProducts(value);
+                    break;
+                default:
+                    // Nested entities (@graph, itemListElement, item, mainEntity) were read and emitted already
+            }
+        }
+
+        private static List<Product> offeredProducts(Object value) {
+            List<Product> offered = new ArrayList<>();
+            for (Object each : value instanceof List ? (List<?>) value : List.of(value)) {
+                if (each instanceof Entity && ((Entity) each).emitted != null) {
+                    offered.add(((Entity) each).emitted);
+                }
+            }
+            return offered;
+        }
+
+        /** Text of a scalar, the first element of a list, or an entity's name (or URL, for images). */
+        private static String text(Object value) {
+            if (value instanceof List) {
+                for (Object each : (List<?>) value) {
+                    String text = text(each);
+                    if (text != null) {
+                        return text;
+                    }
+                }
+                return null;
+            }
+            if (value instanceof Entity) {
+                Entity entity = (Entity) value;
+                return first(entity.name, entity.url);
+            }
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).toPlainString();
+            }
+            String text = ((String) value).trim();
+            return text.isEmpty() ? null : text;
+        }
+
+        /** An image is a URL, a list of them, or an ImageObject. */
+        private static String imageUrl(Object value) {
+            Object image = value instanceof List && !((List<?>) value).isEmpty() ? ((List<?>) value).get(0) : value;
+            return image instanceof Entity ? ((Entity) image).url : text(image);
+        }
+
+        private static BigDecimal amount(Object value) {
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).setScale(2, RoundingMode.HALF_UP);
+            }
+            return price(text(value));
+        }
+
+        /** Price of the first offer that has one. */
+        private static BigDecimal offerPrice(Object value) {
+            for (Object each : value instanceof List ? (List<?>) value : List.of(value)) {
+                if (each instanceof Entity && ((Entity) each).price != null) {
+                    return ((Entity) each).price;
+                }
+            }
+            return null;
+        }
+
+        private static Entity firstEntity(Object value) {
+            for (Object each : value instanceof List ? (List<?>) value : List.of(value)) {
+                if (each instanceof Entity) {
+                    return (Entity) each;
+                }
+            }
+            return null;
+        }
+
+        void emit(Entity entity) {
+            if (entity.name == null) {
+                return;
+            }
+            Product product = newProduct.get();
+            product.setName(unescape(entity.name));
+            product.setDescription(unescape(entity.description));
+            product.setPrice(entity.price);
+            product.setProductUrl(absolute(entity.url));
+            product.setImageUrl(absolute(entity.image));
+            product.setCategory(unescape(entity.category));
+            product.setBrand(unescape(entity.brand));
+            product.setRating(entity.rating);
+            product.setReviewCount(entity.reviewCount);
+            product.setProductKey(ProductKeys.of(product, entity.sku));
+            if (product.getProductKey() == null || keys.add(product.getProductKey())) {
+                products.add(product);
+                entity.emitted = product;
+            }
+        }
+
+        private String absolute(String url) {
+            if (url == null) {
+                return null;
+            }
+            try {
+                return pageUrl == null || pageUrl.isEmpty() ? new URL(url).toString() : new URL(new URL(pageUrl), url).toString();
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+
+        /** JSON-LD is often generated from HTML-escaped strings, e.g. {@code "Tom &amp; Jerry"}. */
+        private static String unescape(String text) {
+            return text == null || text.indexOf('&') < 0 ? text : Parser.unescapeEntities(text, false);
+        }
+    }
+
+    private static BigDecimal first(BigDecimal value, BigDecimal fallback) {
+        return value != null ? value : fallback;
+    }
+}
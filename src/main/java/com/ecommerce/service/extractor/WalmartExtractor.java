@@ -0,0 +1,23 @@
+package com.ecommerce.service.extractor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class WalmartExtractor extends ListingExtractor {
+
+    public WalmartExtractor() {
+        super("walmart");
+    }
+
+    @Override
+    public List<String> hosts() {
+        return List.of("walmart.com");
+    }
+
+    @Override
+    public String website() {
+        return "Walmart";
+    }
+}
@@ -0,0 +1,215 @@
+package com.ecommerce;
+
+import com.ecommerce.stub.StubShopServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application with every supported site's {@code scraper.fetch.base-urls} pointing
+ * at {@link StubShopServer}, so whole scrapes run offline: fetch, pagination, extraction,
+ * indexing and persistence.
+ */
+class ScrapeIntegrationTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+
+    private static StubShopServer.Options options;
+    private static StubShopServer stub;
+    private static ConfigurableApplicationContext app;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void start() throws IOException {
+        options = new StubShopServer.Options();
+        options.latency = Duration.ZERO;
+        options.jitter = Duration.ZERO;
+        options.pages = 2;
+        options.threads = 8;
+        stub = new StubShopServer(options);
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:scrape-it",
+                "--scraper.cache.enabled=false",
+                "--scraper.crawl.enabled=false",
+                "--scraper.persistence.enabled=true",
+                "--scraper.fetch.politeness.requests-per-second=1000",
+                "--scraper.fetch.politeness.burst=1000",
+                "--logging.level.root=WARN"));
+        for (String site : StubShopServer.SITES) {
+            String host = "generic".equals(site) ? "shop.example.com" : site + ".com";
+            args.add("--scraper.fetch.base-urls[" + host + "]=" + stub.baseUrl(site));
+            args.add("--scraper.fetch.hosts[" + host + "].requests-per-second=1000");
+            args.add("--scraper.fetch.hosts[" + host + "].burst=1000");
+        }
+        // Only the throttling test uses this host, so its backoff and breaker touch no other test
+        args.add("--scraper.fetch.base-urls[throttled.example.com]=" + stub.baseUrl("generic"));
+        app = SpringApplication.run(WebScraperApplication.class, args.toArray(new String[0]));
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        if (app != null) {
+            app.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void scrapesEverySiteFromTheStub() throws Exception {
+        String[] listings = {
+                "https://www.amazon.com/s?k=laptop", "https://www.ebay.com/sch/i.html?_nkw=laptop",
+                "https://www.walmart.com/search?q=laptop", "https://www.meesho.com/search?q=laptop",
+                "https://shop.example.com/search?q=laptop"};
+        for (String listing : listings) {
+            JsonNode products = scrape(listing);
+
+            assertTrue(products.isArray(), listing);
+            assertFalse(products.isEmpty(), "no products from " + listing);
+            for (JsonNode product : products) {
+                assertFalse(product.path("name").asText().isBlank(), listing);
+                assertNotNull(product.get("productKey"), listing);
+            }
+        }
+        assertTrue(stub.counts().get("served") >= listings.length);
+    }
+
+    @Test
+    void followsPaginationUntilTheListingEnds() throws Exception {
+        long before = stub.counts().get("empty");
+
+        JsonNode products = scrape("https://www.ebay.com/sch/i.html?_nkw=monitor");
+
+        assertFalse(products.isEmpty());
+        assertTrue(stub.counts().get("empty") > before, "the scrape never reached the end of the listing");
+    }
+
+    @Test
+    void indexesAndStoresScrapedProducts() throws Exception {
+        JsonNode scraped = scrape("https://www.walmart.com/search?q=keyboard");
+        String website = scraped.get(0).get("website").asText();
+
+        JsonNode found = get("/api/products/search?website=" + website + "&size=500");
+        assertTrue(found.get("totalElements").asLong() >= scraped.size());
+
+        // Persistence runs behind the scrape
+        JsonNode stored = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            stored = get("/api/products?website=" + website + "&size=500").get("products");
+            if (stored.size() > 0) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertFalse(stored.isEmpty(), "nothing persisted for " + website);
+        assertEquals(website, stored.get(0).get("website").asText());
+    }
+
+    @Test
+    void storesAProductScrapedAgainOnce() throws Exception {
+        scrape("https://www.meesho.com/search?q=kurta");
+        Instant again = Instant.now();
+        JsonNode scraped = scrape("https://www.meesho.com/search?q=kurta");
+        String website = scraped.get(0).get("website").asText();
+        Set<String> keys = new HashSet<>();
+        scraped.forEach(product -> keys.add(product.get("productKey").asText()));
+
+        // Wait until the writer has applied the second scrape to every row
+        JsonNode stored = null;
+        for (int attempt = 0; attempt < 50; attempt++) {
+            stored = get("/api/products?website=" + website + "&size=500").get("products");
+            boolean updated = stored.size() > 0;
+            for (JsonNode product : stored) {
+                updated &= !Instant.parse(product.get("scrapedAt").asText()).isBefore(again);
+            }
+            if (updated) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(keys.size(), stored.size());
+    }
+
+    @Test
+    void recordsAThrottledFirstPageAsABlock() throws Exception {
+        options.throttleRate = 1;
+        try {
+            JsonNode products = scrape("https://throttled.example.com/search?q=laptop");
+
+            assertTrue(products.isEmpty());
+        } finally {
+            options.throttleRate = 0;
+        }
+        JsonNode blocked = get("/actuator/metrics/scraper.blocked?tag=reason:429");
+        assertTrue(blocked.get("measurements").get(0).get("value").asDouble() >= 1);
+    }
+
+    @Test
+    void exportsPageCacheMeters() throws Exception {
+        scrape("https://www.amazon.com/s?k=headphones");
+
+        JsonNode misses = get("/actuator/metrics/scraper.cache.misses");
+        assertTrue(misses.get("measurements").get(0).get("value").asDouble() >= 1);
+        assertNotNull(get("/actuator/metrics/scraper.cache.stored").get("measurements"));
+    }
+
+    @Test
+    void monitorsAListingOffTheRequestThread() throws Exception {
+        JsonNode first = post("/api/scraper/monitor", "https://www.ebay.com/sch/i.html?_nkw=camera");
+        JsonNode second = post("/api/scraper/monitor", "https://www.ebay.com/sch/i.html?_nkw=camera");
+
+        assertFalse(first.get("added").isEmpty());
+        assertTrue(second.get("added").isEmpty());
+        assertTrue(second.get("pagesUnchanged").asInt() > 0);
+    }
+
+    private static JsonNode scrape(String listing) throws Exception {
+        return post("/api/scraper/scrape", listing);
+    }
+
+    private static JsonNode post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return send(request);
+    }
+
+    private static JsonNode get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofMinutes(1)).build());
+    }
+
+    private static JsonNode send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return JSON.readTree(response.body());
+    }
+}
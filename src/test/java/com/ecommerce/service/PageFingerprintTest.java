@@ -0,0 +1,46 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PageFingerprintTest {
+
+    private static final String PAGE = "<html><head>"
+            + "<meta name=\"csrf-token\" content=\"%s\">"
+            + "<script nonce=\"%s\">window.requestId = '%s';</script>"
+            + "<script type=\"application/ld+json\">{\"@type\":\"Product\",\"name\":\"Mug\",\"offers\":{\"price\":\"%s\"}}</script>"
+            + "</head><body><!-- rendered %s -->"
+            + "<form><input type=\"hidden\" name=\"token\" value=\"%s\"></form>"
+            + "<div class=\"card\"><span class=\"price\">$%s</span></div>"
+            + "</body></html>";
+
+    @Test
+    void ignoresPerRequestTokens() {
+        assertEquals(PageFingerprint.of(page("a1", "9.99", "9.99")), PageFingerprint.of(page("b2", "9.99", "9.99")));
+    }
+
+    @Test
+    void changesWithTheListedPrices() {
+        long before = PageFingerprint.of(page("a1", "9.99", "9.99"));
+
+        assertNotEquals(before, PageFingerprint.of(page("a1", "9.99", "8.99")));
+        assertNotEquals(before, PageFingerprint.of(page("a1", "8.99", "9.99")));
+    }
+
+    @Test
+    void readsTheDecodedBody() throws IOException {
+        String html = page("a1", "9.99", "9.99");
+        FetchedPage fetched = FetchedPage.of("https://shop.example.com/search", "UTF-8", html.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(PageFingerprint.of(html), PageFingerprint.of(fetched));
+    }
+
+    private static String page(String token, String structuredPrice, String cardPrice) {
+        return String.format(PAGE, token, token, token, structuredPrice, token, token, cardPrice);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceStatsTest {
+
+    private static final List<BigDecimal> BOUNDS = List.of(new BigDecimal("100"), new BigDecimal("500"));
+
+    @Test
+    void summarizesPricedProducts() {
+        PriceStats stats = new PriceStats(BOUNDS, List.of(0.5), 0.01);
+        stats.addAll(List.of(product("50"), product("100"), product("100.01"), product(null), product("900.5")));
+
+        PriceStats.Snapshot snapshot = stats.snapshot();
+
+        assertEquals(4, snapshot.getCount());
+        assertEquals(1, snapshot.getUnpriced());
+        assertEquals(new BigDecimal("50.00"), snapshot.getMin());
+        assertEquals(new BigDecimal("900.50"), snapshot.getMax());
+        assertEquals(new BigDecimal("287.63"), snapshot.getMean());
+        assertEquals(3, snapshot.getHistogram().size());
+        assertNull(snapshot.getHistogram().get(0).getFrom());
+        assertEquals(2, snapshot.getHistogram().get(0).getCount());
+        assertEquals(1, snapshot.getHistogram().get(1).getCount());
+        assertEquals(1, snapshot.getHistogram().get(2).getCount());
+        assertNull(snapshot.getHistogram().get(2).getTo());
+    }
+
+    @Test
+    void estimatesQuantilesWithinTheRelativeAccuracy() {
+        double accuracy = 0.01;
+        PriceStats stats = new PriceStats(BOUNDS, List.of(0.5, 0.9, 0.99), accuracy);
+        Random random = new Random(42);
+        List<BigDecimal> prices = new ArrayList<>();
+        List<Product> page = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Long-tailed, like real listings
+            BigDecimal price = BigDecimal.valueOf((long) (Math.exp(random.nextGaussian() * 1.5 + 4) * 100) + 1, 2);
+            prices.add(price);
+            page.add(product(price.toPlainString()));
+            if (page.size() == 500) {
+                stats.addAll(page);
+                page.clear();
+            }
+        }
+        Collections.sort(prices);
+
+        PriceStats.Snapshot snapshot = stats.snapshot();
+
+        assertEquals(List.of("p50", "p90", "p99"), new ArrayList<>(snapshot.getQuantiles().keySet()));
+        assertWithin(accuracy, prices.get((int) (0.5 * (prices.size() - 1))), snapshot.getQuantiles().get("p50"));
+        assertWithin(accuracy, prices.get((int) (0.9 * (prices.size() - 1))), snapshot.getQuantiles().get("p90"));
+        assertWithin(accuracy, prices.get((int) (0.99 * (prices.size() - 1))), snapshot.getQuantiles().get("p99"));
+    }
+
+    @Test
+    void clampsQuantilesToTheObservedRange() {
+        PriceStats stats = new PriceStats(BOUNDS, List.of(0.0, 1.0), 0.05);
+        stats.addAll(List.of(product("0"), product("10"), product("1234.56")));
+
+        PriceStats.Snapshot snapshot = stats.snapshot();
+
+        assertEquals(new BigDecimal("0.00"), snapshot.getQuantiles().get("p0"));
+        assertEquals(new BigDecimal("1234.56"), snapshot.getQuantiles().get("p100"));
+    }
+
+    @Test
+    void hasNoSummaryWithoutPrices() {
+        PriceStats stats = new PriceStats(BOUNDS, List.of(0.5), 0.01);
+        stats.addAll(List.of(product(null)));
+
+        PriceStats.Snapshot snapshot = stats.snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(1, snapshot.getUnpriced());
+        assertNull(snapshot.getMean());
+        assertTrue(snapshot.getQuantiles().isEmpty());
+    }
+
+    private static void assertWithin(double accuracy, BigDecimal expected, BigDecimal actual) {
+        double error = Math.abs(actual.doubleValue() - expected.doubleValue()) / expected.doubleValue();
+        // A cent of rounding on top of the sketch's own error
+        assertTrue(error <= accuracy + 0.01 / expected.doubleValue(), "expected " + expected + " within " + accuracy + " but was " + actual);
+    }
+
+    private static Product product(String price) {
+        Product product = new Product();
+        product.setPrice(price == null ? null : new BigDecimal(price));
+        return product;
+    }
+}
@@ -0,0 +1,178 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ScraperProperties;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductIndex.SortBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductIndexTest {
+
+    private ProductIndex index;
+
+    @BeforeEach
+    void createIndex() throws ReflectiveOperationException {
+        index = new ProductIndex();
+        Field properties = ProductIndex.class.getDeclaredField("properties");
+        properties.setAccessible(true);
+        properties.set(index, new ScraperProperties());
+        index.init();
+        // Two pages, so the sorted columns are merged rather than built once
+        index.addAll(List.of(
+                product("amazon:1", "amazon", "Wireless Mouse", "2.4GHz, silent clicks", "19.99"),
+                product("amazon:2", "amazon", "mechanical keyboard", "Backlit keys", "89.00"),
+                product("amazon:3", "amazon", "USB-C Charger", null, null)));
+        index.addAll(List.of(
+                product("ebay:1", "ebay", "Gaming Mouse", "Wired, RGB", "45.50"),
+                product("ebay:2", "eBay", "Mouse Pad", "Extended", "9.99"),
+                product("ebay:3", "ebay", "Laptop Stand", "Aluminium", null)));
+    }
+
+    @Test
+    void matchesEveryKeywordAndTheLastAsAPrefix() {
+        assertEquals(List.of("Mouse Pad", "Gaming Mouse", "Wireless Mouse"), names(search("mouse", null, null, null, SortBy.NEWEST)));
+        assertEquals(List.of("Gaming Mouse"), names(search("wired mou", null, null, null, SortBy.NEWEST)));
+        assertEquals(List.of("mechanical keyboard"), names(search("BACKLIT", null, null, null, SortBy.NEWEST)));
+        assertEquals(List.of(), names(search("mouse keyboard", null, null, null, SortBy.NEWEST)));
+    }
+
+    @Test
+    void filtersByWebsiteAndPriceRange() {
+        assertEquals(List.of("Laptop Stand", "Mouse Pad", "Gaming Mouse"), names(search(null, null, null, "EBAY", SortBy.NEWEST)));
+        assertEquals(List.of("Gaming Mouse", "Wireless Mouse"),
+                names(search(null, new BigDecimal("10"), new BigDecimal("45.50"), null, SortBy.NEWEST)));
+    }
+
+    @Test
+    void sortsByPriceWithUnpricedProductsLast() {
+        assertEquals(List.of("Mouse Pad", "Wireless Mouse", "Gaming Mouse", "mechanical keyboard", "USB-C Charger", "Laptop Stand"),
+                names(search(null, null, null, null, SortBy.PRICE_ASC)));
+        assertEquals(List.of("mechanical keyboard", "Gaming Mouse", "Wireless Mouse", "Mouse Pad", "USB-C Charger", "Laptop Stand"),
+                names(search(null, null, null, null, SortBy.PRICE_DESC)));
+        assertEquals(List.of("Wireless Mouse", "Gaming Mouse"),
+                names(search(null, new BigDecimal("10"), new BigDecimal("50"), null, SortBy.PRICE_ASC)));
+    }
+
+    @Test
+    void sortsByNameIgnoringCase() {
+        assertEquals(List.of("Gaming Mouse", "Laptop Stand", "mechanical keyboard", "Mouse Pad", "USB-C Charger", "Wireless Mouse"),
+                names(search(null, null, null, null, SortBy.NAME)));
+        assertEquals(List.of("Gaming Mouse", "Mouse Pad", "Wireless Mouse"), names(search("mouse", null, null, null, SortBy.NAME)));
+    }
+
+    @Test
+    void pagesThroughResults() {
+        Page<Product> second = index.search(null, null, null, null, SortBy.PRICE_ASC, PageRequest.of(1, 2));
+
+        assertEquals(6, second.getTotalElements());
+        assertEquals(List.of("Gaming Mouse", "mechanical keyboard"), names(second));
+    }
+
+    @Test
+    void replacesAProductScrapedAgain() {
+        index.addAll(List.of(product("amazon:1", "amazon", "Wireless Mouse", "2.4GHz, silent clicks", "4.99")));
+
+        assertEquals(6, index.size());
+        assertEquals(List.of("Wireless Mouse", "Mouse Pad", "Gaming Mouse", "mechanical keyboard", "USB-C Charger", "Laptop Stand"),
+                names(search(null, null, null, null, SortBy.PRICE_ASC)));
+        assertEquals(new BigDecimal("4.99"), search("wireless", null, null, null, SortBy.NEWEST).getContent().get(0).getPrice());
+    }
+
+    @Test
+    void returnsEveryStoredColumn() {
+        Product scraped = product("walmart:9", "walmart", "Desk Lamp", "LED", "24.99");
+        scraped.setImageUrl("https://i5.walmartimages.com/lamp.jpg");
+        scraped.setProductUrl("https://www.walmart.com/ip/9");
+        scraped.setCategory("Lighting");
+        scraped.setBrand("Lumo");
+        scraped.setRating(4.3);
+        scraped.setReviewCount(310);
+        scraped.setScrapedAt(Instant.parse("2024-03-01T12:30:00.123456Z"));
+        index.addAll(List.of(scraped));
+
+        Product found = search("lamp", null, null, null, SortBy.NEWEST).getContent().get(0);
+
+        assertEquals(scraped, found);
+    }
+
+    @Test
+    void keepsSortOrdersAcrossManyPages() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Prices and names in an order unrelated to arrival
+            int n = (i * 7919) % 2000;
+            products.add(product("generic:" + i, "generic", String.format("Item %04d", n), null, n % 5 == 0 ? null : n + ".00"));
+            if (products.size() == 48) {
+                index.addAll(products);
+                products.clear();
+            }
+        }
+        index.addAll(products);
+
+        List<Product> byPrice = index.search("item", null, null, "generic", SortBy.PRICE_ASC, PageRequest.of(0, 2000)).getContent();
+        assertEquals(2000, byPrice.size());
+        for (int i = 1; i < 1600; i++) {
+            assertEquals(-1, byPrice.get(i - 1).getPrice().compareTo(byPrice.get(i).getPrice()));
+        }
+        List<String> byName = names(index.search("item", null, null, null, SortBy.NAME, PageRequest.of(0, 2000)));
+        for (int i = 0; i < byName.size(); i++) {
+            assertEquals(String.format("Item %04d", i), byName.get(i));
+        }
+    }
+
+    @Test
+    void keepsSortOrdersThroughCompaction() {
+        // Every round replaces the previous one, so dead documents soon outnumber live ones
+        for (int round = 0; round < 3; round++) {
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                int n = (i * 7919 + round) % 600;
+                products.add(product("generic:" + i, "generic", String.format("Item %04d", i), null, n + ".00"));
+                if (products.size() == 50) {
+                    index.addAll(products);
+                    products.clear();
+                }
+            }
+        }
+
+        assertEquals(606, index.size());
+        List<Product> byPrice = index.search("item", null, null, "generic", SortBy.PRICE_DESC, PageRequest.of(0, 600)).getContent();
+        assertEquals(600, byPrice.size());
+        for (int i = 0; i < byPrice.size(); i++) {
+            assertEquals(new BigDecimal((599 - i) + ".00"), byPrice.get(i).getPrice());
+        }
+        List<String> byName = names(index.search("item", null, null, null, SortBy.NAME, PageRequest.of(0, 600)));
+        for (int i = 0; i < byName.size(); i++) {
+            assertEquals(String.format("Item %04d", i), byName.get(i));
+        }
+    }
+
+    private Page<Product> search(String keywords, BigDecimal min, BigDecimal max, String website, SortBy sortBy) {
+        return index.search(keywords, min, max, website, sortBy, PageRequest.of(0, 20));
+    }
+
+    private static List<String> names(Page<Product> page) {
+        return page.getContent().stream().map(Product::getName).collect(Collectors.toList());
+    }
+
+    private static Product product(String key, String website, String name, String description, String price) {
+        Product product = new Product();
+        product.setProductKey(key);
+        product.setWebsite(website);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price == null ? null : new BigDecimal(price));
+        return product;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.service.crawl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlFrontierTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void hostsTakeTurns() {
+        CrawlFrontier frontier = new CrawlFrontier(10);
+        for (int page = 1; page <= 5; page++) {
+            frontier.add("big", "amazon.com", "https://amazon.com/s?page=" + page, page, 0, NOW);
+        }
+        frontier.add("small", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW);
+        frontier.add("other", "walmart.com", "https://walmart.com/search?page=1", 1, 0, NOW);
+
+        List<String> hosts = new ArrayList<>();
+        for (CrawlFrontier.Task task = frontier.poll(NOW); task != null; task = frontier.poll(NOW)) {
+            hosts.add(task.host);
+        }
+
+        assertEquals(List.of("amazon.com", "ebay.com", "walmart.com", "amazon.com", "amazon.com", "amazon.com", "amazon.com"), hosts);
+    }
+
+    @Test
+    void limitsPagesInFlightPerHost() {
+        CrawlFrontier frontier = new CrawlFrontier(2);
+        for (int page = 1; page <= 3; page++) {
+            frontier.add("big", "amazon.com", "https://amazon.com/s?page=" + page, page, 0, NOW);
+        }
+
+        CrawlFrontier.Task first = frontier.poll(NOW);
+        assertEquals(2, frontier.poll(NOW).page);
+        assertNull(frontier.poll(NOW));
+
+        frontier.done(first);
+        assertEquals(3, frontier.poll(NOW).page);
+    }
+
+    @Test
+    void ordersAHostByPriorityThenDueTime() {
+        CrawlFrontier frontier = new CrawlFrontier(10);
+        frontier.add("d", "amazon.com", "https://amazon.com/late", 1, 0, NOW.plusSeconds(1));
+        frontier.add("d", "amazon.com", "https://amazon.com/early", 1, 0, NOW.minusSeconds(1));
+        frontier.add("d", "amazon.com", "https://amazon.com/urgent", 1, 5, NOW);
+        frontier.add("d", "amazon.com", "https://amazon.com/later", 1, 9, NOW.plusSeconds(60));
+
+        assertEquals("https://amazon.com/urgent", frontier.poll(NOW).url);
+        assertEquals("https://amazon.com/early", frontier.poll(NOW).url);
+        // The high-priority page is not due yet and must not block the due one behind it
+        assertEquals("https://amazon.com/late", frontier.poll(NOW.plusSeconds(1)).url);
+        assertNull(frontier.poll(NOW.plusSeconds(1)));
+        assertEquals("https://amazon.com/later", frontier.poll(NOW.plusSeconds(60)).url);
+    }
+
+    @Test
+    void queuesAUrlOnceUntilItIsDone() {
+        CrawlFrontier frontier = new CrawlFrontier(10);
+        assertTrue(frontier.add("a", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW));
+        assertFalse(frontier.add("b", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW));
+        assertEquals(1, frontier.size());
+
+        CrawlFrontier.Task task = frontier.poll(NOW);
+        assertFalse(frontier.add("a", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW));
+
+        frontier.done(task);
+        assertTrue(frontier.add("a", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW));
+    }
+
+    @Test
+    void removesOnlyTheDefinitionsQueuedPages() {
+        CrawlFrontier frontier = new CrawlFrontier(10);
+        frontier.add("gone", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW);
+        frontier.add("gone", "amazon.com", "https://amazon.com/s?page=1", 1, 0, NOW);
+        frontier.add("kept", "amazon.com", "https://amazon.com/s?page=2", 2, 0, NOW);
+
+        frontier.removeDefinition("gone");
+
+        assertEquals(1, frontier.size());
+        assertEquals("kept", frontier.poll(NOW).definition);
+        assertNull(frontier.poll(NOW));
+        assertTrue(frontier.add("again", "ebay.com", "https://ebay.com/sch?pgn=1", 1, 0, NOW));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvProductWriterTest {
+
+    private static final String HEADER = "id,productKey,name,description,price,imageUrl,productUrl,website,category,brand,rating,reviewCount,scrapedAt\r\n";
+
+    @Test
+    void writesAHeaderAndPlainFieldsUnquoted() throws IOException {
+        Product product = new Product();
+        product.setId(7L);
+        product.setProductKey("amazon:B01");
+        product.setName("Echo Dot");
+        product.setPrice(new BigDecimal("49.99"));
+        product.setWebsite("amazon");
+        product.setRating(4.5);
+        product.setReviewCount(1200);
+        product.setScrapedAt(Instant.parse("2024-03-01T12:30:00.123456Z"));
+
+        assertEquals(HEADER + "7,amazon:B01,Echo Dot,,49.99,,,amazon,,,4.5,1200,2024-03-01T12:30:00.123456Z\r\n", csv(product));
+    }
+
+    @Test
+    void quotesFieldsWithSeparatorsQuotesAndLineBreaks() throws IOException {
+        Product product = new Product();
+        product.setName("Mug, \"Large\"");
+        product.setDescription("line one\r\nline two");
+        product.setBrand("Tom \"&\" Jerry");
+
+        assertEquals(HEADER + ",,\"Mug, \"\"Large\"\"\",\"line one\r\nline two\",,,,,,\"Tom \"\"&\"\" Jerry\",,,\r\n", csv(product));
+    }
+
+    @Test
+    void prefixesTextThatASpreadsheetWouldEvaluate() throws IOException {
+        Product product = new Product();
+        product.setName("=HYPERLINK(\"http://evil.example\",\"Click\")");
+        product.setDescription("-5% off");
+        product.setCategory("+1");
+        product.setBrand("@brand");
+        product.setPrice(new BigDecimal("-1.50"));
+
+        assertEquals(HEADER + ",,\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"Click\"\")\",'-5% off,-1.50,,,,'+1,'@brand,,,\r\n", csv(product));
+    }
+
+    @Test
+    void writesUtf8() throws IOException {
+        Product product = new Product();
+        product.setName("Café ₹299");
+
+        assertEquals(HEADER + ",,Café ₹299,,,,,,,,,,\r\n", csv(product));
+    }
+
+    private static String csv(Product... products) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvProductWriter writer = new CsvProductWriter(out, 64)) {
+            for (Product product : products) {
+                writer.write(product);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.service.export;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Writes exports and reads them back with DuckDB, an independent Parquet reader. */
+class ParquetProductWriterTest {
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("products", ".parquet");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void roundTripsEveryColumn() throws Exception {
+        Product full = new Product();
+        full.setId(1L);
+        full.setProductKey("ebay:123");
+        full.setName("Café mug, \"large\"");
+        full.setDescription("Stoneware");
+        full.setPrice(new BigDecimal("1299.5"));
+        full.setImageUrl("https://i.ebayimg.com/1.jpg");
+        full.setProductUrl("https://www.ebay.com/itm/123");
+        full.setWebsite("ebay");
+        full.setCategory("Kitchen");
+        full.setBrand("Acme");
+        full.setRating(4.5);
+        full.setReviewCount(87);
+        full.setScrapedAt(Instant.parse("2024-03-01T12:30:00.123456Z"));
+        Product sparse = new Product();
+        sparse.setId(2L);
+        sparse.setName("No price");
+        write(1 << 20, full, sparse);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             PreparedStatement query = connection.prepareStatement("SELECT * FROM read_parquet(?) ORDER BY id")) {
+            query.setString(1, file.toString());
+            try (ResultSet rows = query.executeQuery()) {
+                ResultSetMetaData columns = rows.getMetaData();
+                assertEquals(ProductRowWriter.COLUMNS.length, columns.getColumnCount());
+                for (int i = 0; i < ProductRowWriter.COLUMNS.length; i++) {
+                    assertEquals(ProductRowWriter.COLUMNS[i], columns.getColumnName(i + 1));
+                }
+
+                assertTrue(rows.next());
+                assertEquals(1L, rows.getLong("id"));
+                assertEquals("ebay:123", rows.getString("productKey"));
+                assertEquals("Café mug, \"large\"", rows.getString("name"));
+                assertEquals("Stoneware", rows.getString("description"));
+                assertEquals(new BigDecimal("1299.50"), rows.getBigDecimal("price"));
+                assertEquals("https://i.ebayimg.com/1.jpg", rows.getString("imageUrl"));
+                assertEquals("https://www.ebay.com/itm/123", rows.getString("productUrl"));
+                assertEquals("ebay", rows.getString("website"));
+                assertEquals("Kitchen", rows.getString("category"));
+                assertEquals("Acme", rows.getString("brand"));
+                assertEquals(4.5, rows.getDouble("rating"));
+                assertEquals(87, rows.getInt("reviewCount"));
+                assertEquals(Instant.parse("2024-03-01T12:30:00.123456Z"),
+                        rows.getObject("scrapedAt", LocalDateTime.class).toInstant(ZoneOffset.UTC));
+
+                assertTrue(rows.next());
+                assertEquals(2L, rows.getLong("id"));
+                assertEquals("No price", rows.getString("name"));
+                assertNull(rows.getBigDecimal("price"));
+                assertNull(rows.getObject("rating"));
+                assertNull(rows.getObject("reviewCount"));
+                assertNull(rows.getString("website"));
+                assertNull(rows.getObject("scrapedAt"));
+                assertFalse(rows.next());
+            }
+        }
+    }
+
+    @Test
+    void splitsLargeExportsIntoRowGroups() throws Exception {
+        Product[] products = new Product[5000];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = new Product();
+            products[i].setId((long) i);
+            products[i].setName("Product " + i);
+            products[i].setPrice(i % 3 == 0 ? null : BigDecimal.valueOf(i, 2));
+        }
+        write(16 * 1024, products);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:")) {
+            assertTrue(scalar(connection, "SELECT count(*) FROM parquet_metadata(?) WHERE column_id = 0") > 1);
+            assertEquals(5000L, scalar(connection, "SELECT count(*) FROM read_parquet(?)"));
+            assertEquals(3333L, scalar(connection, "SELECT count(price) FROM read_parquet(?)"));
+            long expected = 0;
+            for (int i = 0; i < products.length; i++) {
+                expected += i % 3 == 0 ? 0 : i;
+            }
+            assertEquals(expected, scalar(connection, "SELECT CAST(sum(price) * 100 AS BIGINT) FROM read_parquet(?)"));
+        }
+    }
+
+    private void write(int rowGroupBytes, Product... products) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             ParquetProductWriter writer = new ParquetProductWriter(out, 8192, rowGroupBytes)) {
+            for (Product product : products) {
+                writer.write(product);
+            }
+        }
+    }
+
+    private long scalar(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setString(1, file.toString());
+            try (ResultSet result = query.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.service.extractor;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PricesTest {
+
+    @Test
+    void readsTheFirstPriceOfRangesAndRepeatedLabels() {
+        assertPrice("1299.99", "$1,299.99");
+        assertPrice("12.99", "$12.99 to $15.99");
+        assertPrice("24.97", "current price $24.97$24.97");
+        assertPrice("299.00", "₹299");
+    }
+
+    @Test
+    void infersTheDecimalSeparator() {
+        assertPrice("1299.00", "EUR 1.299,00");
+        assertPrice("12.99", "12,99");
+        assertPrice("1299.00", "1 299,00");
+        assertPrice("1.00", "0.995");
+    }
+
+    @Test
+    void treatsALoneSeparatorBeforeThreeDigitsAsGrouping() {
+        assertPrice("1299.00", "US $1.299");
+        assertPrice("1299.00", "€1.299");
+    }
+
+    @Test
+    void readsANumberStartingAtItsDecimalPoint() {
+        assertPrice("0.99", ".99");
+        assertPrice("0.99", "$ .99");
+    }
+
+    @Test
+    void skipsThePointEndingACurrencyAbbreviation() {
+        assertPrice("499.00", "Rs.499");
+        assertPrice("1299.00", "Rs.1,299");
+        assertPrice("499.00", "Rs. 499");
+    }
+
+    @Test
+    void rejectsNumbersTooLongToBePrices() {
+        assertPrice("9999999999999999.00", "9999999999999999");
+        assertEquals(Prices.NO_PRICE, Prices.parseHundredths("99999999999999999"));
+        assertNull(Prices.parse("99999999999999999"));
+    }
+
+    @Test
+    void returnsNoPriceWithoutDigits() {
+        assertEquals(Prices.NO_PRICE, Prices.parseHundredths("Free"));
+        assertNull(Prices.parse(""));
+    }
+
+    private static void assertPrice(String expected, String text) {
+        assertEquals(new BigDecimal(expected), Prices.parse(text), text);
+    }
+}
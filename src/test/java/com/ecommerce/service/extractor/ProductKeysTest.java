@@ -0,0 +1,65 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductKeysTest {
+
+    @Test
+    void prefersTheSiteItemId() {
+        Product product = product("Amazon", "https://www.amazon.com/dp/B07XJ8C8F5", "Echo Dot");
+        assertEquals("amazon:B07XJ8C8F5", ProductKeys.of(product, " B07XJ8C8F5 "));
+    }
+
+    @Test
+    void fallsBackToTheCanonicalUrl() {
+        String key = ProductKeys.of(product("ebay", "https://www.ebay.com/itm/123/?_trkparms=abc#x", "Mouse"), null);
+        assertTrue(key.startsWith("ebay:u"));
+        assertEquals(key, ProductKeys.of(product("ebay", "http://EBAY.com/itm/123", "Other name"), ""));
+        assertNotEquals(key, ProductKeys.of(product("ebay", "https://www.ebay.com/itm/124", "Mouse"), null));
+    }
+
+    @Test
+    void fallsBackToTheNormalizedName() {
+        String key = ProductKeys.of(product("meesho", "/relative/path", "Cotton  Kurta - Blue!"), null);
+        assertTrue(key.startsWith("meesho:n"));
+        assertEquals(key, ProductKeys.of(product("meesho", null, "cotton kurta blue"), null));
+    }
+
+    @Test
+    void hasNoKeyWithoutIdUrlOrName() {
+        assertNull(ProductKeys.of(product("walmart", null, " -- "), null));
+    }
+
+    @Test
+    void keysOfDifferentSitesNeverCollide() {
+        assertNotEquals(ProductKeys.of(product("amazon", null, "Mouse"), null),
+                ProductKeys.of(product("ebay", null, "Mouse"), null));
+    }
+
+    @Test
+    void canonicalUrlKeepsHostAndPathOnly() {
+        assertEquals("shop.example.com/p/42", ProductKeys.canonicalUrl("https://WWW.Shop.Example.com/p/42/?ref=home"));
+        assertNull(ProductKeys.canonicalUrl("/p/42"));
+        assertNull(ProductKeys.canonicalUrl("not a url"));
+    }
+
+    @Test
+    void normalizeNameCollapsesPunctuationAndCase() {
+        assertEquals("usb c charger 65w", ProductKeys.normalizeName("  USB-C Charger (65W)  "));
+        assertEquals("", ProductKeys.normalizeName(null));
+    }
+
+    private static Product product(String website, String url, String name) {
+        Product product = new Product();
+        product.setWebsite(website);
+        product.setProductUrl(url);
+        product.setName(name);
+        return product;
+    }
+}
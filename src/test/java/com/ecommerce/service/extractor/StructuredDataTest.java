@@ -0,0 +1,110 @@
+package com.ecommerce.service.extractor;
+
+import com.ecommerce.model.Product;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuredDataTest {
+
+    private static final String PAGE_URL = "https://shop.example.com/search?q=laptop";
+
+    private static final Supplier<Product> NEW_PRODUCT = () -> {
+        Product product = new Product();
+        product.setWebsite("shop");
+        return product;
+    };
+
+    @Test
+    void readsAProductBlock() {
+        String html = "<html><head><script type=\"application/ld+json\">{\"@context\":\"https://schema.org\","
+                + "\"@type\":\"Product\",\"name\":\"Tom &amp; Jerry Mug\",\"sku\":\"M-1\",\"image\":[\"/img/m1.jpg\"],"
+                + "\"brand\":{\"@type\":\"Brand\",\"name\":\"Acme\"},\"url\":\"/p/m1\","
+                + "\"offers\":{\"@type\":\"Offer\",\"price\":\"12.50\",\"priceCurrency\":\"USD\"},"
+                + "\"aggregateRating\":{\"ratingValue\":\"4.5\",\"reviewCount\":\"120\"}}</script></head><body></body></html>";
+
+        List<Product> products = StructuredData.fromJsonLd(html, PAGE_URL, NEW_PRODUCT);
+
+        assertEquals(1, products.size());
+        Product product = products.get(0);
+        assertEquals("Tom & Jerry Mug", product.getName());
+        assertEquals("shop:M-1", product.getProductKey());
+        assertEquals(new BigDecimal("12.50"), product.getPrice());
+        assertEquals("https://shop.example.com/p/m1", product.getProductUrl());
+        assertEquals("https://shop.example.com/img/m1.jpg", product.getImageUrl());
+        assertEquals("Acme", product.getBrand());
+        assertEquals(4.5, product.getRating());
+        assertEquals(120, product.getReviewCount());
+    }
+
+    @Test
+    void readsGraphsItemListsAndOfferedItems() {
+        String html = "<script type='application/ld+json'>{\"@graph\":[{\"@type\":\"WebPage\",\"name\":\"Results\"},"
+                + "{\"@type\":\"ItemList\",\"itemListElement\":[{\"@type\":\"ListItem\",\"item\":"
+                + "{\"@type\":\"Product\",\"name\":\"First\",\"sku\":\"1\"}},"
+                + "{\"@type\":\"ListItem\",\"item\":{\"@type\":\"Product\",\"name\":\"Second\",\"sku\":\"2\"}}]}]}</script>"
+                + "<SCRIPT TYPE=\"application/LD+JSON\">{\"@type\":\"Offer\",\"price\":\"9.99\","
+                + "\"itemOffered\":{\"@type\":\"Product\",\"name\":\"Third\",\"sku\":\"3\"}}</SCRIPT>";
+
+        List<Product> products = StructuredData.fromJsonLd(html, PAGE_URL, NEW_PRODUCT);
+
+        assertEquals(List.of("First", "Second", "Third"), names(products));
+    }
+
+    @Test
+    void returnsAProductDescribedTwiceOnce() {
+        String block = "<script type=\"application/ld+json\">{\"@type\":\"Product\",\"name\":\"Lamp\",\"sku\":\"L\"}</script>";
+
+        assertEquals(1, StructuredData.fromJsonLd(block + block, PAGE_URL, NEW_PRODUCT).size());
+    }
+
+    @Test
+    void skipsMalformedBlocksAndOtherScripts() {
+        String html = "<script>var x = {\"@type\":\"Product\",\"name\":\"Not JSON-LD\"};</script>"
+                + "<script type=\"application/ld+json\">{\"@type\":\"Product\",\"name\":</script>"
+                + "<script type=\"application/ld+json\">{\"@type\":\"Product\",\"name\":\"Kept\"}</script>";
+
+        assertEquals(List.of("Kept"), names(StructuredData.fromJsonLd(html, PAGE_URL, NEW_PRODUCT)));
+    }
+
+    @Test
+    void readsMicrodata() {
+        String html = "<div itemscope itemtype=\"https://schema.org/Product\">"
+                + "<h2 itemprop=\"name\">Desk Chair</h2><a itemprop=\"url\" href=\"/p/chair\">view</a>"
+                + "<meta itemprop=\"sku\" content=\"C-9\">"
+                + "<div itemprop=\"offers\" itemscope itemtype=\"https://schema.org/Offer\">"
+                + "<span itemprop=\"price\" content=\"149.00\">$149</span></div>"
+                + "<div itemprop=\"isRelatedTo\" itemscope itemtype=\"https://schema.org/Product\">"
+                + "<span itemprop=\"name\">Footrest</span></div></div>";
+        assertTrue(StructuredData.mayHaveMicrodata(html));
+        Document doc = Jsoup.parse(html, PAGE_URL);
+
+        List<Product> products = StructuredData.fromMicrodata(doc, NEW_PRODUCT);
+
+        assertEquals(List.of("Desk Chair"), names(products));
+        assertEquals("shop:C-9", products.get(0).getProductKey());
+        assertEquals(new BigDecimal("149.00"), products.get(0).getPrice());
+        assertEquals("https://shop.example.com/p/chair", products.get(0).getProductUrl());
+    }
+
+    @Test
+    void findsNothingOnAPlainPage() {
+        String html = "<html><body><p>No results</p></body></html>";
+
+        assertTrue(StructuredData.fromJsonLd(html, PAGE_URL, NEW_PRODUCT).isEmpty());
+        assertFalse(StructuredData.mayHaveMicrodata(html));
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).collect(Collectors.toList());
+    }
+}
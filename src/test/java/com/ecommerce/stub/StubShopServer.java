@@ -0,0 +1,243 @@
+package com.ecommerce.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the supported shops, serving the fixture result pages under
+ * {@code /<site>/...} on the loopback interface. Every response can be delayed, listings end
+ * after a set number of pages, and a share of requests can be answered with 403, 429 or a
+ * CAPTCHA page. An optional cap on requests per second answers the excess with 429 and
+ * {@code Retry-After}, as a shop's rate limiter would. The integration tests and the benchmarks'
+ * load test both run against it.
+ */
+public final class StubShopServer implements Closeable {
+
+    public static final String[] SITES = {"amazon", "ebay", "meesho", "walmart", "generic"};
+
+    private static final byte[] EMPTY_PAGE = gzip("<!doctype html><html><head><title>Shop</title></head>"
+            + "<body><p>No results</p></body></html>");
+    // Matches the amazon 'blocked' rule; the other sites simply find no products on it
+    private static final byte[] CAPTCHA_PAGE = gzip("<!doctype html><html><head><title>Robot Check</title></head>"
+            + "<body><form action=\"/errors/validateCaptcha\"><input name=\"field-keywords\"></form></body></html>");
+
+    /** How the stub behaves; rates are fractions of requests between 0 and 1. */
+    public static final class Options {
+        public Duration latency = Duration.ofMillis(50);
+        // Uniformly random extra delay on top of the latency
+        public Duration jitter = Duration.ofMillis(50);
+        // Result pages per listing; later pages are empty
+        public int pages = 5;
+        // The rates may be changed while the stub is running
+        public volatile double forbiddenRate;
+        public volatile double throttleRate;
+        public volatile double captchaRate;
+        // 0 for no cap
+        public double maxRequestsPerSecond;
+        public int threads = 200;
+        // 0 for any free port
+        public int port;
+    }
+
+    private final Options options;
+    private final Map<String, byte[]> pages = new HashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<String, AtomicLong> counters = new LinkedHashMap<>();
+    private final AtomicLong requests = counter("requests");
+    private final AtomicLong served = counter("served");
+    private final AtomicLong empty = counter("empty");
+    private final AtomicLong forbidden = counter("forbidden");
+    private final AtomicLong throttled = counter("throttled");
+    private final AtomicLong captcha = counter("captcha");
+    private final AtomicLong capped = counter("capped");
+
+    private long windowStart;
+    private int windowCount;
+
+    public StubShopServer(Options options) throws IOException {
+        this.options = options;
+        for (String site : SITES) {
+            pages.put(site, gzip(page(site)));
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.port), 1024);
+        executor = Executors.newFixedThreadPool(options.threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Base URL that stands in for the site's real origin. */
+    public String baseUrl(String site) {
+        return "http://127.0.0.1:" + port() + "/" + site;
+    }
+
+    /** Request counts by outcome, in a fixed order. */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counters.forEach((name, count) -> counts.put(name, count.get()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** The synthetic result page of the site, from {@code src/test/resources/fixtures}. */
+    public static String page(String site) {
+        try (InputStream in = StubShopServer.class.getResourceAsStream("/fixtures/" + site + ".html")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture page for site " + site);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            int slash = path.indexOf('/', 1);
+            String site = path.substring(1, slash < 0 ? path.length() : slash);
+            byte[] page = pages.get(site);
+            if (page == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            sleep();
+            if (!admit()) {
+                capped.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < options.forbiddenRate) {
+                forbidden.incrementAndGet();
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            if (random.nextDouble() < options.throttleRate) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (random.nextDouble() < options.captchaRate) {
+                captcha.incrementAndGet();
+                send(exchange, CAPTCHA_PAGE);
+                return;
+            }
+            if (pageNumber(exchange.getRequestURI().getRawQuery()) > options.pages) {
+                empty.incrementAndGet();
+                send(exchange, EMPTY_PAGE);
+                return;
+            }
+            served.incrementAndGet();
+            send(exchange, page);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /** Fixed one-second windows; close enough to a shop-side request cap. */
+    private synchronized boolean admit() {
+        if (options.maxRequestsPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        return ++windowCount <= options.maxRequestsPerSecond;
+    }
+
+    private void sleep() {
+        long delay = options.latency.toMillis();
+        if (!options.jitter.isZero()) {
+            delay += ThreadLocalRandom.current().nextLong(options.jitter.toMillis() + 1);
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** {@code page} (amazon) or {@code pgn} (ebay); sites that do not paginate only ask for page 1. */
+    private static int pageNumber(String query) {
+        if (query == null) {
+            return 1;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if ((name.equals("page") || name.equals("pgn")) && equals > 0) {
+                try {
+                    return Integer.parseInt(parameter.substring(equals + 1));
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static void send(HttpExchange exchange, byte[] gzipped) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, gzipped.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(gzipped);
+        }
+    }
+
+    private AtomicLong counter(String name) {
+        AtomicLong counter = new AtomicLong();
+        counters.put(name, counter);
+        return counter;
+    }
+
+    private static byte[] gzip(String html) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(html.length() / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(html.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}